@@ -0,0 +1,71 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessPosition;
+import chess.movecalculations.MoveList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the ChessGame queries the server runs on every move, over each
+ * position in the corpus. Run with {@code -prof gc} to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessGameBenchmark {
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = ChessPosition.fromSquare(square);
+        }
+    }
+
+    @Param
+    public Position position;
+
+    private ChessGame game;
+    private final MoveList moves = new MoveList();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = position.newGame();
+    }
+
+    // the public API, one Collection per square, as the client and server call it
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessPosition square : SQUARES) {
+            blackhole.consume(game.validMoves(square));
+        }
+    }
+
+    // the allocation-free path into a reused buffer
+    @Benchmark
+    public int validMovesIntoBuffer() {
+        moves.clear();
+        game.validMoves(game.getTeamTurn(), moves);
+        return moves.size();
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        return game.isInStalemate(game.getTeamTurn());
+    }
+}
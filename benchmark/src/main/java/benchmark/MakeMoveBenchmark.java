@@ -0,0 +1,56 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.movecalculations.Move;
+import chess.movecalculations.MoveList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of ChessGame.makeMove, cycling through every legal move of each corpus
+ * position that has one. makeMove changes the game, so a fresh copy of the position
+ * is set up before each call; JMH keeps that setup out of the measured time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MakeMoveBenchmark {
+    // checkmate and stalemate are left out because they have no move to make
+    @Param({"INITIAL", "MIDDLEGAME", "OPEN_MIDDLEGAME", "ENDGAME", "CHECK"})
+    public Position position;
+
+    private ChessMove[] legalMoves;
+    private int next;
+    private ChessGame game;
+    private ChessMove move;
+
+    @Setup(Level.Trial)
+    public void setUpMoves() {
+        ChessGame start = position.newGame();
+        MoveList moves = new MoveList();
+        start.validMoves(start.getTeamTurn(), moves);
+        legalMoves = new ChessMove[moves.size()];
+        for (int i = 0; i < moves.size(); i++) {
+            legalMoves[i] = Move.toChessMove(moves.get(i));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpGame() {
+        game = position.newGame();
+        move = legalMoves[next];
+        next = (next + 1) % legalMoves.length;
+    }
+
+    @Benchmark
+    public ChessGame makeMove() throws InvalidMoveException {
+        game.makeMove(move);
+        return game;
+    }
+}
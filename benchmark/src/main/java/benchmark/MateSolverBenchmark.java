@@ -0,0 +1,71 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.engine.MateResult;
+import chess.engine.MateSolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time the mate solver takes for each puzzle and for the whole set at once, at
+ * several pool sizes. Comparing the parallelism rows gives the speedup per core;
+ * it flattens out once parallelism passes the machine's core count, so run this
+ * on the hardware you care about.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MateSolverBenchmark {
+    private static final int MAX_MOVES = 3;
+
+    @State(Scope.Benchmark)
+    public static class Pool {
+        @Param({"1", "2", "4", "8"})
+        public int parallelism;
+
+        MateSolver solver;
+        final List<ChessGame> allPuzzles = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            solver = new MateSolver(parallelism, MAX_MOVES);
+            for (Puzzle puzzle : Puzzle.values()) {
+                allPuzzles.add(puzzle.newGame());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            solver.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class OnePuzzle {
+        @Param
+        public Puzzle puzzle;
+
+        ChessGame game;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            game = puzzle.newGame();
+        }
+    }
+
+    @Benchmark
+    public MateResult solve(Pool pool, OnePuzzle onePuzzle) {
+        return pool.solver.solve(onePuzzle.game);
+    }
+
+    // every puzzle at once, so the pool has whole puzzles to spread as well as subtrees
+    @Benchmark
+    public List<MateResult> solveAll(Pool pool) {
+        return pool.solver.solveAll(pool.allPuzzles);
+    }
+}
@@ -0,0 +1,152 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+import java.util.Map;
+
+/**
+ * The corpus of positions the benchmarks run against: an opening, a middlegame and an
+ * endgame, plus one position each for check, checkmate and stalemate so the game-over
+ * queries are measured on both their fast and slow paths.
+ * <p>
+ * Boards are written in the same text format the passoff tests use, white pieces in
+ * upper case and row 8 first.
+ */
+public enum Position {
+    INITIAL(ChessGame.TeamColor.WHITE, """
+            |r|n|b|q|k|b|n|r|
+            |p|p|p|p|p|p|p|p|
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            |P|P|P|P|P|P|P|P|
+            |R|N|B|Q|K|B|N|R|
+            """),
+    // Italian game after 1.e4 e5 2.Nf3 Nc6 3.Bc4 Bc5 4.c3 Nf6 5.d3 d6 6.Nbd2 a6 7.b4 Ba7 8.a4 Be6
+    MIDDLEGAME(ChessGame.TeamColor.WHITE, """
+            |r| | |q|k| | |r|
+            |b|p|p| | |p|p|p|
+            |p| |n|p|b|n| | |
+            | | | | |p| | | |
+            |P|P|B| |P| | | |
+            | | |P|P| |N| | |
+            | | | |N| |P|P|P|
+            |R| |B|Q|K| | |R|
+            """),
+    // perft position 6, a busy position with both queens and all minor pieces out
+    OPEN_MIDDLEGAME(ChessGame.TeamColor.WHITE, """
+            |r| | | | |r|k| |
+            | |p|p| |q|p|p|p|
+            |p| |n|p| |n| | |
+            | | |b| |p| |B| |
+            | | |B| |P| |b| |
+            |P| |N|P| |N| | |
+            | |P|P| |Q|P|P|P|
+            |R| | | | |R|K| |
+            """),
+    // perft position 3, a rook and pawn endgame
+    ENDGAME(ChessGame.TeamColor.WHITE, """
+            | | | | | | | | |
+            | | |p| | | | | |
+            | | | |p| | | | |
+            |K|P| | | | | |r|
+            | |R| | | |p| |k|
+            | | | | | | | | |
+            | | | | |P| |P| |
+            | | | | | | | | |
+            """),
+    // black is in check from the bishop on b5 and has several ways out
+    CHECK(ChessGame.TeamColor.BLACK, """
+            |r|n|b|q|k|b|n|r|
+            |p|p| | | |p|p|p|
+            | | | |p| | | | |
+            | |B|p| |p| | | |
+            | | | | |P| | | |
+            | | | | | | | | |
+            |P|P|P|P| |P|P|P|
+            |R|N|B|Q|K| |N|R|
+            """),
+    // fool's mate: 1.f3 e5 2.g4 Qh4#
+    CHECKMATE(ChessGame.TeamColor.WHITE, """
+            |r|n|b| |k|b|n|r|
+            |p|p|p|p| |p|p|p|
+            | | | | | | | | |
+            | | | | |p| | | |
+            | | | | | | |P|q|
+            | | | | | |P| | |
+            |P|P|P|P|P| | |P|
+            |R|N|B|Q|K|B|N|R|
+            """),
+    STALEMATE(ChessGame.TeamColor.BLACK, """
+            |k| | | | | | | |
+            | | | | | | | | |
+            | |Q| | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | |K| | | | | |
+            """);
+
+    private static final Map<Character, ChessPiece.PieceType> CHAR_TO_TYPE = Map.of(
+            'p', ChessPiece.PieceType.PAWN,
+            'n', ChessPiece.PieceType.KNIGHT,
+            'r', ChessPiece.PieceType.ROOK,
+            'q', ChessPiece.PieceType.QUEEN,
+            'k', ChessPiece.PieceType.KING,
+            'b', ChessPiece.PieceType.BISHOP);
+
+    private final ChessGame.TeamColor teamTurn;
+    private final String boardText;
+
+    Position(ChessGame.TeamColor teamTurn, String boardText) {
+        this.teamTurn = teamTurn;
+        this.boardText = boardText;
+    }
+
+    /**
+     * @return a new game set up in this position, with the right team to move
+     */
+    public ChessGame newGame() {
+        ChessGame game = new ChessGame();
+        game.setBoard(newBoard());
+        game.setTeamTurn(teamTurn);
+        return game;
+    }
+
+    public ChessBoard newBoard() {
+        return parseBoard(boardText);
+    }
+
+    /**
+     * Builds a board from the text format above
+     */
+    static ChessBoard parseBoard(String boardText) {
+        ChessBoard board = new ChessBoard();
+        int row = 8;
+        int column = 1;
+        for (char c : boardText.toCharArray()) {
+            switch (c) {
+                case '\n' -> {
+                    column = 1;
+                    row--;
+                }
+                case ' ' -> column++;
+                case '|' -> {
+                }
+                default -> {
+                    ChessGame.TeamColor color = Character.isLowerCase(c) ? ChessGame.TeamColor.BLACK
+                            : ChessGame.TeamColor.WHITE;
+                    board.addPiece(new ChessPosition(row, column),
+                            new ChessPiece(color, CHAR_TO_TYPE.get(Character.toLowerCase(c))));
+                    column++;
+                }
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,81 @@
+package benchmark;
+
+import chess.ChessGame;
+
+/**
+ * Forced mates for the mate solver benchmark, from a mate in two that takes a few
+ * thousand positions to prove up to mates in three that take a few hundred thousand.
+ * Boards use the same text format as {@link Position}.
+ */
+public enum Puzzle {
+    // Morphy: 1.Ra6
+    MORPHY_MATE_IN_2(ChessGame.TeamColor.WHITE, """
+            |k|b|K| | | | | |
+            |p|p| | | | | | |
+            | |P| | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            |R| | | | | | | |
+            """),
+    // a full board: 1.Nf6+ gxf6 2.Bxf7#
+    FULL_BOARD_MATE_IN_2(ChessGame.TeamColor.WHITE, """
+            |r| | |q|k|b| |r|
+            |p|p| | |n|p|p|p|
+            | | | |p| | | | |
+            | | |p|N|N| |B| |
+            | | |B|n|P| | | |
+            | | | |P| | | | |
+            |P|P|P| | |P|P|P|
+            |R| | |b|K| | |R|
+            """),
+    // two rooks: 1.Ra6+ 2.Rb7+ 3.Ra8#
+    LADDER_MATE_IN_3(ChessGame.TeamColor.WHITE, """
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | |k| |
+            | |R| | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            |R| | | | | | |K|
+            """),
+    // rook and bishop against an open king: 1.Ra6
+    ROOK_AND_BISHOP_MATE_IN_3(ChessGame.TeamColor.WHITE, """
+            |r| | | | | |r|k|
+            | | | | | |p| |p|
+            | | | | | |R| | |
+            | | | | |B| | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | |P|
+            | | | | | | | |K|
+            """),
+    // black hunts the king that came out to d4: 1...Bc5+
+    KING_HUNT_MATE_IN_3(ChessGame.TeamColor.BLACK, """
+            |r| |b| |k|b| |r|
+            |p|p|p|p| |p|p|p|
+            | | | | | |q| | |
+            | | | | |n| | | |
+            | | | |K|P| | | |
+            | | |N| | | |P|N|
+            |P|P|P| | | | |P|
+            |R| |B|Q| |B| |R|
+            """);
+
+    private final ChessGame.TeamColor teamTurn;
+    private final String boardText;
+
+    Puzzle(ChessGame.TeamColor teamTurn, String boardText) {
+        this.teamTurn = teamTurn;
+        this.boardText = boardText;
+    }
+
+    public ChessGame newGame() {
+        ChessGame game = new ChessGame();
+        game.setBoard(Position.parseBoard(boardText));
+        game.setTeamTurn(teamTurn);
+        return game;
+    }
+}
@@ -0,0 +1,443 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import server.Server;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.LoadGameMessage;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds the most requests per second the server sustains in each thread mode. For each
+ * mode it starts the server in this JVM, registers users and creates games, then runs a
+ * closed loop at each client count: every client sends a request, waits for the answer
+ * and sends the next.
+ * <p>
+ * Most clients are in the lobby and use REST: 70% list games, 20% fetch a game's PGN and
+ * 10% log in, which checks a BCrypt hash and writes an auth token. The wsShare of the
+ * clients are players instead. Each has a game of its own, joined by two users, and a
+ * WebSocket per side. A player's request is a MAKE_MOVE by the side to move (the knights
+ * go out and back, so the game never ends), or one time in ten a CONNECT by that side; it
+ * is answered when the side's LOAD_GAME arrives.
+ * <p>
+ * A client count is sustainable when under 1% of requests fail and the 99th percentile
+ * latency is within the budget; the best throughput among sustainable counts is the
+ * mode's maximum. The server needs the MySQL database from its db.properties. The load
+ * generator shares the machine with the server, equally in both modes. Give url= to
+ * drive a server that is already running instead; modes is then ignored.
+ * <p>
+ * Usage: java -cp benchmark/target/benchmarks.jar benchmark.ServerLoadTest
+ * [modes=platform,virtual] [clients=16,64,256,1024] [wsShare=0.25] [seconds=10] [warmup=3]
+ * [p99Millis=500] [quiet=true] [url=http://host:port]
+ */
+public class ServerLoadTest {
+    private static final Gson GSON = new Gson();
+    private static final int USERS = 100;
+    private static final int GAMES = 20;
+    private static final String PASSWORD = "load-test-password";
+
+    private static final Duration REPLY_TIMEOUT = Duration.ofSeconds(10);
+
+    private record Level(int clients, double requestsPerSecond, double errorRate, double p50Millis, double p99Millis,
+                         double playerP99Millis) {
+        boolean sustainable(double p99BudgetMillis) {
+            return errorRate < 0.01 && p99Millis <= p99BudgetMillis;
+        }
+    }
+
+    private final HttpClient http;
+    private final PrintStream report;
+    private final double p99BudgetMillis;
+    private final double wsShare;
+    private String baseUrl;
+    private final List<String> tokens = new ArrayList<>();
+    private final List<Integer> gameIDs = new ArrayList<>();
+
+    private ServerLoadTest(ExecutorService clientThreads, PrintStream report, double p99BudgetMillis, double wsShare) {
+        this.http = HttpClient.newBuilder().executor(clientThreads).connectTimeout(Duration.ofSeconds(5)).build();
+        this.report = report;
+        this.p99BudgetMillis = p99BudgetMillis;
+        this.wsShare = wsShare;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Server.ThreadMode> modes = new ArrayList<>();
+        for (String mode : option(args, "modes", "platform,virtual").split(",")) {
+            modes.add(Server.ThreadMode.valueOf(mode.trim().toUpperCase()));
+        }
+        int[] clientCounts = Arrays.stream(option(args, "clients", "16,64,256,1024").split(","))
+                .mapToInt(count -> Integer.parseInt(count.trim())).toArray();
+        int seconds = Integer.parseInt(option(args, "seconds", "10"));
+        int warmup = Integer.parseInt(option(args, "warmup", "3"));
+        double p99Budget = Double.parseDouble(option(args, "p99Millis", "500"));
+        double wsShare = Double.parseDouble(option(args, "wsShare", "0.25"));
+        String url = option(args, "url", null);
+
+        // the server logs every request; that is not what is being measured
+        PrintStream report = System.out;
+        if (Boolean.parseBoolean(option(args, "quiet", "true"))) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        List<String> summary = new ArrayList<>();
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            ServerLoadTest test = new ServerLoadTest(clientThreads, report, p99Budget, wsShare);
+            if (url != null) {
+                test.baseUrl = url;
+                summary.add(summary(url, test.runLevels(url, clientCounts, seconds, warmup, clientThreads)));
+            }
+            for (Server.ThreadMode mode : url == null ? modes : List.<Server.ThreadMode>of()) {
+                summary.add(summary(mode.name(), test.run(mode, clientCounts, seconds, warmup, clientThreads)));
+            }
+        }
+        report.println();
+        summary.forEach(report::println);
+    }
+
+    private static String summary(String name, Level best) {
+        return String.format("%-8s max sustainable: %s", name, best == null ? "none within budget"
+                : String.format("%.0f req/s at %d clients", best.requestsPerSecond(), best.clients()));
+    }
+
+    private Level run(Server.ThreadMode mode, int[] clientCounts, int seconds, int warmup,
+                      ExecutorService clientThreads) throws Exception {
+        Server server = new Server(mode);
+        int port = server.run(0);
+        baseUrl = "http://localhost:" + port;
+        try {
+            return runLevels(mode + " threads", clientCounts, seconds, warmup, clientThreads);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private Level runLevels(String name, int[] clientCounts, int seconds, int warmup,
+                            ExecutorService clientThreads) throws Exception {
+        setUp();
+        report.printf("%n%s, p99 budget %.0f ms, %.0f%% of clients playing over WebSockets%n",
+                name, p99BudgetMillis, wsShare * 100);
+        report.printf("%8s %12s %8s %10s %10s %14s%n", "clients", "req/s", "errors", "p50 ms", "p99 ms", "player p99 ms");
+        Level best = null;
+        for (int clients : clientCounts) {
+            Level level = measure(clients, seconds, warmup, clientThreads);
+            report.printf("%8d %12.0f %7.2f%% %10.1f %10.1f %14.1f%s%n", level.clients(), level.requestsPerSecond(),
+                    level.errorRate() * 100, level.p50Millis(), level.p99Millis(), level.playerP99Millis(),
+                    level.sustainable(p99BudgetMillis) ? "" : "  (over budget)");
+            if (level.sustainable(p99BudgetMillis) && (best == null || level.requestsPerSecond() > best.requestsPerSecond())) {
+                best = level;
+            }
+        }
+        return best;
+    }
+
+    private void setUp() throws Exception {
+        send(HttpRequest.newBuilder(URI.create(baseUrl + "/db")).DELETE());
+        tokens.clear();
+        gameIDs.clear();
+        for (int i = 0; i < USERS; i++) {
+            JsonObject user = new JsonObject();
+            user.addProperty("username", "load" + i);
+            user.addProperty("password", PASSWORD);
+            user.addProperty("email", "load" + i + "@example.com");
+            String body = send(post("/user", user.toString()));
+            tokens.add(GSON.fromJson(body, JsonObject.class).get("authToken").getAsString());
+        }
+        for (int i = 0; i < GAMES; i++) {
+            String body = send(post("/game", "{\"gameName\":\"load" + i + "\"}").header("Authorization", tokens.get(0)));
+            gameIDs.add(GSON.fromJson(body, JsonObject.class).get("gameID").getAsInt());
+        }
+    }
+
+    private Level measure(int clients, int seconds, int warmup, ExecutorService clientThreads) throws Exception {
+        // players set up their games and sockets before the clock starts
+        List<Player> players = new ArrayList<>();
+        try {
+            for (int p = 0; p < Math.round(clients * wsShare); p++) {
+                players.add(new Player(tokens.get((2 * p) % tokens.size()), tokens.get((2 * p + 1) % tokens.size())));
+            }
+            return measure(clients, players, seconds, warmup, clientThreads);
+        } finally {
+            for (Player player : players) {
+                player.close();
+            }
+        }
+    }
+
+    private Level measure(int clients, List<Player> players, int seconds, int warmup,
+                          ExecutorService clientThreads) throws Exception {
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> latencies = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            Player player = c < players.size() ? players.get(c) : null;
+            latencies.add(clientThreads.submit(() -> {
+                long[] recorded = new long[256];
+                int count = 0;
+                for (long sent = System.nanoTime(); sent < end; sent = System.nanoTime()) {
+                    boolean ok = player != null ? player.request() : request(client);
+                    if (sent < measureFrom) {
+                        continue;
+                    }
+                    if (!ok) {
+                        errors.incrementAndGet();
+                        continue;
+                    }
+                    if (count == recorded.length) {
+                        recorded = Arrays.copyOf(recorded, count * 2);
+                    }
+                    recorded[count++] = System.nanoTime() - sent;
+                }
+                return Arrays.copyOf(recorded, count);
+            }));
+        }
+        long[] all = new long[0];
+        long[] playerLatencies = new long[0];
+        for (int c = 0; c < clients; c++) {
+            long[] recorded = latencies.get(c).get();
+            all = append(all, recorded);
+            if (c < players.size()) {
+                playerLatencies = append(playerLatencies, recorded);
+            }
+        }
+        Arrays.sort(all);
+        Arrays.sort(playerLatencies);
+        long failed = errors.get();
+        double errorRate = all.length + failed == 0 ? 1 : (double) failed / (all.length + failed);
+        return new Level(clients, all.length / (double) seconds, errorRate, percentile(all, 0.50), percentile(all, 0.99),
+                percentile(playerLatencies, 0.99));
+    }
+
+    private static long[] append(long[] to, long[] more) {
+        long[] joined = Arrays.copyOf(to, to.length + more.length);
+        System.arraycopy(more, 0, joined, to.length, more.length);
+        return joined;
+    }
+
+    // one request of the mix; true if it succeeded
+    private boolean request(int client) {
+        String token = tokens.get(client % tokens.size());
+        int roll = ThreadLocalRandom.current().nextInt(10);
+        HttpRequest.Builder request;
+        if (roll < 7) {
+            request = HttpRequest.newBuilder(URI.create(baseUrl + "/game")).header("Authorization", token);
+        } else if (roll < 9) {
+            int gameID = gameIDs.get(ThreadLocalRandom.current().nextInt(gameIDs.size()));
+            request = HttpRequest.newBuilder(URI.create(baseUrl + "/game/" + gameID + "/pgn")).header("Authorization", token);
+        } else {
+            int user = client % USERS;
+            request = post("/session", "{\"username\":\"load" + user + "\",\"password\":\"" + PASSWORD + "\"}");
+        }
+        try {
+            HttpResponse<Void> response = http.send(request.timeout(Duration.ofSeconds(10)).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 200;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+
+    /*
+     * One game played over two sockets, one per side. Every LOAD_GAME a socket receives is
+     * counted: a move sends one to both sides and a CONNECT one to its sender, so a side
+     * knows how many it has to skip before the answer to its own request. A reply that does
+     * not come in time leaves the count unknown, so the player opens new sockets.
+     */
+    private final class Player implements AutoCloseable {
+        private final int gameID;
+        private final Side[] sides = new Side[2];
+        private ChessGame game;
+
+        Player(String whiteToken, String blackToken) throws Exception {
+            String body = send(post("/game", "{\"gameName\":\"player\"}").header("Authorization", whiteToken));
+            gameID = GSON.fromJson(body, JsonObject.class).get("gameID").getAsInt();
+            send(put("/game", "{\"playerColor\":\"WHITE\",\"gameID\":" + gameID + "}").header("Authorization", whiteToken));
+            send(put("/game", "{\"playerColor\":\"BLACK\",\"gameID\":" + gameID + "}").header("Authorization", blackToken));
+            sides[0] = new Side(whiteToken);
+            sides[1] = new Side(blackToken);
+            connect();
+        }
+
+        // one request of a player; true if it was answered with the game
+        boolean request() {
+            int mover = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 0 : 1;
+            Side side = sides[mover];
+            try {
+                boolean move = ThreadLocalRandom.current().nextInt(10) != 0;
+                UserGameCommand command = move ? new MakeMoveCommand(side.token, gameID, knightMove())
+                        : new UserGameCommand(UserGameCommand.CommandType.CONNECT, side.token, gameID);
+                ChessGame loaded = side.send(command);
+                if (loaded == null) {
+                    return false;
+                }
+                if (move) {
+                    sides[1 - mover].pendingLoads++;
+                }
+                game = loaded;
+                return true;
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                reopen();
+                return false;
+            }
+        }
+
+        // the knights go out and back: Nf3 Nf6 Ng1 Ng8
+        private ChessMove knightMove() {
+            boolean white = game.getTeamTurn() == ChessGame.TeamColor.WHITE;
+            ChessPosition home = new ChessPosition(white ? 1 : 8, 7);
+            ChessPosition out = new ChessPosition(white ? 3 : 6, 6);
+            return game.getBoard().getPiece(home) != null ? new ChessMove(home, out, null) : new ChessMove(out, home, null);
+        }
+
+        private void connect() throws Exception {
+            for (Side side : sides) {
+                ChessGame loaded = side.send(new UserGameCommand(UserGameCommand.CommandType.CONNECT, side.token, gameID));
+                if (loaded == null) {
+                    throw new IllegalStateException("CONNECT to game " + gameID + " was refused");
+                }
+                game = loaded;
+            }
+        }
+
+        private void reopen() {
+            try {
+                for (int i = 0; i < sides.length; i++) {
+                    sides[i].close();
+                    sides[i] = new Side(sides[i].token);
+                }
+                connect();
+            } catch (Exception e) {
+                // the next request tries again
+            }
+        }
+
+        @Override
+        public void close() {
+            for (Side side : sides) {
+                side.close();
+            }
+        }
+    }
+
+    // one side's socket; messages are queued whole as they arrive
+    private final class Side implements WebSocket.Listener {
+        final String token;
+        private final LinkedBlockingQueue<String> messages = new LinkedBlockingQueue<>();
+        private final StringBuilder partial = new StringBuilder();
+        private final WebSocket socket;
+        // LOAD_GAMEs on their way that answer the other side's moves
+        int pendingLoads;
+
+        Side(String token) throws Exception {
+            this.token = token;
+            this.socket = http.newWebSocketBuilder().connectTimeout(REPLY_TIMEOUT)
+                    .buildAsync(URI.create(baseUrl.replaceFirst("^http", "ws") + "/ws"), this)
+                    .get(REPLY_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * @return the game from the LOAD_GAME that answers the command, or null for an ERROR
+         * @throws TimeoutException if no answer comes in time
+         */
+        ChessGame send(UserGameCommand command) throws Exception {
+            socket.sendText(GSON.toJson(command), true).get(REPLY_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            long deadline = System.nanoTime() + REPLY_TIMEOUT.toNanos();
+            while (true) {
+                String message = messages.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (message == null) {
+                    throw new TimeoutException("No reply to " + command.getCommandType() + " in game " + command.getGameID());
+                }
+                String type = GSON.fromJson(message, JsonObject.class).get("serverMessageType").getAsString();
+                if (type.equals("ERROR")) {
+                    return null;
+                }
+                if (type.equals("LOAD_GAME")) {
+                    if (pendingLoads == 0) {
+                        return GSON.fromJson(message, LoadGameMessage.class).getGame().game();
+                    }
+                    pendingLoads--;
+                }
+            }
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                messages.add(partial.toString());
+                partial.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        void close() {
+            socket.abort();
+        }
+    }
+
+    private HttpRequest.Builder put(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).PUT(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private HttpRequest.Builder post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private String send(HttpRequest.Builder request) throws Exception {
+        HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Set up request failed with " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static String option(String[] args, String name, String fallback) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+        return fallback;
+    }
+}
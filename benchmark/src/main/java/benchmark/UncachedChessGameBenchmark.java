@@ -0,0 +1,59 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessPosition;
+import chess.PositionCache;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ChessGameBenchmark queries with nothing cached, i.e. the cost of the first time a
+ * position is seen. In ChessGameBenchmark the same game is asked again and again, so
+ * isInCheckmate and isInStalemate compare the status key the game keeps and validMoves
+ * is answered by the PositionCache. Here the fork runs with the cache turned off and
+ * every call gets a fresh copy of the position, set up outside the measured time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-D" + PositionCache.SIZE_PROPERTY + "=0")
+public class UncachedChessGameBenchmark {
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = ChessPosition.fromSquare(square);
+        }
+    }
+
+    @Param
+    public Position position;
+
+    private ChessGame game;
+
+    @Setup(Level.Invocation)
+    public void setUpGame() {
+        game = position.newGame();
+    }
+
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessPosition square : SQUARES) {
+            blackhole.consume(game.validMoves(square));
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        return game.isInStalemate(game.getTeamTurn());
+    }
+}
@@ -5,6 +5,8 @@ public class Main {
     public static void main(String[] args) {
         Server server = new Server();
         server.run(8081);
+        // write games still in memory back to the database on ctrl-c or kill
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
     }
 }
 
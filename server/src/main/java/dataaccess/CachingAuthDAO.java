@@ -0,0 +1,171 @@
+package dataaccess;
+
+import model.auth.AuthData;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A read-through cache in front of another AuthDAO. Every REST request and WebSocket
+ * command looks up its auth token, so a token seen recently is answered from memory
+ * instead of the database.
+ * <p>
+ * Valid tokens are kept for the TTL, and tokens the backing DAO does not know are kept
+ * as misses for the shorter negative TTL, so a client retrying a bad token does not
+ * reach the database each time either. The cache holds at most maxEntries tokens and
+ * drops the least recently used first. removeAuthData and clear take effect at once
+ * here. A token removed from the database by some other route (another server, or SQL
+ * by hand) can still be answered from the cache until its TTL runs out.
+ */
+public class CachingAuthDAO implements AuthDAO {
+    public static final String TTL_PROPERTY = "chess.authCache.ttlMillis";
+    public static final String NEGATIVE_TTL_PROPERTY = "chess.authCache.negativeTtlMillis";
+    public static final String MAX_ENTRIES_PROPERTY = "chess.authCache.maxEntries";
+    public static final long DEFAULT_TTL_MILLIS = 30_000;
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 5_000;
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    /**
+     * A snapshot of the cache's counters
+     *
+     * @param hits         lookups answered with a cached token
+     * @param negativeHits lookups answered with a cached miss
+     * @param misses       lookups that went to the backing DAO
+     * @param evictions    entries dropped to stay within maxEntries
+     * @param size         entries cached now, expired ones included until they are touched
+     */
+    public record Stats(long hits, long negativeHits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long lookups = hits + negativeHits + misses;
+            return lookups == 0 ? 0 : (double) (hits + negativeHits) / lookups;
+        }
+    }
+
+    // user is null for a token the backing DAO did not know
+    private record Entry(AuthData user, long expiresAt) {
+    }
+
+    private final AuthDAO delegate;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> entries;
+    // bumped by every removal, so a lookup that raced one does not cache what it read
+    private long invalidations;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingAuthDAO(AuthDAO delegate, int maxEntries, long ttlMillis, long negativeTtlMillis) {
+        this(delegate, maxEntries, ttlMillis, negativeTtlMillis, System::nanoTime);
+    }
+
+    // the clock is replaceable for tests
+    CachingAuthDAO(AuthDAO delegate, int maxEntries, long ttlMillis, long negativeTtlMillis, LongSupplier clock) {
+        if (maxEntries <= 0 || ttlMillis < 0 || negativeTtlMillis < 0) {
+            throw new IllegalArgumentException("Invalid auth cache settings");
+        }
+        this.delegate = delegate;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+        this.clock = clock;
+        // access order, so the eldest entry is the least recently used
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * A cache configured from the chess.authCache.* system properties
+     */
+    public static CachingAuthDAO fromSystemProperties(AuthDAO delegate) {
+        return new CachingAuthDAO(delegate,
+                Integer.getInteger(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES),
+                Long.getLong(TTL_PROPERTY, DEFAULT_TTL_MILLIS),
+                Long.getLong(NEGATIVE_TTL_PROPERTY, DEFAULT_NEGATIVE_TTL_MILLIS));
+    }
+
+    public AuthData getUser(String token) throws DataAccessException {
+        if (token == null) {
+            return delegate.getUser(null);
+        }
+        long generation;
+        synchronized (this) {
+            Entry entry = entries.get(token);
+            if (entry != null && clock.getAsLong() - entry.expiresAt() < 0) {
+                (entry.user() != null ? hits : negativeHits).increment();
+                return entry.user();
+            }
+            generation = invalidations;
+        }
+        misses.increment();
+        // the database call is made outside the lock
+        AuthData user = delegate.getUser(token);
+        synchronized (this) {
+            if (generation == invalidations) {
+                put(token, user);
+            }
+        }
+        return user;
+    }
+
+    public void addAuthData(AuthData authData) throws DataAccessException {
+        delegate.addAuthData(authData);
+        synchronized (this) {
+            // a lookup in flight may have read the token as unknown
+            invalidations++;
+            put(authData.authToken(), authData);
+        }
+    }
+
+    public boolean removeAuthData(String token) throws DataAccessException {
+        try {
+            return delegate.removeAuthData(token);
+        } finally {
+            synchronized (this) {
+                invalidations++;
+                if (token != null) {
+                    // a logged out token is a bad token from now on
+                    put(token, null);
+                }
+            }
+        }
+    }
+
+    public void clear() throws DataAccessException {
+        try {
+            delegate.clear();
+        } finally {
+            synchronized (this) {
+                invalidations++;
+                entries.clear();
+            }
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), negativeHits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    // callers hold the lock
+    private void put(String token, AuthData user) {
+        long ttl = user != null ? ttlNanos : negativeTtlNanos;
+        if (ttl == 0) {
+            entries.remove(token);
+            return;
+        }
+        entries.put(token, new Entry(user, clock.getAsLong() + ttl));
+    }
+}
@@ -0,0 +1,267 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of database connections, so a DAO call reuses an open connection
+ * instead of paying for a new TCP connection and MySQL handshake.
+ * <p>
+ * borrow() hands out a connection whose close() puts it back in the pool, so callers
+ * keep using try-with-resources exactly as with an unpooled connection. At most maxSize
+ * connections are open at once; a borrower waits up to maxWait for one to come back.
+ * A connection that has sat idle longer than validateAfter is checked with isValid
+ * before it is handed out, and a background thread closes connections idle longer
+ * than idleTimeout. A connection goes back with auto-commit on and nothing pending.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Opens a new physical connection
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * A snapshot of the pool's counters
+     *
+     * @param active        connections borrowed right now
+     * @param idle          open connections waiting in the pool
+     * @param maxSize       the most connections open at once
+     * @param borrows       connections handed out since the pool started
+     * @param created       physical connections opened
+     * @param timeouts      borrows that gave up waiting
+     * @param totalWaitNanos time borrowers spent waiting for a free slot, timeouts included
+     * @param maxWaitNanos  the longest a single borrower waited
+     */
+    public record Stats(int active, int idle, int maxSize, long borrows, long created, long timeouts,
+                        long totalWaitNanos, long maxWaitNanos) {
+        public double averageWaitMillis() {
+            long waits = borrows + timeouts;
+            return waits == 0 ? 0 : totalWaitNanos / 1e6 / waits;
+        }
+    }
+
+    private record Idle(Connection connection, long since) {
+    }
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long maxWaitNanos;
+    private final long validateAfterNanos;
+    private final long idleTimeoutNanos;
+    private final Semaphore slots;
+    // most recently returned first, so busy periods keep reusing the same few connections
+    private final ConcurrentLinkedDeque<Idle> idle = new ConcurrentLinkedDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalWait = new AtomicLong();
+    private final AtomicLong maxWait = new AtomicLong();
+
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long maxWaitMillis,
+                          long validateAfterMillis, long idleTimeoutMillis) {
+        if (maxSize <= 0 || maxWaitMillis < 0 || validateAfterMillis < 0 || idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Invalid pool settings");
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.validateAfterNanos = TimeUnit.MILLISECONDS.toNanos(validateAfterMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.slots = new Semaphore(maxSize, true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes a connection from the pool, opening one if none is idle
+     *
+     * @return a connection to close when done, which returns it to the pool
+     * @throws DataAccessException if none is free within the max wait, or one cannot be opened
+     */
+    public Connection borrow() throws DataAccessException {
+        if (closed) {
+            throw new DataAccessException("Connection pool is closed.");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = slots.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted waiting for a database connection.");
+        }
+        long waited = System.nanoTime() - start;
+        totalWait.addAndGet(waited);
+        maxWait.accumulateAndGet(waited, Math::max);
+        if (!acquired) {
+            timeouts.incrementAndGet();
+            throw new DataAccessException("Timed out waiting for a database connection ("
+                    + maxSize + " in use).");
+        }
+
+        try {
+            Connection physical = takeIdle();
+            if (physical == null) {
+                physical = factory.open();
+                created.incrementAndGet();
+            }
+            active.incrementAndGet();
+            borrows.incrementAndGet();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            slots.release();
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(active.get(), idle.size(), maxSize, borrows.get(), created.get(), timeouts.get(),
+                totalWait.get(), maxWait.get());
+    }
+
+    /**
+     * Closes the idle connections; borrowed ones are closed when they come back
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        Idle entry;
+        while ((entry = idle.pollFirst()) != null) {
+            closeQuietly(entry.connection());
+        }
+    }
+
+    // an idle connection that is still usable, or null if there is none
+    private Connection takeIdle() {
+        Idle entry;
+        while ((entry = idle.pollFirst()) != null) {
+            if (System.nanoTime() - entry.since() < validateAfterNanos || isValid(entry.connection())) {
+                return entry.connection();
+            }
+            closeQuietly(entry.connection());
+        }
+        return null;
+    }
+
+    private void giveBack(Connection physical) {
+        active.decrementAndGet();
+        try {
+            if (closed || physical.isClosed()) {
+                closeQuietly(physical);
+                return;
+            }
+            if (!physical.getAutoCommit()) {
+                // a transaction left open by the borrower is not carried to the next one
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            idle.offerFirst(new Idle(physical, System.nanoTime()));
+        } catch (SQLException e) {
+            closeQuietly(physical);
+        } finally {
+            slots.release();
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        List<Idle> expired = new ArrayList<>();
+        // the oldest are at the end
+        Iterator<Idle> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext()) {
+            Idle entry = oldestFirst.next();
+            if (now - entry.since() < idleTimeoutNanos) {
+                break;
+            }
+            expired.add(entry);
+        }
+        for (Idle entry : expired) {
+            // a borrower may have taken it meanwhile
+            if (idle.removeLastOccurrence(entry)) {
+                closeQuietly(entry.connection());
+            }
+        }
+    }
+
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // it is being thrown away anyway
+        }
+    }
+
+    // the borrower's view of a pooled connection: close() returns it, and it is unusable afterwards
+    private Connection wrap(Connection physical) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean returned;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!returned) {
+                            returned = true;
+                            giveBack(physical);
+                        }
+                        return null;
+                    case "isClosed":
+                        return returned || physical.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Pooled" + physical;
+                    default:
+                        if (returned) {
+                            throw new SQLException("Connection is closed.");
+                        }
+                        try {
+                            return method.invoke(physical, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+}
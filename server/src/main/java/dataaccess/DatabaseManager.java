@@ -10,6 +10,12 @@ public class DatabaseManager {
     private static final String PASSWORD;
     private static final String CONNECTION_URL;
 
+    // connection pool settings, each optional in db.properties
+    private static final int POOL_MAX_SIZE;
+    private static final long POOL_MAX_WAIT_MILLIS;
+    private static final long POOL_VALIDATE_AFTER_MILLIS;
+    private static final long POOL_IDLE_TIMEOUT_MILLIS;
+
     /*
      * Big Picture: preparing program to talk to database by loading config details. kinda like setting up a GPS before a road trip.
      */
@@ -33,6 +39,11 @@ public class DatabaseManager {
                 var host = props.getProperty("db.host"); // string
                 var port = Integer.parseInt(props.getProperty("db.port")); // int
                 CONNECTION_URL = String.format("jdbc:mysql://%s:%d", host, port);
+
+                POOL_MAX_SIZE = Integer.parseInt(props.getProperty("db.pool.maxSize", "10"));
+                POOL_MAX_WAIT_MILLIS = Long.parseLong(props.getProperty("db.pool.maxWaitMillis", "5000"));
+                POOL_VALIDATE_AFTER_MILLIS = Long.parseLong(props.getProperty("db.pool.validateAfterMillis", "500"));
+                POOL_IDLE_TIMEOUT_MILLIS = Long.parseLong(props.getProperty("db.pool.idleTimeoutMillis", "60000"));
             }
         } catch (Exception ex) {
             throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
@@ -43,9 +54,9 @@ public class DatabaseManager {
      * Creates the database if it does not already exist.
      */
     public static void createDatabase() throws DataAccessException {
-        try {
-            var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+        var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
+        // a plain connection, since the pool's connections select a database that may not exist yet
+        try (var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD)) {
             try (var preparedStatement = conn.prepareStatement(statement)) {
                 preparedStatement.executeUpdate();
             }
@@ -63,18 +74,34 @@ public class DatabaseManager {
                 preparedStatement2.executeUpdate();
             }
 
-            // creates the game table.
+            // creates the game table. game_data holds a GameCodec-encoded game.
             var createGamesTable = "CREATE TABLE IF NOT EXISTS games (" +
                     "game_id INT AUTO_INCREMENT PRIMARY KEY, " +
                     "game_name VARCHAR(255) NOT NULL, " +
                     "white_username VARCHAR(255), " +
                     "black_username VARCHAR(255), " +
-                    "game_data TEXT)";
+                    "game_data BLOB)";
 
             try (var preparedStatement3 = conn.prepareStatement(createGamesTable)) {
                 preparedStatement3.executeUpdate();
             }
 
+            // older databases stored game_data as JSON text. the column changes type in place, keeping
+            // the JSON bytes, and SqlGameDAO re-encodes each of those rows the first time it reads it.
+            var gameDataType = "SELECT DATA_TYPE FROM information_schema.COLUMNS " +
+                    "WHERE TABLE_SCHEMA = ? AND TABLE_NAME = 'games' AND COLUMN_NAME = 'game_data'";
+            try (var preparedStatement5 = conn.prepareStatement(gameDataType)) {
+                preparedStatement5.setString(1, DATABASE_NAME);
+                try (var rs = preparedStatement5.executeQuery()) {
+                    if (rs.next() && rs.getString(1).equalsIgnoreCase("text")) {
+                        try (var alter = conn.prepareStatement("ALTER TABLE games MODIFY game_data BLOB")) {
+                            alter.executeUpdate();
+                        }
+                        System.out.println("INFO/ Converted games.game_data from TEXT to BLOB");
+                    }
+                }
+            }
+
             // creates the auth table
             var createAuthTable = "CREATE TABLE IF NOT EXISTS auth_tokens (" +
                     "auth_token VARCHAR(255) PRIMARY KEY, " +
@@ -89,25 +116,34 @@ public class DatabaseManager {
         }
     }
 
+    // the pool is opened by the first DAO call
+    private static final class PoolHolder {
+        static final ConnectionPool POOL = new ConnectionPool(() -> {
+            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+            conn.setCatalog(DATABASE_NAME);
+            return conn;
+        }, POOL_MAX_SIZE, POOL_MAX_WAIT_MILLIS, POOL_VALIDATE_AFTER_MILLIS, POOL_IDLE_TIMEOUT_MILLIS);
+    }
+
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
-     * The easiest way to do that is with a try-with-resource block.
+     * Hands out a pooled connection to the database named in db.properties. Connections
+     * should be short-lived, and you must close the connection when you are done with it,
+     * which returns it to the pool. The easiest way to do that is with a try-with-resource block.
      * <br/>
      * <code>
-     * try (var conn = DbInfo.getConnection(databaseName)) {
+     * try (var conn = DatabaseManager.getConnection()) {
      * // execute SQL statements.
      * }
      * </code>
      */
     static Connection getConnection() throws DataAccessException {
-        try {
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            conn.setCatalog(DATABASE_NAME);
-            return conn;
-        } catch (SQLException e) {
-            throw new DataAccessException(e.getMessage());
-        }
+        return PoolHolder.POOL.borrow();
+    }
+
+    /**
+     * @return the connection pool's current counters: active, idle, waits and timeouts
+     */
+    public static ConnectionPool.Stats poolStats() {
+        return PoolHolder.POOL.stats();
     }
 }
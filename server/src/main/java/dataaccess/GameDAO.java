@@ -3,6 +3,7 @@ package dataaccess;
 import chess.ChessGame;
 import model.game.GameData;
 import java.util.Collection;
+import java.util.Objects;
 
 public interface GameDAO {
     // basic crud operations
@@ -10,5 +11,36 @@ public interface GameDAO {
     GameData getGameByID(int gameID) throws DataAccessException;
     void updateGame(GameData gameData) throws DataAccessException;
     Collection<GameData> getAllGames() throws DataAccessException;
+    // writes several games at once; implementations may batch them into one round trip
+    default void updateGames(Collection<GameData> games) throws DataAccessException {
+        for (GameData game : games) {
+            updateGame(game);
+        }
+    }
+    // puts username in a player's seat if the seat still holds expected (null when empty), leaving the
+    // rest of the game alone; false if someone else holds it. Implementations shared between threads
+    // make the check and the change one step
+    default boolean replacePlayer(int gameID, ChessGame.TeamColor color, String expected, String username)
+            throws DataAccessException {
+        GameData game = getGameByID(gameID);
+        if (game == null) {
+            throw new DataAccessException("Game not found.");
+        }
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        if (!Objects.equals(white ? game.whiteUsername() : game.blackUsername(), expected)) {
+            return false;
+        }
+        updateGame(new GameData(gameID, white ? username : game.whiteUsername(),
+                white ? game.blackUsername() : username, game.gameName(), game.game()));
+        return true;
+    }
+    // stores the game's state, leaving its players alone
+    default void updateGameState(int gameID, ChessGame game) throws DataAccessException {
+        GameData stored = getGameByID(gameID);
+        if (stored == null) {
+            throw new DataAccessException("Game not found.");
+        }
+        updateGame(new GameData(gameID, stored.whiteUsername(), stored.blackUsername(), stored.gameName(), game));
+    }
     void clear() throws DataAccessException;
 }
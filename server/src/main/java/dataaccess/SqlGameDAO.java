@@ -1,19 +1,37 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.GameCodec;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 import model.game.GameData;
 
+import java.nio.charset.StandardCharsets;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Games are stored in games.game_data encoded with GameCodec. Rows written before the
+ * column held binary still contain the game as JSON; they are read with Gson and
+ * rewritten in binary the first time they are loaded. JSON that is not a game in one of
+ * the stored forms fails with a DataAccessException and the row is left alone.
+ */
 public class SqlGameDAO implements GameDAO {
 
+    // only for reading rows that still hold JSON
     private static final Gson GSON = new Gson();
 
     public int createGame(String authToken, String gameName) throws DataAccessException {
@@ -22,7 +40,7 @@ public class SqlGameDAO implements GameDAO {
         try (Connection connection = DatabaseManager.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, gameName);
-            stmt.setString(2, GSON.toJson(chessGame));
+            stmt.setBytes(2, GameCodec.encode(chessGame));
             stmt.executeUpdate();
             try (ResultSet rs = stmt.getGeneratedKeys()) {
                 if (rs.next()) {
@@ -41,20 +59,25 @@ public class SqlGameDAO implements GameDAO {
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, gameID);
+            GameData game;
+            byte[] stored;
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    String gameDataJson = rs.getString("game_data");
-                    ChessGame chessGame = gameDataJson != null ? GSON.fromJson(gameDataJson, ChessGame.class) : null;
-                    return new GameData(
-                            rs.getInt("game_id"),
-                            rs.getString("white_username"),
-                            rs.getString("black_username"),
-                            rs.getString("game_name"),
-                            chessGame
-                    );
+                if (!rs.next()) {
+                    return null; // Game not found
                 }
-                return null; // Game not found
+                stored = rs.getBytes("game_data");
+                game = new GameData(
+                        rs.getInt("game_id"),
+                        rs.getString("white_username"),
+                        rs.getString("black_username"),
+                        rs.getString("game_name"),
+                        decode(stored)
+                );
             }
+            if (stored != null && !GameCodec.isEncoded(stored)) {
+                migrate(conn, gameID, stored, game.game());
+            }
+            return game;
         } catch (SQLException e) {
             throw new DataAccessException("Error retrieving game: " + e.getMessage());
         }
@@ -62,15 +85,15 @@ public class SqlGameDAO implements GameDAO {
 
     public void updateGame(GameData gameData) throws DataAccessException {
 
-        String whiteUsername = resolveUsername(gameData.whiteUsername());
-        String blackUsername = resolveUsername(gameData.blackUsername());
-
         String sql = "UPDATE games SET white_username = ?, black_username = ?, game_data = ? WHERE game_id = ?";
         try (Connection connection = DatabaseManager.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
+            // on the connection already held, so an update never waits on the pool for a second one
+            String whiteUsername = resolveUsername(connection, gameData.whiteUsername());
+            String blackUsername = resolveUsername(connection, gameData.blackUsername());
             stmt.setString(1, whiteUsername);
             stmt.setString(2, blackUsername);
-            stmt.setString(3, gameData.game() != null ? GSON.toJson(gameData.game()) : null);
+            stmt.setBytes(3, gameData.game() != null ? GameCodec.encode(gameData.game()) : null);
             stmt.setInt(4, gameData.gameID());
             System.out.println("DEBUG/ Updating gameID=" + gameData.gameID() + ", whiteUsername=" + whiteUsername);
             int rowsUpdated = stmt.executeUpdate();
@@ -83,22 +106,61 @@ public class SqlGameDAO implements GameDAO {
         }
     }
 
+    // one statement batch in one transaction; games whose row is gone are skipped
+    @Override
+    public void updateGames(Collection<GameData> games) throws DataAccessException {
+        if (games.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE games SET white_username = ?, black_username = ?, game_data = ? WHERE game_id = ?";
+        try (Connection connection = DatabaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (GameData gameData : games) {
+                    stmt.setString(1, resolveUsername(connection, gameData.whiteUsername()));
+                    stmt.setString(2, resolveUsername(connection, gameData.blackUsername()));
+                    stmt.setBytes(3, gameData.game() != null ? GameCodec.encode(gameData.game()) : null);
+                    stmt.setInt(4, gameData.gameID());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to update games: " + e.getMessage());
+        }
+    }
+
     public Collection<GameData> getAllGames() throws DataAccessException {
         Collection<GameData> games = new ArrayList<>(); // Always initialize, never null
+        // JSON rows to re-encode once the result set is closed
+        Map<GameData, byte[]> legacyRows = new LinkedHashMap<>();
         String sql = "SELECT game_id, game_name, white_username, black_username, game_data FROM games";
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) {
-                String gameDataJson = rs.getString("game_data");
-                ChessGame chessGame = gameDataJson != null ? GSON.fromJson(gameDataJson, ChessGame.class) : null;
-                games.add(new GameData(
-                        rs.getInt("game_id"),
-                        rs.getString("white_username"),
-                        rs.getString("black_username"),
-                        rs.getString("game_name"),
-                        chessGame
-                ));
+        try (Connection conn = DatabaseManager.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    byte[] stored = rs.getBytes("game_data");
+                    GameData game = new GameData(
+                            rs.getInt("game_id"),
+                            rs.getString("white_username"),
+                            rs.getString("black_username"),
+                            rs.getString("game_name"),
+                            decode(stored)
+                    );
+                    games.add(game);
+                    if (stored != null && !GameCodec.isEncoded(stored)) {
+                        legacyRows.put(game, stored);
+                    }
+                }
+            }
+            for (Map.Entry<GameData, byte[]> row : legacyRows.entrySet()) {
+                migrate(conn, row.getKey().gameID(), row.getValue(), row.getKey().game());
             }
         } catch (SQLException e) {
             throw new DataAccessException("Error retrieving games: " + e.getMessage());
@@ -106,6 +168,60 @@ public class SqlGameDAO implements GameDAO {
         return games;
     }
 
+    private static ChessGame decode(byte[] stored) throws DataAccessException {
+        if (stored == null) {
+            return null;
+        }
+        try {
+            if (GameCodec.isEncoded(stored)) {
+                return GameCodec.decode(stored);
+            }
+            return decodeJson(JsonParser.parseString(new String(stored, StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException | JsonParseException e) {
+            throw new DataAccessException("Corrupt game data: " + e.getMessage());
+        }
+    }
+
+    /*
+     * Older rows hold Gson's JSON for ChessGame: first with the board as a ChessPiece[8][8]
+     * grid under board.board, later as bitboards under board.pieceBitboards. Anything else
+     * is refused rather than read as an empty game, since migrate would then overwrite it.
+     */
+    private static ChessGame decodeJson(JsonElement json) throws DataAccessException {
+        JsonObject game = json.isJsonObject() ? json.getAsJsonObject() : null;
+        JsonObject board = game != null && game.get("board") instanceof JsonObject b ? b : null;
+        boolean grid = board != null && board.get("board") instanceof JsonArray;
+        boolean bitboards = board != null && board.get("pieceBitboards") instanceof JsonArray;
+        if (!(grid || bitboards) || !(game.get("teamTurn") instanceof JsonPrimitive)) {
+            throw new DataAccessException("Unrecognised game data: " + abbreviate(json.toString()));
+        }
+        ChessGame chessGame = GSON.fromJson(game, ChessGame.class);
+        if (chessGame.getBoard().getKingSquare(ChessGame.TeamColor.WHITE) < 0
+                || chessGame.getBoard().getKingSquare(ChessGame.TeamColor.BLACK) < 0) {
+            throw new DataAccessException("Unrecognised game data, a king is missing: " + abbreviate(json.toString()));
+        }
+        if (grid) {
+            // the grid form kept no castling rights; allow those the pieces still permit
+            chessGame.setBoard(chessGame.getBoard());
+        }
+        return chessGame;
+    }
+
+    private static String abbreviate(String json) {
+        return json.length() <= 80 ? json : json.substring(0, 80) + "...";
+    }
+
+    // rewrites a JSON row in binary, unless the row was updated since it was read
+    private static void migrate(Connection conn, int gameID, byte[] json, ChessGame game) throws SQLException {
+        String sql = "UPDATE games SET game_data = ? WHERE game_id = ? AND game_data = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setBytes(1, GameCodec.encode(game));
+            stmt.setInt(2, gameID);
+            stmt.setBytes(3, json);
+            stmt.executeUpdate();
+        }
+    }
+
     public void clear() throws DataAccessException{
         String sql = "TRUNCATE TABLE games";
         try (Connection connection = DatabaseManager.getConnection();
@@ -116,7 +232,8 @@ public class SqlGameDAO implements GameDAO {
         }
     }
 
-    private String resolveUsername(String input) throws DataAccessException {
+    // looks auth tokens up on the caller's connection
+    private String resolveUsername(Connection conn, String input) throws SQLException {
         // If input is null or not a UUID, assume it's a username
         if (input == null) {
             return null;
@@ -129,8 +246,7 @@ public class SqlGameDAO implements GameDAO {
 
         // It's a UUID, look up the username in auth_tokens
         String sql = "SELECT username FROM auth_tokens WHERE auth_token = ?";
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, input);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -138,8 +254,6 @@ public class SqlGameDAO implements GameDAO {
                 }
                 return null; // Auth token not found
             }
-        } catch (SQLException e) {
-            throw new DataAccessException("Failed to resolve auth token: " + e.getMessage());
         }
     }
 }
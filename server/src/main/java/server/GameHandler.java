@@ -154,6 +154,76 @@ public class GameHandler {
         }
     }
 
+    public Object getHint(Request req, Response res) {
+        try {
+            String authToken = req.headers("Authorization");
+            if (authToken == null || authToken.isEmpty()) {
+                res.status(400);
+                return createErrorResponse("Error: bad request");
+            }
+
+            int gameID;
+            try {
+                gameID = Integer.parseInt(req.params(":gameID"));
+            } catch (NumberFormatException e) {
+                res.status(400);
+                return createErrorResponse("Error: bad request");
+            }
+
+            // opening book moves for the team to move, heaviest first
+            var moves = gameService.getBookMoves(authToken, gameID);
+            Map<String, Object> response = new HashMap<>();
+            response.put("moves", moves);
+            res.status(200);
+            return new Gson().toJson(response);
+        } catch (DataAccessException e) {
+            if (e.getMessage().equals("Invalid token.")) {
+                res.status(401);
+                return createErrorResponse("Error: unauthorized");
+            } else if (e.getMessage().contains("not found")) {
+                res.status(400);
+                return createErrorResponse("Error: game not found");
+            }
+            res.status(500);
+            return createErrorResponse("Error: " + e.getMessage());
+        }
+    }
+
+    public Object getPgn(Request req, Response res) {
+        try {
+            String authToken = req.headers("Authorization");
+            if (authToken == null || authToken.isEmpty()) {
+                res.status(400);
+                return createErrorResponse("Error: bad request");
+            }
+
+            int gameID;
+            try {
+                gameID = Integer.parseInt(req.params(":gameID"));
+            } catch (NumberFormatException e) {
+                res.status(400);
+                return createErrorResponse("Error: bad request");
+            }
+
+            // the game so far, for saving or loading into another program
+            String pgn = gameService.getPgn(authToken, gameID);
+            Map<String, Object> response = new HashMap<>();
+            response.put("pgn", pgn);
+            res.status(200);
+            return new Gson().toJson(response);
+        } catch (DataAccessException e) {
+            if (e.getMessage().equals("Invalid token.")) {
+                res.status(401);
+                return createErrorResponse("Error: unauthorized");
+            } else if (e.getMessage().contains("not found")) {
+                res.status(400);
+                return createErrorResponse("Error: game not found");
+            }
+            res.status(500);
+            return createErrorResponse("Error: " + e.getMessage());
+        }
+    }
+
     private String createErrorResponse(String error) {
         JsonObject jsonObject = new JsonObject();
         jsonObject.addProperty("message", error);
@@ -0,0 +1,198 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs WebSocket commands one game at a time. Each game has a mailbox: commands for
+ * that game run strictly in the order they arrived, one after another, so two moves
+ * for the same game can never interleave their read-modify-write. Different games'
+ * mailboxes run at the same time on separate workers.
+ * <p>
+ * A mailbox only holds a worker while it has commands, and is dropped when it runs
+ * out of them, so the server keeps mailboxes for busy games only. By default the worker
+ * is a virtual thread, so a command that blocks on the database or on a slow client
+ * parks cheaply instead of holding up Jetty's socket threads or other games.
+ */
+public class GameMailboxes implements AutoCloseable {
+
+    /**
+     * A command for a game; anything it throws is logged and the next command still runs
+     */
+    @FunctionalInterface
+    public interface Command {
+        void run() throws Exception;
+    }
+
+    /**
+     * A snapshot of one game's mailbox, counting from when it last had nothing to do
+     *
+     * @param queued            commands waiting or running now
+     * @param processed         commands finished
+     * @param failed            finished commands that threw
+     * @param averageLatencyMillis average time from arrival to finishing, waiting included
+     * @param maxLatencyMillis  the longest any command took from arrival to finishing
+     */
+    public record Stats(int gameID, int queued, long processed, long failed,
+                        double averageLatencyMillis, double maxLatencyMillis) {
+    }
+
+    private record Pending(Command command, long arrived) {
+    }
+
+    private static final class Mailbox {
+        final int gameID;
+        final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+        // true while a worker is draining this mailbox
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicInteger queued = new AtomicInteger();
+        final LongAdder processed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder totalLatency = new LongAdder();
+        final AtomicLong maxLatency = new AtomicLong();
+
+        Mailbox(int gameID) {
+            this.gameID = gameID;
+        }
+
+        void drain(ConcurrentHashMap<Integer, Mailbox> mailboxes) {
+            do {
+                Pending pending;
+                while ((pending = queue.poll()) != null) {
+                    runOne(pending);
+                }
+                scheduled.set(false);
+                // a command that arrived after the last poll but saw scheduled still true
+            } while (!queue.isEmpty() && scheduled.compareAndSet(false, true));
+            // atomic with submit's queueing, see submit; a later command gets a new mailbox
+            mailboxes.computeIfPresent(gameID, (id, mailbox) -> mailbox == this && isIdle() ? null : mailbox);
+        }
+
+        boolean isIdle() {
+            return !scheduled.get() && queue.isEmpty();
+        }
+
+        private void runOne(Pending pending) {
+            try {
+                pending.command().run();
+            } catch (Exception | Error e) {
+                failed.increment();
+                System.err.println("ERROR [GameMailboxes]: Command for game " + gameID + " failed: " + e.getMessage());
+                e.printStackTrace();
+            } finally {
+                long latency = System.nanoTime() - pending.arrived();
+                queued.decrementAndGet();
+                processed.increment();
+                totalLatency.add(latency);
+                maxLatency.accumulateAndGet(latency, Math::max);
+            }
+        }
+
+        Stats stats() {
+            long done = processed.sum();
+            return new Stats(gameID, queued.get(), done, failed.sum(),
+                    done == 0 ? 0 : totalLatency.sum() / 1e6 / done, maxLatency.get() / 1e6);
+        }
+    }
+
+    private final ConcurrentHashMap<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+
+    public GameMailboxes() {
+        this(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("game-", 0).factory()));
+    }
+
+    /**
+     * Mailboxes whose commands run on the given workers, e.g. a bounded pool of platform
+     * threads; close() shuts the workers down
+     */
+    public GameMailboxes(ExecutorService workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Queues a command behind the game's earlier commands
+     *
+     * @throws RejectedExecutionException after close()
+     */
+    public void submit(int gameID, Command command) {
+        Pending pending = new Pending(command, System.nanoTime());
+        // queued under the map's lock for the game, so neither a finishing drain nor clear()
+        // drops a mailbox between finding it and queueing on it; a removed mailbox takes no
+        // more commands
+        Mailbox mailbox = mailboxes.compute(gameID, (id, existing) -> {
+            Mailbox box = existing != null ? existing : new Mailbox(id);
+            box.queued.incrementAndGet();
+            box.queue.add(pending);
+            return box;
+        });
+        if (mailbox.scheduled.compareAndSet(false, true)) {
+            try {
+                workers.execute(() -> mailbox.drain(mailboxes));
+            } catch (RejectedExecutionException e) {
+                mailbox.scheduled.set(false);
+                mailbox.queue.clear();
+                mailbox.queued.set(0);
+                mailboxes.computeIfPresent(gameID, (id, box) -> box == mailbox && box.isIdle() ? null : box);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return the mailbox of every game with commands queued or running, busiest first
+     */
+    public List<Stats> stats() {
+        List<Stats> stats = new ArrayList<>(mailboxes.size());
+        for (Mailbox mailbox : mailboxes.values()) {
+            stats.add(mailbox.stats());
+        }
+        stats.sort((a, b) -> Integer.compare(b.queued(), a.queued()));
+        return stats;
+    }
+
+    /**
+     * @return the game's mailbox, or null if it has no commands queued or running
+     */
+    public Stats stats(int gameID) {
+        Mailbox mailbox = mailboxes.get(gameID);
+        return mailbox == null ? null : mailbox.stats();
+    }
+
+    /**
+     * Forgets the mailboxes with nothing queued or running, e.g. when the database is cleared
+     */
+    public void clear() {
+        for (Integer gameID : mailboxes.keySet()) {
+            // atomic with submit's queueing, see submit
+            mailboxes.computeIfPresent(gameID, (id, mailbox) -> mailbox.isIdle() ? null : mailbox);
+        }
+    }
+
+    /**
+     * Takes no new commands and waits for the queued ones to finish
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.out.println("INFO/ Game commands still running after 10 seconds, stopping them");
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package server;
+
+import chess.ChessGame;
+import dataaccess.DataAccessException;
+import dataaccess.GameDAO;
+import model.game.GameData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the GameData of every game in play in memory. A game is loaded from the wrapped
+ * GameDAO the first time it is asked for; after that reads never touch the database, and
+ * updateGame only records the game as dirty. A background thread writes the dirty games
+ * back in one batch every flush interval, so a move costs a map lookup instead of
+ * several database round trips.
+ * <p>
+ * The registry's own ChessGame is never handed out: getGameByID returns a copy and
+ * updateGame stores a copy, each taken under that game's lock. A REST reader on a Jetty
+ * thread therefore never shares a board, or its move-generation scratch space, with a
+ * move being made on a mailbox worker, and the flush never sees a board halfway through
+ * a move. A failed flush keeps its games dirty and tries again on the next interval.
+ * <p>
+ * replacePlayer and updateGameState change one part of a game under its lock, so a
+ * player joining over REST and a move made on a mailbox worker cannot overwrite each
+ * other with stale copies.
+ * <p>
+ * After each flush, games that are written and are either over or unused for the idle
+ * timeout are dropped from memory; the next read loads them again.
+ */
+public class LiveGameRegistry implements GameDAO, AutoCloseable {
+    // milliseconds between background flushes
+    public static final String FLUSH_INTERVAL_PROPERTY = "chess.flushIntervalMillis";
+    // FLUSH or DISCARD, see ShutdownMode
+    public static final String SHUTDOWN_MODE_PROPERTY = "chess.shutdownMode";
+    // milliseconds a written game may go unused before it is dropped from memory
+    public static final String IDLE_TIMEOUT_PROPERTY = "chess.liveGameIdleMillis";
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 500;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 600_000;
+
+    /**
+     * What close() does with games that have not been written yet
+     */
+    public enum ShutdownMode {
+        // write them before returning, so a clean shutdown loses nothing
+        FLUSH,
+        // drop them, e.g. for tests or a server whose database is already gone
+        DISCARD
+    }
+
+    // one game in memory; its lock guards the fields and the game inside data
+    private static final class Entry {
+        GameData data;
+        long lastUsed;
+        // dropped from the registry; whoever holds it must look the game up again
+        boolean evicted;
+
+        Entry(GameData data) {
+            this.data = data;
+            this.lastUsed = System.nanoTime();
+        }
+    }
+
+    private final GameDAO delegate;
+    private final ShutdownMode shutdownMode;
+    private final long idleTimeoutNanos;
+    private final ConcurrentHashMap<Integer, Entry> live = new ConcurrentHashMap<>();
+    // the copy to write for each dirty game
+    private final ConcurrentHashMap<Integer, GameData> dirty = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final Object flushLock = new Object();
+    private volatile boolean closed;
+
+    public LiveGameRegistry(GameDAO delegate, long flushIntervalMillis, ShutdownMode shutdownMode) {
+        this(delegate, flushIntervalMillis, shutdownMode, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    public LiveGameRegistry(GameDAO delegate, long flushIntervalMillis, ShutdownMode shutdownMode,
+                            long idleTimeoutMillis) {
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be positive: " + flushIntervalMillis);
+        }
+        if (idleTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Idle timeout must not be negative: " + idleTimeoutMillis);
+        }
+        this.delegate = delegate;
+        this.shutdownMode = shutdownMode;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushAndEvict, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A registry configured from the chess.flushIntervalMillis, chess.shutdownMode and
+     * chess.liveGameIdleMillis system properties
+     */
+    public static LiveGameRegistry fromSystemProperties(GameDAO delegate) {
+        long interval = Long.getLong(FLUSH_INTERVAL_PROPERTY, DEFAULT_FLUSH_INTERVAL_MILLIS);
+        String mode = System.getProperty(SHUTDOWN_MODE_PROPERTY, ShutdownMode.FLUSH.name());
+        long idle = Long.getLong(IDLE_TIMEOUT_PROPERTY, DEFAULT_IDLE_TIMEOUT_MILLIS);
+        return new LiveGameRegistry(delegate, interval, ShutdownMode.valueOf(mode.toUpperCase()), idle);
+    }
+
+    public int createGame(String authToken, String gameName) throws DataAccessException {
+        return delegate.createGame(authToken, gameName);
+    }
+
+    /**
+     * @return a copy of the game that the caller may change freely; changes only reach
+     * the registry through updateGame
+     */
+    public GameData getGameByID(int gameID) throws DataAccessException {
+        while (true) {
+            Entry entry = entry(gameID);
+            if (entry == null) {
+                return null;
+            }
+            synchronized (entry) {
+                if (!entry.evicted) {
+                    entry.lastUsed = System.nanoTime();
+                    return snapshot(entry.data);
+                }
+            }
+        }
+    }
+
+    public void updateGame(GameData gameData) throws DataAccessException {
+        checkOpen();
+        GameData copy = snapshot(gameData);
+        while (true) {
+            Entry entry = entry(gameData.gameID());
+            if (entry == null) {
+                throw new DataAccessException("Game update failed. Game ID: " + gameData.gameID() + " not found.");
+            }
+            synchronized (entry) {
+                if (!entry.evicted) {
+                    store(entry, copy);
+                    return;
+                }
+            }
+        }
+    }
+
+    public boolean replacePlayer(int gameID, ChessGame.TeamColor color, String expected, String username)
+            throws DataAccessException {
+        checkOpen();
+        while (true) {
+            Entry entry = entry(gameID);
+            if (entry == null) {
+                throw new DataAccessException("Game update failed. Game ID: " + gameID + " not found.");
+            }
+            synchronized (entry) {
+                if (!entry.evicted) {
+                    GameData data = entry.data;
+                    boolean white = color == ChessGame.TeamColor.WHITE;
+                    if (!Objects.equals(white ? data.whiteUsername() : data.blackUsername(), expected)) {
+                        return false;
+                    }
+                    // the registry's game is never changed, so the new data can share it
+                    store(entry, new GameData(gameID, white ? username : data.whiteUsername(),
+                            white ? data.blackUsername() : username, data.gameName(), data.game()));
+                    return true;
+                }
+            }
+        }
+    }
+
+    public void updateGameState(int gameID, ChessGame game) throws DataAccessException {
+        checkOpen();
+        ChessGame copy = game != null ? new ChessGame(game) : null;
+        while (true) {
+            Entry entry = entry(gameID);
+            if (entry == null) {
+                throw new DataAccessException("Game update failed. Game ID: " + gameID + " not found.");
+            }
+            synchronized (entry) {
+                if (!entry.evicted) {
+                    GameData data = entry.data;
+                    store(entry, new GameData(gameID, data.whiteUsername(), data.blackUsername(), data.gameName(), copy));
+                    return;
+                }
+            }
+        }
+    }
+
+    public Collection<GameData> getAllGames() throws DataAccessException {
+        Collection<GameData> stored = delegate.getAllGames();
+        List<GameData> games = new ArrayList<>(stored.size());
+        for (GameData game : stored) {
+            Entry entry = live.get(game.gameID());
+            if (entry == null) {
+                games.add(game);
+                continue;
+            }
+            synchronized (entry) {
+                games.add(entry.evicted ? game : snapshot(entry.data));
+            }
+        }
+        return games;
+    }
+
+    public void clear() throws DataAccessException {
+        synchronized (flushLock) {
+            dirty.clear();
+            for (Entry entry : live.values()) {
+                synchronized (entry) {
+                    entry.evicted = true;
+                }
+            }
+            live.clear();
+            delegate.clear();
+        }
+    }
+
+    /**
+     * Writes every dirty game now, in one batch
+     *
+     * @return how many games were written
+     * @throws DataAccessException if the write fails; the games stay dirty
+     */
+    public int flush() throws DataAccessException {
+        synchronized (flushLock) {
+            if (dirty.isEmpty()) {
+                return 0;
+            }
+            Map<Integer, GameData> batch = new LinkedHashMap<>();
+            for (Integer gameID : dirty.keySet()) {
+                GameData game = dirty.remove(gameID);
+                if (game != null) {
+                    batch.put(gameID, game);
+                }
+            }
+            try {
+                delegate.updateGames(batch.values());
+            } catch (DataAccessException | RuntimeException e) {
+                // a newer copy may have been queued meanwhile, which wins
+                batch.forEach(dirty::putIfAbsent);
+                throw e;
+            }
+            return batch.size();
+        }
+    }
+
+    /**
+     * Drops the games that are written and are over or have not been used for the idle
+     * timeout. Runs under the flush lock, so no game is dropped while its write is in flight.
+     *
+     * @return how many games were dropped
+     */
+    int evict() {
+        synchronized (flushLock) {
+            long now = System.nanoTime();
+            int evicted = 0;
+            for (Map.Entry<Integer, Entry> game : live.entrySet()) {
+                Entry entry = game.getValue();
+                synchronized (entry) {
+                    if (entry.evicted || dirty.containsKey(game.getKey())) {
+                        continue;
+                    }
+                    ChessGame chessGame = entry.data.game();
+                    boolean over = chessGame != null && chessGame.isGameOver();
+                    if (over || now - entry.lastUsed >= idleTimeoutNanos) {
+                        entry.evicted = true;
+                        live.remove(game.getKey(), entry);
+                        evicted++;
+                    }
+                }
+            }
+            return evicted;
+        }
+    }
+
+    /**
+     * @return how many games have changes not yet written
+     */
+    public int dirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * @return how many games are held in memory
+     */
+    public int liveCount() {
+        return live.size();
+    }
+
+    /**
+     * Stops the background flush and, in FLUSH mode, writes what is still dirty
+     */
+    @Override
+    public void close() throws DataAccessException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (shutdownMode == ShutdownMode.FLUSH) {
+            int written = flush();
+            System.out.println("INFO/ Flushed " + written + " games on shutdown");
+        } else {
+            System.out.println("INFO/ Discarded " + dirty.size() + " unwritten games on shutdown");
+            dirty.clear();
+        }
+    }
+
+    private void flushAndEvict() {
+        try {
+            flush();
+            evict();
+        } catch (DataAccessException | RuntimeException e) {
+            // keep the flusher alive; the games are still dirty and go out next time
+            System.out.println("INFO/ Game flush failed, will retry: " + e.getMessage());
+        }
+    }
+
+    // the game's entry, loading it if it is not in memory; null if the game does not exist
+    private Entry entry(int gameID) throws DataAccessException {
+        Entry entry = live.get(gameID);
+        if (entry != null) {
+            return entry;
+        }
+        GameData loaded = delegate.getGameByID(gameID);
+        if (loaded == null) {
+            return null;
+        }
+        // another thread may have loaded it first; everyone must use the same entry
+        Entry created = new Entry(loaded);
+        Entry raced = live.putIfAbsent(gameID, created);
+        return raced != null ? raced : created;
+    }
+
+    // called with the entry's lock held
+    private void store(Entry entry, GameData data) {
+        entry.data = data;
+        entry.lastUsed = System.nanoTime();
+        // the registry never changes its copy, so the flush can write the same one
+        dirty.put(data.gameID(), data);
+    }
+
+    private void checkOpen() throws DataAccessException {
+        if (closed) {
+            throw new DataAccessException("Game registry is closed.");
+        }
+    }
+
+    private static GameData snapshot(GameData gameData) {
+        ChessGame game = gameData.game();
+        return new GameData(gameData.gameID(), gameData.whiteUsername(), gameData.blackUsername(),
+                gameData.gameName(), game != null ? new ChessGame(game) : null);
+    }
+}
@@ -1,18 +1,42 @@
 package server;
 
+import chess.book.PolyglotBook;
+import com.google.gson.Gson;
 import dataaccess.*;
 import server.wshandlerfunctions.*;
 import service.GameService;
 import spark.*;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
 import service.UserService;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
 import org.eclipse.jetty.websocket.api.Session;
 
 
 
 public class Server {
+    // path to a Polyglot opening book for the hint endpoint; hints are empty without one
+    public static final String OPENING_BOOK_PROPERTY = "chess.openingBook";
+    // PLATFORM or VIRTUAL, see ThreadMode
+    public static final String THREAD_MODE_PROPERTY = "chess.threadMode";
+    // websocket command workers in platform mode, the same cap as Jetty's default request pool
+    private static final int PLATFORM_COMMAND_THREADS = 200;
+
+    /**
+     * Which threads run HTTP requests and websocket commands
+     */
+    public enum ThreadMode {
+        // Jetty's bounded pool of platform threads, and a bounded pool for game commands
+        PLATFORM,
+        // a virtual thread for every request, and for every game with commands queued
+        VIRTUAL
+    }
+
     UserHandler userServer;
     GameHandler gameServer;
 
@@ -21,7 +45,11 @@ public class Server {
 
     UserDAO userDAO;
     AuthDAO authDAO;
+    CachingAuthDAO authCache;
     GameDAO gameDAO;
+    LiveGameRegistry liveGames;
+    GameMailboxes mailboxes;
+    ThreadMode threadMode;
     ConnectionManager connectionManager;
     HelperFunctions helperFunctions;
 
@@ -34,6 +62,11 @@ public class Server {
     static ConcurrentHashMap<Integer, List<Session>> sessions = new ConcurrentHashMap<>();
 
     public Server() {
+        this(ThreadMode.valueOf(System.getProperty(THREAD_MODE_PROPERTY, ThreadMode.PLATFORM.name()).toUpperCase()));
+    }
+
+    public Server(ThreadMode threadMode) {
+        this.threadMode = threadMode;
         // this makes all the new objects to store users, auth tokens, and games.
         try {
             DatabaseManager.createDatabase();
@@ -43,14 +76,22 @@ public class Server {
 
         // this implements the sql database
         this.userDAO = new SqlUserDAO();
-        this.authDAO = new SqlAuthDAO();
-        this.gameDAO = new SqlGameDAO();
+        // tokens are checked on every request, so recent ones are answered from memory
+        this.authCache = CachingAuthDAO.fromSystemProperties(new SqlAuthDAO());
+        this.authDAO = authCache;
+        // games in play live in memory and are written back to sql in the background
+        this.liveGames = LiveGameRegistry.fromSystemProperties(new SqlGameDAO());
+        this.gameDAO = liveGames;
         this.connectionManager = new ConnectionManager();
+        this.mailboxes = threadMode == ThreadMode.VIRTUAL ? new GameMailboxes()
+                : new GameMailboxes(Executors.newFixedThreadPool(PLATFORM_COMMAND_THREADS,
+                        Thread.ofPlatform().daemon().name("game-", 0).factory()));
         this.helperFunctions = new HelperFunctions(this.connectionManager);
 
 
         userService = new UserService(userDAO, authDAO);
         gameService = new GameService(gameDAO, authDAO);
+        gameService.setOpeningBook(loadOpeningBook());
         gameServer = new GameHandler(gameService);
 
         this.userServer = new UserHandler(userService);
@@ -62,7 +103,23 @@ public class Server {
         this.handleResign = new HandleResign(gameService, authDAO, gameDAO, connectionManager, helperFunctions);
     }
 
+    private static PolyglotBook loadOpeningBook() {
+        String path = System.getProperty(OPENING_BOOK_PROPERTY);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        try {
+            PolyglotBook book = PolyglotBook.open(Path.of(path));
+            System.out.println("INFO/ Opening book " + path + " mapped, " + book.size() + " entries");
+            return book;
+        } catch (IOException e) {
+            System.err.println("ERROR [Server]: Opening book " + path + " not loaded, hints disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
     public int run(int desiredPort) {
+        useThreadMode(threadMode);
         Spark.port(desiredPort);
 
         Spark.staticFiles.location("web");
@@ -76,6 +133,7 @@ public class Server {
         WSHandler.setHandleLeave(this.handleLeave);
         WSHandler.setHandleResign(this.handleResign);
         WSHandler.setHelperFunctions(this.helperFunctions);
+        WSHandler.setMailboxes(this.mailboxes);
 
         // Websocket
         Spark.webSocket("/ws", WSHandler.class);
@@ -84,21 +142,43 @@ public class Server {
         Spark.post("/user", userServer::register);
         Spark.post("/session", userServer::login);
         Spark.delete("/db", this::clear);
+        Spark.get("/db/pool", this::poolStats);
+        Spark.get("/db/auth-cache", this::authCacheStats);
+        Spark.get("/ws/mailboxes", this::mailboxStats);
         Spark.delete("/session", userServer::logout);
 
         // games
         Spark.post("/game", gameServer::createGame);
         Spark.put("/game", gameServer::joinGame);
         Spark.get("/game", gameServer::listGames);
+        Spark.get("/game/:gameID/hint", gameServer::getHint);
+        Spark.get("/game/:gameID/pgn", gameServer::getPgn);
 
 
         Spark.awaitInitialization();
         return Spark.port();
     }
 
+    // picks the thread pool for the next Jetty server Spark starts
+    static void useThreadMode(ThreadMode mode) {
+        EmbeddedJettyFactory factory = new EmbeddedJettyFactory();
+        if (mode == ThreadMode.VIRTUAL) {
+            factory.withThreadPool(new VirtualThreadPool());
+        }
+        EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, factory);
+        System.out.println("INFO/ Serving requests on " + mode.name().toLowerCase() + " threads");
+    }
+
     public void stop() {
         Spark.stop();
         Spark.awaitStop();
+        // let queued commands finish before the last games are written
+        mailboxes.close();
+        try {
+            liveGames.close();
+        } catch (DataAccessException e) {
+            System.out.println("INFO/ Games not flushed on shutdown: " + e.getMessage());
+        }
     }
 
     private Object clear(Request req, Response res) throws DataAccessException {
@@ -106,10 +186,32 @@ public class Server {
         clearDatabase();
         // fix this in the future. not sure if this is necessary.
         sessions.clear();
+        mailboxes.clear();
         res.status(200);
         return "{}";
     }
 
+    // connection pool counters for monitoring
+    private Object poolStats(Request req, Response res) {
+        res.status(200);
+        return new Gson().toJson(DatabaseManager.poolStats());
+    }
+
+    // auth token cache counters, including the hit rate
+    private Object authCacheStats(Request req, Response res) {
+        CachingAuthDAO.Stats stats = authCache.stats();
+        var json = new Gson().toJsonTree(stats).getAsJsonObject();
+        json.addProperty("hitRate", stats.hitRate());
+        res.status(200);
+        return new Gson().toJson(json);
+    }
+
+    // queue depth and latency of each game's websocket commands
+    private Object mailboxStats(Request req, Response res) {
+        res.status(200);
+        return new Gson().toJson(mailboxes.stats());
+    }
+
     public void clearDatabase() throws DataAccessException {
         userService.clear();
         gameService.clear();
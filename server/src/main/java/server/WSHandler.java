@@ -12,6 +12,7 @@ import websocket.commands.UserGameCommand;
 import websocket.messages.*;
 
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
 
 @WebSocket
 public class WSHandler {
@@ -25,6 +26,7 @@ public class WSHandler {
     private static HandleLeave handleLeave;
     private static HandleResign handleResign;
     private static HelperFunctions helperFunctions;
+    private static GameMailboxes mailboxes;
 
     public static void setGameService(GameService service) {
         gameService = service;
@@ -60,6 +62,10 @@ public class WSHandler {
 
     public static void setHelperFunctions(HelperFunctions helperFunctions) { WSHandler.helperFunctions = helperFunctions; }
 
+    public static void setMailboxes(GameMailboxes mailboxes) {
+        WSHandler.mailboxes = mailboxes;
+    }
+
     @OnWebSocketConnect
     public void onConnect(Session session) {
         if (session == null) {
@@ -97,6 +103,34 @@ public class WSHandler {
                 helperFunctions.sendError(session, "Error: Invalid command format - " + e.getMessage());
                 return;
             }
+            // the command runs later in its game's mailbox, so this socket thread is free again at once
+            Integer gameID = baseCommand.getGameID();
+            if (mailboxes == null || gameID == null) {
+                dispatch(session, message, baseCommand);
+                return;
+            }
+            try {
+                mailboxes.submit(gameID, () -> dispatch(session, message, baseCommand));
+            } catch (RejectedExecutionException e) {
+                helperFunctions.sendError(session, "Error: Server is shutting down.");
+            }
+        } catch (IOException e) {
+            System.out.println("Error sending message: " + e.getMessage());
+        } catch (Exception e) {
+            // Catch unexpected errors during command processing
+            System.err.println("Unexpected error processing message: " + e.getMessage());
+            e.printStackTrace(); // Log stack trace for debugging
+            try {
+                helperFunctions.sendError(session, "An unexpected server error occurred.");
+            } catch (IOException ioEx) {
+                System.err.println("Failed to send error message after unexpected error: " + ioEx.getMessage());
+            }
+        }
+    }
+
+    // runs one command; commands for the same game never run at the same time
+    private void dispatch(Session session, String message, UserGameCommand baseCommand) {
+        try {
             switch (baseCommand.getCommandType()) {
                 case CONNECT:
                     handleConnect.handle(session, baseCommand);
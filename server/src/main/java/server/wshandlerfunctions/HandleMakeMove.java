@@ -106,14 +106,14 @@ public class HandleMakeMove {
             ChessGame.TeamColor opponentColor = (playerColor == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
             String opponentUsername = (playerColor == ChessGame.TeamColor.WHITE) ? gameData.blackUsername() : gameData.whiteUsername();
             opponentUsername = (opponentUsername == null) ? "[Opponent]" : "'" + opponentUsername + "'";
-            String stateNotificationText = null;
-            if (updatedGameLogic.isInCheckmate(opponentColor)) {
-                stateNotificationText = String.format("CHECKMATE! %s (%s) defeated %s (%s).", username, playerColor, opponentUsername, opponentColor);
-            } else if (updatedGameLogic.isInStalemate(opponentColor)) {
-                stateNotificationText = "STALEMATE! The game is a draw.";
-            } else if (updatedGameLogic.isInCheck(opponentColor)) {
-                stateNotificationText = String.format("CHECK! %s (%s) is in check.", opponentUsername, opponentColor);
-            }
+            // the opponent is now the team to move, so one cached status covers mate, stalemate and check
+            String stateNotificationText = switch (updatedGameLogic.getGameStatus()) {
+                case CHECKMATE -> String.format("CHECKMATE! %s (%s) defeated %s (%s).", username, playerColor, opponentUsername, opponentColor);
+                case STALEMATE -> "STALEMATE! The game is a draw.";
+                case CHECK -> String.format("CHECK! %s (%s) is in check.", opponentUsername, opponentColor);
+                // the tablebases show neither side can win
+                default -> updatedGameLogic.isGameOver() ? "DRAW! Neither side can win any more." : null;
+            };
             if (stateNotificationText != null) {
                 NotificationMessage stateNotification = new NotificationMessage(stateNotificationText);
                 String stateNotificationJson = gson.toJson(stateNotification);
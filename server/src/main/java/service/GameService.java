@@ -3,6 +3,9 @@ package service;
 import chess.ChessGame;
 import chess.ChessMove;
 import chess.InvalidMoveException;
+import chess.book.BookMove;
+import chess.book.PolyglotBook;
+import chess.pgn.Pgn;
 import dataaccess.AuthDAO;
 import dataaccess.DataAccessException;
 import dataaccess.GameDAO;
@@ -12,10 +15,15 @@ import model.game.GameData;
 import org.eclipse.jetty.server.Authentication;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class GameService {
     AuthDAO authDAO;
     GameDAO gameDAO;
+    // null when the server runs without an opening book
+    PolyglotBook openingBook;
 
     public GameService(GameDAO gameDAO, AuthDAO authDAO) {
         if (gameDAO == null) {
@@ -28,6 +36,42 @@ public class GameService {
         this.authDAO = authDAO;
     }
 
+    public void setOpeningBook(PolyglotBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    // book moves for the team to move; empty when there is no book or the position is not in it
+    public List<BookMove> getBookMoves(String authToken, int gameID) throws DataAccessException {
+        if (authDAO.getUser(authToken) == null) {
+            throw new DataAccessException("Invalid token.");
+        }
+        ChessGame game = getGame(gameID);
+        if (openingBook == null || game.isGameOver()) {
+            return List.of();
+        }
+        return game.getBookMoves(openingBook);
+    }
+
+    // the moves played so far as PGN, with the game name and players as tags
+    public String getPgn(String authToken, int gameID) throws DataAccessException {
+        if (authDAO.getUser(authToken) == null) {
+            throw new DataAccessException("Invalid token.");
+        }
+        GameData gameData = gameDAO.getGameByID(gameID);
+        if (gameData == null || gameData.game() == null) {
+            throw new DataAccessException("Game with ID " + gameID + " not found");
+        }
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", gameData.gameName());
+        if (gameData.whiteUsername() != null) {
+            tags.put("White", gameData.whiteUsername());
+        }
+        if (gameData.blackUsername() != null) {
+            tags.put("Black", gameData.blackUsername());
+        }
+        return Pgn.write(gameData.game(), tags);
+    }
+
     public int createGame(String authToken, String gameName) throws DataAccessException {
         if (authDAO.getUser(authToken) == null) {
             throw new DataAccessException("Invalid token.");
@@ -50,35 +94,15 @@ public class GameService {
 
         String username = user.username();
 
+        // only the seat changes, so a move made meanwhile is kept; the seat must still be empty
         if (teamColor == ChessGame.TeamColor.WHITE) {
-            if (game.whiteUsername() != null) {
+            if (!gameDAO.replacePlayer(gameID, teamColor, null, username)) {
                 throw new DataAccessException("White user already exists.");
             }
-
-            GameData updatedGame = new GameData(
-                    game.gameID(),
-                    username,
-                    game.blackUsername(),
-                    game.gameName(),
-                    game.game()
-            );
-
-            System.out.println("DEBUG/ Before update: gameID=" + gameID + ", whiteUsername=" + username);
-            gameDAO.updateGame(updatedGame);
-            System.out.println("DEBUG/ After update: whiteUsername=" + gameDAO.getGameByID(gameID).whiteUsername());
         } else if (teamColor == ChessGame.TeamColor.BLACK) {
-            if (game.blackUsername() != null) {
+            if (!gameDAO.replacePlayer(gameID, teamColor, null, username)) {
                 throw new DataAccessException("Black user already exists.");
             }
-
-            GameData updatedGame = new GameData(
-                    game.gameID(),
-                    game.whiteUsername(),
-                    username,
-                    game.gameName(),
-                    game.game()
-            );
-            gameDAO.updateGame(updatedGame);
         } else {
             throw new DataAccessException("Invalid team color.");
         }
@@ -135,15 +159,8 @@ public class GameService {
 
         currentGame.makeMove(move); // This modifies the currentGame object in memory
 
-        GameData updatedGameData = new GameData(
-                currentGameData.gameID(),
-                currentGameData.whiteUsername(),
-                currentGameData.blackUsername(),
-                currentGameData.gameName(),
-                currentGame // Pass the game object that was just modified by currentGame.makeMove(move)
-        );
-
-        gameDAO.updateGame(updatedGameData);
+        // only the game state, so a player who joined meanwhile keeps their seat
+        gameDAO.updateGameState(gameID, currentGame);
         System.out.printf("GameService: Move %s successful for user '%s' in game %d. State saved.%n", move, username, gameID);
     }
 
@@ -185,16 +202,8 @@ public class GameService {
             System.out.printf("GameService: User '%s' is resigning from game %d.%n", username, gameID);
             currentGame.setResigned(true);
 
-            GameData updatedGameData = new GameData(
-                    currentGameData.gameID(),
-                    currentGameData.whiteUsername(),
-                    currentGameData.blackUsername(),
-                    currentGameData.gameName(),
-                    currentGame
-            );
-
-            gameDAO.updateGame(updatedGameData);
-            System.out.println("Send updated game due to resignation attempt: " + updatedGameData);
+            gameDAO.updateGameState(gameID, currentGame);
+            System.out.println("Send updated game due to resignation attempt: game " + gameID);
 
         } catch (DataAccessException e) {
             throw new DataAccessException("Error with getting game." + e.getMessage());
@@ -229,7 +238,7 @@ public class GameService {
 
         String whitePlayerName = currentGameData.whiteUsername();
         String blackPlayerName = currentGameData.blackUsername();
-        GameData updatedGameData = null; // To store the potentially modified game data
+        ChessGame.TeamColor leavingColor; // The seat to clear
 
         System.out.println("INFO [GameService - leaveGame]: Processing leave request for user '"
                 + username + "' in game " + gameID + ".");
@@ -242,25 +251,13 @@ public class GameService {
             // White player is leaving
             System.out.println("INFO [GameService - leaveGame]: User '" + username +
                     "' is the WHITE player. Preparing to clear their slot in game " + gameID + ".");
-            updatedGameData = new GameData(
-                    currentGameData.gameID(),
-                    null, // Clear white username
-                    blackPlayerName,
-                    currentGameData.gameName(),
-                    currentGameData.game() // Keep the existing game state object
-            );
+            leavingColor = ChessGame.TeamColor.WHITE;
         } else if (username.equals(blackPlayerName)) {
             // Black player is leaving
             System.out.println("INFO [GameService - leaveGame]: User '"
                     + username + "' is the BLACK player. Preparing to clear their slot in game "
                     + gameID + ".");
-            updatedGameData = new GameData(
-                    currentGameData.gameID(),
-                    whitePlayerName,
-                    null, // Clear black username
-                    currentGameData.gameName(),
-                    currentGameData.game() // Keep the existing game state object
-            );
+            leavingColor = ChessGame.TeamColor.BLACK;
         } else {
             // User is not a player (observer or other)
             System.out.println("INFO [GameService - leaveGame]: User '" +
@@ -270,24 +267,22 @@ public class GameService {
             return;
         }
 
-        // Only proceed to update if updatedGameData was actually created (meaning a player left)
-        if (updatedGameData != null) {
-            try {
-                System.out.println("INFO [GameService - leaveGame]: Attempting to update database for game " +
-                        gameID + " after player '" + username + "' left.");
-                gameDAO.updateGame(updatedGameData);
-                System.out.println("SUCCESS [GameService - leaveGame]: Game " + gameID +
-                        " data successfully updated in database after player '" + username + "' left.");
-            } catch (DataAccessException e) {
-                // Provide context for the update failure
-                System.err.println("ERROR [GameService - leaveGame]: Failed to update game data in database for gameID "
-                        + gameID + " after user '" + username + "' left. Details: " + e.getMessage());
-                // Print stack trace to standard error for more debugging info
-                e.printStackTrace(System.err);
-                // Re-throw the original exception type as expected by the method signature
-                throw new DataAccessException("Failed to update game state after player left: " + e.getMessage());
-                // Avoid wrapping in RuntimeException unless that's the desired contract
-            }
+        // Only the seat changes, so a player who joined the other seat meanwhile keeps it
+        try {
+            System.out.println("INFO [GameService - leaveGame]: Attempting to update database for game " +
+                    gameID + " after player '" + username + "' left.");
+            gameDAO.replacePlayer(gameID, leavingColor, username, null);
+            System.out.println("SUCCESS [GameService - leaveGame]: Game " + gameID +
+                    " data successfully updated in database after player '" + username + "' left.");
+        } catch (DataAccessException e) {
+            // Provide context for the update failure
+            System.err.println("ERROR [GameService - leaveGame]: Failed to update game data in database for gameID "
+                    + gameID + " after user '" + username + "' left. Details: " + e.getMessage());
+            // Print stack trace to standard error for more debugging info
+            e.printStackTrace(System.err);
+            // Re-throw the original exception type as expected by the method signature
+            throw new DataAccessException("Failed to update game state after player left: " + e.getMessage());
+            // Avoid wrapping in RuntimeException unless that's the desired contract
         }
     }
 
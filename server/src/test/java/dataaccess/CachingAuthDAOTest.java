@@ -0,0 +1,104 @@
+package dataaccess;
+
+import model.auth.AuthData;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingAuthDAOTest {
+    private CountingAuthDAO stored;
+    private CachingAuthDAO cache;
+    private long now;
+
+    @BeforeEach
+    public void setUp() throws DataAccessException {
+        stored = new CountingAuthDAO();
+        stored.addAuthData(new AuthData("alice", "token-a"));
+        stored.addAuthData(new AuthData("bob", "token-b"));
+        cache = new CachingAuthDAO(stored, 2, 1_000, 100, () -> now);
+    }
+
+    @Test
+    @DisplayName("Repeated Lookups Are Answered From Memory")
+    public void readThrough() throws DataAccessException {
+        assertEquals("alice", cache.getUser("token-a").username());
+        assertEquals("alice", cache.getUser("token-a").username());
+        assertEquals(1, stored.lookups);
+
+        advance(1_000);
+        assertEquals("alice", cache.getUser("token-a").username());
+        assertEquals(2, stored.lookups);
+
+        CachingAuthDAO.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1.0 / 3, stats.hitRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Bad Tokens Are Cached For The Negative TTL")
+    public void negativeCaching() throws DataAccessException {
+        assertNull(cache.getUser("forged"));
+        assertNull(cache.getUser("forged"));
+        assertEquals(1, stored.lookups);
+        assertEquals(1, cache.stats().negativeHits());
+
+        advance(100);
+        assertNull(cache.getUser("forged"));
+        assertEquals(2, stored.lookups);
+    }
+
+    @Test
+    @DisplayName("Logout And Clear Take Effect At Once")
+    public void invalidation() throws DataAccessException {
+        assertNotNull(cache.getUser("token-a"));
+        assertTrue(cache.removeAuthData("token-a"));
+        assertNull(cache.getUser("token-a"));
+
+        assertNotNull(cache.getUser("token-b"));
+        cache.clear();
+        assertNull(cache.getUser("token-b"));
+
+        // a token added after it was looked up as unknown is found straight away
+        assertNull(cache.getUser("token-c"));
+        cache.addAuthData(new AuthData("carol", "token-c"));
+        int lookups = stored.lookups;
+        assertEquals("carol", cache.getUser("token-c").username());
+        assertEquals(lookups, stored.lookups);
+    }
+
+    @Test
+    @DisplayName("Least Recently Used Tokens Are Evicted")
+    public void bounded() throws DataAccessException {
+        stored.addAuthData(new AuthData("carol", "token-c"));
+        cache.getUser("token-a");
+        cache.getUser("token-b");
+        cache.getUser("token-a");
+        cache.getUser("token-c");
+        assertEquals(2, cache.stats().size());
+        assertEquals(1, cache.stats().evictions());
+
+        int lookups = stored.lookups;
+        cache.getUser("token-a");
+        assertEquals(lookups, stored.lookups);
+        cache.getUser("token-b");
+        assertEquals(lookups + 1, stored.lookups);
+    }
+
+    private void advance(long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    // counts the lookups that reach the "database"
+    private static class CountingAuthDAO extends MemoryAuthDAO {
+        int lookups;
+
+        @Override
+        public AuthData getUser(String token) {
+            lookups++;
+            return super.getUser(token);
+        }
+    }
+}
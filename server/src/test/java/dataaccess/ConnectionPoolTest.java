@@ -0,0 +1,149 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPoolTest {
+    private final List<StubConnection> opened = new ArrayList<>();
+    private ConnectionPool pool;
+
+    @AfterEach
+    public void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Closing A Connection Returns It For Reuse")
+    public void reuse() throws Exception {
+        pool = new ConnectionPool(this::open, 2, 100, 60_000, 60_000);
+        Connection first = pool.borrow();
+        assertEquals(1, pool.stats().active());
+        first.close();
+        first.close();
+        assertTrue(first.isClosed());
+        assertThrows(SQLException.class, first::commit);
+
+        try (Connection second = pool.borrow()) {
+            assertFalse(second.isClosed());
+        }
+        assertEquals(1, opened.size());
+        assertFalse(opened.get(0).closed);
+        ConnectionPool.Stats stats = pool.stats();
+        assertEquals(0, stats.active());
+        assertEquals(1, stats.idle());
+        assertEquals(2, stats.borrows());
+        assertEquals(1, stats.created());
+    }
+
+    @Test
+    @DisplayName("Borrowers Wait Up To The Max Wait")
+    public void boundedWait() throws Exception {
+        pool = new ConnectionPool(this::open, 1, 50, 60_000, 60_000);
+        Connection held = pool.borrow();
+        assertThrows(DataAccessException.class, () -> pool.borrow());
+        assertEquals(1, pool.stats().timeouts());
+        assertTrue(pool.stats().maxWaitNanos() >= 40_000_000L);
+
+        held.close();
+        pool.close();
+
+        pool = new ConnectionPool(this::open, 1, 5_000, 60_000, 60_000);
+        try (Connection first = pool.borrow()) {
+            Thread waiter = new Thread(() -> {
+                try (Connection ignored = pool.borrow()) {
+                    // got it once the first was returned
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            waiter.start();
+            Thread.sleep(20);
+            assertEquals(1, pool.stats().active());
+            first.close();
+            waiter.join(5_000);
+        }
+        assertEquals(0, pool.stats().timeouts());
+        assertEquals(2, pool.stats().borrows());
+    }
+
+    @Test
+    @DisplayName("Invalid Idle Connections Are Replaced")
+    public void validateOnBorrow() throws Exception {
+        pool = new ConnectionPool(this::open, 2, 100, 0, 60_000);
+        pool.borrow().close();
+        opened.get(0).valid = false;
+        try (Connection ignored = pool.borrow()) {
+            assertEquals(2, opened.size());
+            assertTrue(opened.get(0).closed);
+        }
+    }
+
+    @Test
+    @DisplayName("Open Transactions Are Rolled Back On Return")
+    public void resetOnReturn() throws Exception {
+        pool = new ConnectionPool(this::open, 1, 100, 60_000, 60_000);
+        try (Connection connection = pool.borrow()) {
+            connection.setAutoCommit(false);
+        }
+        assertTrue(opened.get(0).rolledBack);
+        assertTrue(opened.get(0).autoCommit);
+    }
+
+    @Test
+    @DisplayName("Idle Connections Are Closed After The Idle Timeout")
+    public void idleEviction() throws Exception {
+        pool = new ConnectionPool(this::open, 2, 100, 60_000, 20);
+        pool.borrow().close();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pool.stats().idle() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, pool.stats().idle());
+        assertTrue(opened.get(0).closed);
+    }
+
+    private synchronized Connection open() {
+        StubConnection stub = new StubConnection();
+        opened.add(stub);
+        return stub.proxy();
+    }
+
+    // just enough of a connection for the pool
+    private static class StubConnection {
+        volatile boolean closed;
+        volatile boolean valid = true;
+        volatile boolean autoCommit = true;
+        volatile boolean rolledBack;
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "isClosed" -> closed;
+                        case "isValid" -> valid;
+                        case "getAutoCommit" -> autoCommit;
+                        case "setAutoCommit" -> {
+                            autoCommit = (Boolean) args[0];
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            rolledBack = true;
+                            yield null;
+                        }
+                        default -> null;
+                    });
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package dataaccess;
 
+import chess.ChessGame;
+import chess.GameCodec;
 import model.game.GameData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Order;
@@ -7,6 +9,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.Collection;
 import java.util.UUID;
 
@@ -260,4 +267,63 @@ public class SqlGameDAOTest {
         games.clear();
         assertTrue(games.isEmpty(), "Games should be empty");
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(11)
+    @DisplayName("Reads and migrates a game stored as JSON")
+    void migratesJsonGame() throws DataAccessException, SQLException {
+        int gameID = gameDAO.createGame(authToken, "Old Game");
+        // the row the first servers wrote after 1. e4: a ChessPiece grid, rank 1 first
+        String json = """
+                {"board":{"board":[\
+                [{"teamColor":"WHITE","pieceType":"ROOK"},{"teamColor":"WHITE","pieceType":"KNIGHT"},{"teamColor":"WHITE","pieceType":"BISHOP"},{"teamColor":"WHITE","pieceType":"QUEEN"},{"teamColor":"WHITE","pieceType":"KING"},{"teamColor":"WHITE","pieceType":"BISHOP"},{"teamColor":"WHITE","pieceType":"KNIGHT"},{"teamColor":"WHITE","pieceType":"ROOK"}],\
+                [{"teamColor":"WHITE","pieceType":"PAWN"},{"teamColor":"WHITE","pieceType":"PAWN"},{"teamColor":"WHITE","pieceType":"PAWN"},{"teamColor":"WHITE","pieceType":"PAWN"},null,{"teamColor":"WHITE","pieceType":"PAWN"},{"teamColor":"WHITE","pieceType":"PAWN"},{"teamColor":"WHITE","pieceType":"PAWN"}],\
+                [null,null,null,null,null,null,null,null],\
+                [null,null,null,null,{"teamColor":"WHITE","pieceType":"PAWN"},null,null,null],\
+                [null,null,null,null,null,null,null,null],\
+                [null,null,null,null,null,null,null,null],\
+                [{"teamColor":"BLACK","pieceType":"PAWN"},{"teamColor":"BLACK","pieceType":"PAWN"},{"teamColor":"BLACK","pieceType":"PAWN"},{"teamColor":"BLACK","pieceType":"PAWN"},{"teamColor":"BLACK","pieceType":"PAWN"},{"teamColor":"BLACK","pieceType":"PAWN"},{"teamColor":"BLACK","pieceType":"PAWN"},{"teamColor":"BLACK","pieceType":"PAWN"}],\
+                [{"teamColor":"BLACK","pieceType":"ROOK"},{"teamColor":"BLACK","pieceType":"KNIGHT"},{"teamColor":"BLACK","pieceType":"BISHOP"},{"teamColor":"BLACK","pieceType":"QUEEN"},{"teamColor":"BLACK","pieceType":"KING"},{"teamColor":"BLACK","pieceType":"BISHOP"},{"teamColor":"BLACK","pieceType":"KNIGHT"},{"teamColor":"BLACK","pieceType":"ROOK"}]\
+                ]},"teamTurn":"BLACK","resigned":false}""";
+        writeGameData(gameID, json);
+
+        ChessGame expected = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1");
+        assertEquals(expected, gameDAO.getGameByID(gameID).game(), "JSON game should be read");
+        byte[] stored = readGameData(gameID);
+        assertTrue(GameCodec.isEncoded(stored), "Row should be rewritten in binary");
+        assertTrue(stored.length <= GameCodec.MAX_BYTES, "Binary row should be compact");
+        assertEquals(expected, gameDAO.getGameByID(gameID).game(), "Binary game should be read");
+    }
+
+    @Test
+    @Order(12)
+    @DisplayName("Refuses and keeps JSON that is not a game")
+    void keepsUnrecognisedJson() throws DataAccessException, SQLException {
+        int gameID = gameDAO.createGame(authToken, "Odd Game");
+        String json = "{\"board\":{},\"teamTurn\":\"WHITE\"}";
+        writeGameData(gameID, json);
+
+        assertThrows(DataAccessException.class, () -> gameDAO.getGameByID(gameID));
+        assertEquals(json, new String(readGameData(gameID), StandardCharsets.UTF_8), "Row should not be migrated");
+    }
+
+    private static void writeGameData(int gameID, String json) throws DataAccessException, SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("UPDATE games SET game_data = ? WHERE game_id = ?")) {
+            stmt.setString(1, json);
+            stmt.setInt(2, gameID);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static byte[] readGameData(int gameID) throws DataAccessException, SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT game_data FROM games WHERE game_id = ?")) {
+            stmt.setInt(1, gameID);
+            try (ResultSet rs = stmt.executeQuery()) {
+                assertTrue(rs.next(), "Game should exist");
+                return rs.getBytes(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package server;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameMailboxesTest {
+    private GameMailboxes mailboxes;
+
+    @BeforeEach
+    public void setUp() {
+        mailboxes = new GameMailboxes();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mailboxes.close();
+    }
+
+    @Test
+    @DisplayName("Commands For One Game Run In Order, One At A Time")
+    public void serialPerGame() throws InterruptedException {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        int commands = 2_000;
+        CountDownLatch done = new CountDownLatch(commands);
+        CountDownLatch release = new CountDownLatch(1);
+        // holds the mailbox busy, so every command is counted by the same mailbox
+        CountDownLatch gate = new CountDownLatch(1);
+        mailboxes.submit(1, gate::await);
+
+        // several socket threads submitting at once, each in its own order
+        List<Thread> senders = new ArrayList<>();
+        for (int sender = 0; sender < 4; sender++) {
+            int first = sender * (commands / 4);
+            senders.add(Thread.ofPlatform().start(() -> {
+                for (int i = first; i < first + commands / 4; i++) {
+                    int command = i;
+                    mailboxes.submit(1, () -> {
+                        if (running.incrementAndGet() > 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        order.add(command);
+                        running.decrementAndGet();
+                        done.countDown();
+                    });
+                }
+            }));
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        // the counters are updated just after each command, so read them while a last one waits
+        CountDownLatch waiting = new CountDownLatch(1);
+        mailboxes.submit(1, () -> {
+            waiting.countDown();
+            release.await();
+        });
+        gate.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        assertEquals(commands, order.size());
+
+        // each sender's commands keep their order
+        int[] last = {-1, -1, -1, -1};
+        for (int command : order) {
+            int sender = command / (commands / 4);
+            assertTrue(command > last[sender]);
+            last[sender] = command;
+        }
+        assertTrue(waiting.await(5, TimeUnit.SECONDS));
+        GameMailboxes.Stats stats = mailboxes.stats(1);
+        release.countDown();
+        // the gate and the commands
+        assertEquals(commands + 1, stats.processed());
+        assertEquals(1, stats.queued());
+    }
+
+    @Test
+    @DisplayName("A Busy Game Does Not Hold Up Others")
+    public void gamesRunInParallel() throws InterruptedException {
+        CountDownLatch otherGameRan = new CountDownLatch(1);
+        CountDownLatch blockedDone = new CountDownLatch(1);
+        mailboxes.submit(1, () -> {
+            // waits for game 2, which only works if game 2 has its own worker
+            assertTrue(otherGameRan.await(5, TimeUnit.SECONDS));
+            blockedDone.countDown();
+        });
+        mailboxes.submit(1, () -> { });
+        mailboxes.submit(2, otherGameRan::countDown);
+
+        assertTrue(blockedDone.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("A Failing Command Does Not Stop The Mailbox")
+    public void failuresAreContained() throws InterruptedException {
+        CountDownLatch after = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        mailboxes.submit(7, () -> {
+            throw new IllegalStateException("bad command");
+        });
+        mailboxes.submit(7, () -> {
+            after.countDown();
+            release.await();
+        });
+        assertTrue(after.await(5, TimeUnit.SECONDS));
+
+        GameMailboxes.Stats stats = mailboxes.stats(7);
+        release.countDown();
+        assertEquals(1, stats.failed());
+        assertEquals(1, stats.processed());
+        assertEquals(1, stats.queued());
+        assertTrue(stats.maxLatencyMillis() >= stats.averageLatencyMillis());
+        assertNull(mailboxes.stats(8));
+    }
+
+    @Test
+    @DisplayName("Idle Mailboxes Are Dropped")
+    public void idleMailboxesDropped() throws InterruptedException {
+        int games = 1_000;
+        CountDownLatch done = new CountDownLatch(games);
+        for (int game = 0; game < games; game++) {
+            mailboxes.submit(game, done::countDown);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        // each drain drops its mailbox just after the command, which close waits for
+        mailboxes.close();
+        assertTrue(mailboxes.stats().isEmpty(), mailboxes.stats().size() + " mailboxes kept");
+    }
+
+    @Test
+    @DisplayName("Clear Never Splits A Game Across Workers")
+    public void clearWhileSubmitting() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger ran = new AtomicInteger();
+        int commands = 20_000;
+        Thread clearer = Thread.ofPlatform().start(() -> {
+            while (ran.get() < commands) {
+                mailboxes.clear();
+            }
+        });
+        for (int i = 0; i < commands; i++) {
+            mailboxes.submit(1, () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                running.decrementAndGet();
+                ran.incrementAndGet();
+            });
+        }
+        clearer.join(10_000);
+        assertFalse(clearer.isAlive(), "only " + ran.get() + " of " + commands + " commands ran");
+        assertEquals(0, overlaps.get());
+        assertEquals(commands, ran.get());
+
+        // a mailbox with nothing to do is forgotten
+        mailboxes.close();
+        assertNull(mailboxes.stats(1));
+    }
+
+    @Test
+    @DisplayName("Close Finishes Queued Commands And Refuses New Ones")
+    public void close() {
+        AtomicInteger ran = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            mailboxes.submit(i % 3, ran::incrementAndGet);
+        }
+        mailboxes.close();
+        assertEquals(100, ran.get());
+        assertThrows(RejectedExecutionException.class, () -> mailboxes.submit(1, ran::incrementAndGet));
+    }
+}
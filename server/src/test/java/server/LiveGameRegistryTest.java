@@ -0,0 +1,243 @@
+package server;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryGameDAO;
+import model.game.GameData;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LiveGameRegistryTest {
+    // long enough that the background flush never runs during a test
+    private static final long NEVER = 3_600_000;
+
+    private CountingGameDAO stored;
+    private LiveGameRegistry registry;
+
+    @BeforeEach
+    public void setUp() throws DataAccessException {
+        stored = new CountingGameDAO();
+        stored.clear();
+        registry = new LiveGameRegistry(stored, NEVER, LiveGameRegistry.ShutdownMode.FLUSH);
+    }
+
+    @AfterEach
+    public void tearDown() throws DataAccessException {
+        registry.close();
+    }
+
+    @Test
+    @DisplayName("Reads And Moves Stay In Memory")
+    public void readsStayInMemory() throws DataAccessException, InvalidMoveException {
+        int gameID = registry.createGame("token", "live");
+        GameData game = registry.getGameByID(gameID);
+        assertEquals(game, registry.getGameByID(gameID));
+        assertEquals(1, stored.reads);
+
+        game.game().makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        registry.updateGame(game);
+        assertEquals(0, stored.writes);
+        assertEquals(1, registry.dirtyCount());
+        assertEquals(game, registry.getGameByID(gameID));
+        assertEquals(1, stored.reads);
+    }
+
+    @Test
+    @DisplayName("Readers Get Their Own Copy")
+    public void readersGetCopies() throws DataAccessException, InvalidMoveException {
+        int gameID = registry.createGame("token", "shared");
+        GameData reader = registry.getGameByID(gameID);
+        GameData mover = registry.getGameByID(gameID);
+        assertNotSame(reader.game(), mover.game());
+
+        mover.game().makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        // nothing changes until updateGame, and then not the reader's copy
+        assertEquals(new ChessGame(), registry.getGameByID(gameID).game());
+        registry.updateGame(mover);
+        assertEquals(new ChessGame(), reader.game());
+        assertEquals(mover.game(), registry.getGameByID(gameID).game());
+
+        // changing a copy after updateGame does not reach the registry either
+        mover.game().makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        assertEquals(ChessGame.TeamColor.BLACK, registry.getGameByID(gameID).game().getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("A Join And A Move Keep Each Other's Changes")
+    public void seatsAndMovesDoNotOverwrite() throws DataAccessException, InvalidMoveException {
+        int gameID = registry.createGame("token", "seats");
+        registry.replacePlayer(gameID, ChessGame.TeamColor.WHITE, null, "white");
+        // a move is being made on a copy read before black joined
+        GameData mover = registry.getGameByID(gameID);
+        assertTrue(registry.replacePlayer(gameID, ChessGame.TeamColor.BLACK, null, "black"));
+        mover.game().makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        registry.updateGameState(gameID, mover.game());
+
+        GameData game = registry.getGameByID(gameID);
+        assertEquals("white", game.whiteUsername());
+        assertEquals("black", game.blackUsername());
+        assertEquals(mover.game(), game.game());
+
+        // a taken seat is only given up by whoever holds it
+        assertFalse(registry.replacePlayer(gameID, ChessGame.TeamColor.BLACK, null, "late"));
+        assertTrue(registry.replacePlayer(gameID, ChessGame.TeamColor.BLACK, "black", null));
+        game = registry.getGameByID(gameID);
+        assertNull(game.blackUsername());
+        assertEquals(mover.game(), game.game());
+        assertEquals(1, registry.dirtyCount());
+        assertEquals(0, stored.writes);
+    }
+
+    @Test
+    @DisplayName("Written Games That Are Over Or Idle Leave Memory")
+    public void eviction() throws DataAccessException {
+        LiveGameRegistry idle = new LiveGameRegistry(stored, NEVER, LiveGameRegistry.ShutdownMode.DISCARD, 0);
+        int gameID = idle.createGame("token", "idle");
+        idle.updateGame(new GameData(gameID, "white", null, "idle", new ChessGame()));
+        // dirty games stay until they are written
+        assertEquals(0, idle.evict());
+        assertEquals(1, idle.liveCount());
+        idle.flush();
+        assertEquals(1, idle.evict());
+        assertEquals(0, idle.liveCount());
+        int reads = stored.reads;
+        assertEquals("white", idle.getGameByID(gameID).whiteUsername());
+        assertEquals(reads + 1, stored.reads);
+        idle.close();
+
+        int finished = registry.createGame("token", "finished");
+        int playing = registry.createGame("token", "playing");
+        ChessGame resigned = new ChessGame();
+        resigned.setResigned(true);
+        registry.updateGame(new GameData(finished, "white", "black", "finished", resigned));
+        registry.updateGame(new GameData(playing, "white", "black", "playing", new ChessGame()));
+        registry.flush();
+        assertEquals(1, registry.evict());
+        assertEquals(1, registry.liveCount());
+        assertTrue(registry.getGameByID(finished).game().isResigned());
+    }
+
+    @Test
+    @DisplayName("Flush Writes Dirty Games In One Batch")
+    public void flushBatches() throws DataAccessException, InvalidMoveException {
+        int first = registry.createGame("token", "first");
+        int second = registry.createGame("token", "second");
+        GameData firstGame = registry.getGameByID(first);
+        registry.updateGame(new GameData(first, "white", null, "first", firstGame.game()));
+        registry.updateGame(new GameData(second, null, "black", "second", registry.getGameByID(second).game()));
+        // the flush writes the game as it was when updateGame was called
+        firstGame.game().makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+
+        assertEquals(2, registry.flush());
+        assertEquals(1, stored.batches);
+        assertEquals(0, registry.dirtyCount());
+        assertEquals("white", stored.storedGame(first).whiteUsername());
+        assertEquals("black", stored.storedGame(second).blackUsername());
+        assertEquals(new ChessGame(), stored.storedGame(first).game());
+        assertEquals(0, registry.flush());
+    }
+
+    @Test
+    @DisplayName("Failed Flush Keeps Games Dirty")
+    public void failedFlushRetries() throws DataAccessException {
+        int gameID = registry.createGame("token", "retry");
+        registry.updateGame(new GameData(gameID, "white", null, "retry", new ChessGame()));
+        stored.failWrites = true;
+        assertThrows(DataAccessException.class, () -> registry.flush());
+        assertEquals(1, registry.dirtyCount());
+
+        stored.failWrites = false;
+        assertEquals(1, registry.flush());
+        assertEquals("white", stored.storedGame(gameID).whiteUsername());
+    }
+
+    @Test
+    @DisplayName("Unknown Games Are Not Updated")
+    public void unknownGame() {
+        assertThrows(DataAccessException.class,
+                () -> registry.updateGame(new GameData(99, null, null, "missing", new ChessGame())));
+        assertEquals(0, registry.dirtyCount());
+    }
+
+    @Test
+    @DisplayName("Close Honours The Shutdown Mode")
+    public void shutdownModes() throws DataAccessException {
+        int gameID = registry.createGame("token", "durable");
+        registry.updateGame(new GameData(gameID, "white", null, "durable", new ChessGame()));
+        registry.close();
+        assertEquals("white", stored.storedGame(gameID).whiteUsername());
+        assertThrows(DataAccessException.class,
+                () -> registry.updateGame(new GameData(gameID, null, null, "durable", new ChessGame())));
+
+        LiveGameRegistry discarding = new LiveGameRegistry(stored, NEVER, LiveGameRegistry.ShutdownMode.DISCARD);
+        discarding.updateGame(new GameData(gameID, "someone else", null, "durable", new ChessGame()));
+        discarding.close();
+        assertEquals("white", stored.storedGame(gameID).whiteUsername());
+    }
+
+    @Test
+    @DisplayName("Background Flush Runs On Its Interval")
+    public void backgroundFlush() throws DataAccessException, InterruptedException {
+        LiveGameRegistry quick = new LiveGameRegistry(stored, 10, LiveGameRegistry.ShutdownMode.DISCARD);
+        int gameID = quick.createGame("token", "quick");
+        quick.updateGame(new GameData(gameID, "white", null, "quick", new ChessGame()));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (quick.dirtyCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        quick.close();
+        assertEquals("white", stored.storedGame(gameID).whiteUsername());
+    }
+
+    // counts what reaches the "database"
+    private static class CountingGameDAO extends MemoryGameDAO {
+        int reads;
+        int writes;
+        int batches;
+        volatile boolean failWrites;
+
+        @Override
+        public GameData getGameByID(int gameID) throws DataAccessException {
+            reads++;
+            for (GameData game : super.getAllGames()) {
+                if (game.gameID() == gameID) {
+                    return game;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public synchronized void updateGame(GameData gameData) throws DataAccessException {
+            if (failWrites) {
+                throw new DataAccessException("Database unavailable");
+            }
+            writes++;
+            super.updateGame(gameData);
+        }
+
+        @Override
+        public synchronized void updateGames(Collection<GameData> games) throws DataAccessException {
+            batches++;
+            super.updateGames(games);
+        }
+
+        synchronized GameData storedGame(int gameID) {
+            List<GameData> games = new ArrayList<>(super.getAllGames());
+            for (GameData game : games) {
+                if (game.gameID() == gameID) {
+                    return game;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package server;
+
+import org.junit.jupiter.api.*;
+import spark.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadPoolTest {
+    private Service service;
+
+    @AfterEach
+    public void tearDown() {
+        if (service != null) {
+            service.stop();
+            service.awaitStop();
+        }
+        Server.useThreadMode(Server.ThreadMode.PLATFORM);
+    }
+
+    @Test
+    @DisplayName("Requests Run On Virtual Threads")
+    public void virtualRequests() throws Exception {
+        Server.useThreadMode(Server.ThreadMode.VIRTUAL);
+        service = Service.ignite().port(0);
+        service.get("/thread", (req, res) -> Thread.currentThread().isVirtual() ? "virtual" : "platform");
+        service.awaitInitialization();
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(request("/thread"), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals("virtual", response.body());
+    }
+
+    @Test
+    @DisplayName("Blocked Requests Do Not Cap Concurrency")
+    public void manyBlockedRequests() throws Exception {
+        // more requests parked at once than Jetty's platform pool has threads
+        int requests = 300;
+        CountDownLatch allArrived = new CountDownLatch(requests);
+        Server.useThreadMode(Server.ThreadMode.VIRTUAL);
+        service = Service.ignite().port(0);
+        service.get("/block", (req, res) -> {
+            allArrived.countDown();
+            return allArrived.await(20, TimeUnit.SECONDS) ? "released" : "timed out";
+        });
+        service.awaitInitialization();
+
+        HttpClient client = HttpClient.newHttpClient();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            responses.add(client.sendAsync(request("/block"), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals("released", response.get(30, TimeUnit.SECONDS).body());
+        }
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + service.port() + path)).build();
+    }
+}
@@ -1,5 +1,10 @@
 package service;
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.book.BookBuilder;
+import chess.book.BookMove;
+import chess.book.PolyglotBook;
 import dataaccess.AuthDAO;
 import dataaccess.DataAccessException;
 import dataaccess.UserDAO;
@@ -10,6 +15,8 @@ import org.junit.jupiter.api.*;
 import model.users.UserData;
 import org.mindrot.jbcrypt.BCrypt;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -324,6 +331,67 @@ public class ServiceUnitTests {
         assertTrue(games.isEmpty(), "games should remain empty");
     }
 
+    @Test
+    @Order(17)
+    @DisplayName("valid book hint")
+    public void validBookHint() throws Exception {
+        AuthData authData = userService.login(existingUser);
+        String authToken = authData.authToken();
+        int gameID = gameService.createGame(authToken, "TestGame");
+
+        // no book configured, so no hints
+        assertTrue(gameService.getBookMoves(authToken, gameID).isEmpty(), "hints should be empty without a book");
+
+        ChessMove e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        BookBuilder builder = new BookBuilder();
+        builder.add(new ChessGame(), e4, 1);
+        Path bookPath = Files.createTempFile("book", ".bin");
+        try {
+            builder.write(bookPath);
+            gameService.setOpeningBook(PolyglotBook.open(bookPath));
+
+            List<BookMove> hints = gameService.getBookMoves(authToken, gameID);
+            assertEquals(1, hints.size(), "the starting position should have one book move");
+            assertEquals(e4, hints.get(0).move(), "the book move should be e4");
+        } finally {
+            gameService.setOpeningBook(null);
+            Files.deleteIfExists(bookPath);
+        }
+    }
+
+    @Test
+    @Order(18)
+    @DisplayName("invalid book hint - bad token")
+    public void invalidBookHint() {
+        assertThrows(DataAccessException.class, () -> gameService.getBookMoves("badToken", 1),
+                "Should throw DataAccessException for bad token");
+    }
+
+    @Test
+    @Order(19)
+    @DisplayName("valid pgn export")
+    public void validPgn() throws Exception {
+        AuthData authData = userService.login(existingUser);
+        String authToken = authData.authToken();
+        int gameID = gameService.createGame(authToken, "TestGame");
+        gameService.joinGame(authToken, gameID, ChessGame.TeamColor.WHITE);
+        gameService.makeMove(gameID, new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null),
+                existingUser.username(), ChessGame.TeamColor.WHITE);
+
+        String pgn = gameService.getPgn(authToken, gameID);
+        assertTrue(pgn.contains("[Event \"TestGame\"]"), "the game name should be the event");
+        assertTrue(pgn.contains("[White \"" + existingUser.username() + "\"]"), "white should be named");
+        assertTrue(pgn.contains("1. e4 *"), "the move should be in the movetext");
+    }
+
+    @Test
+    @Order(20)
+    @DisplayName("invalid pgn export - bad token")
+    public void invalidPgn() {
+        assertThrows(DataAccessException.class, () -> gameService.getPgn("badToken", 1),
+                "Should throw DataAccessException for bad token");
+    }
+
     // setup stuff for local storage.
     private static class UserDAOUnitTest implements UserDAO {
         private final HashSet<UserData> userStorageUnitTest = new HashSet<>();
@@ -5,15 +5,68 @@ package chess;
  * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
+ * <p>
+ * Pieces are stored as 64-bit bitboards, one per color and piece type (see
+ * ChessPiece.index), plus occupancy masks per color and for the whole board.
+ * Bit n is set when square n (ChessPosition.toSquare) holds that piece.
+ * <p>
+ * The board also keeps the placement part of the position's Zobrist key, updated
+ * by every addPiece and removePiece, so hashCode does not have to look at the pieces.
+ * The material and piece-square sums behind getEvaluation (see PieceSquareTables) are
+ * kept the same way, so evaluating a position does not look at the pieces either.
  */
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.Objects;
 
+@JsonAdapter(ChessBoard.JsonForm.class)
 public class ChessBoard {
 
-    private ChessPiece[][] board;
+    private long[] pieceBitboards;
+    private long[] colorBitboards;
+    private long occupied;
+
+    private transient long zobristKey;
+    // white-minus-black PieceSquareTables sums and the phase of the material on the board
+    private transient int midgameScore;
+    private transient int endgameScore;
+    private transient int phase;
+    // the bitboard array the fields above were built for; Gson swaps in a new array, which marks them stale
+    private transient long[] keyedBitboards;
+
     public ChessBoard() {
-        board = new ChessPiece[8][8];
+        pieceBitboards = new long[12];
+        colorBitboards = new long[2];
+        occupied = 0L;
+        zobristKey = 0L;
+        keyedBitboards = pieceBitboards;
+    }
+
+    /**
+     * Copies another board, so the copy can be changed without touching the original
+     *
+     * @param other the board to copy
+     */
+    public ChessBoard(ChessBoard other) {
+        pieceBitboards = other.pieceBitboards.clone();
+        colorBitboards = other.colorBitboards.clone();
+        occupied = other.occupied;
+        zobristKey = other.getZobristKey();
+        midgameScore = other.midgameScore;
+        endgameScore = other.endgameScore;
+        phase = other.phase;
+        keyedBitboards = pieceBitboards;
     }
 
     /**
@@ -23,7 +76,50 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        board[position.getRow()-1][position.getColumn()-1] = piece;
+        addPiece(position.toSquare(), piece);
+    }
+
+    /**
+     * Adds a chess piece to the chessboard, replacing whatever was on the square
+     *
+     * @param square where to add the piece to, 0 (a1) through 63 (h8)
+     * @param piece  the piece to add, or null to empty the square
+     */
+    public void addPiece(int square, ChessPiece piece) {
+        long mask = 1L << square;
+        if ((occupied & mask) != 0) {
+            removePiece(square);
+        }
+        if (piece != null) {
+            int index = piece.index();
+            pieceBitboards[index] |= mask;
+            colorBitboards[piece.getTeamColor().ordinal()] |= mask;
+            occupied |= mask;
+            zobristKey ^= Zobrist.piece(index, square);
+            midgameScore += PieceSquareTables.midgame(index, square);
+            endgameScore += PieceSquareTables.endgame(index, square);
+            phase += PieceSquareTables.phase(index);
+        }
+    }
+
+    /**
+     * Empties a square on the chessboard
+     *
+     * @param square the square to clear, 0 (a1) through 63 (h8)
+     */
+    public void removePiece(int square) {
+        int index = pieceIndexAt(square);
+        if (index < 0) {
+            return;
+        }
+        long clear = ~(1L << square);
+        pieceBitboards[index] &= clear;
+        colorBitboards[index / 6] &= clear;
+        occupied &= clear;
+        zobristKey ^= Zobrist.piece(index, square);
+        midgameScore -= PieceSquareTables.midgame(index, square);
+        endgameScore -= PieceSquareTables.endgame(index, square);
+        phase -= PieceSquareTables.phase(index);
     }
 
     /**
@@ -34,7 +130,127 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return board[position.getRow()-1][position.getColumn()-1];
+        return getPiece(position.toSquare());
+    }
+
+    /**
+     * Gets a chess piece on the chessboard
+     *
+     * @param square the square to get the piece from, 0 (a1) through 63 (h8)
+     * @return Either the shared piece instance at the square, or null if it is empty
+     */
+    public ChessPiece getPiece(int square) {
+        int index = pieceIndexAt(square);
+        return index < 0 ? null : ChessPiece.fromIndex(index);
+    }
+
+    /**
+     * @return the ChessPiece.index of the piece on the square, or -1 if it is empty
+     */
+    public int pieceIndexAt(int square) {
+        long mask = 1L << square;
+        if ((occupied & mask) == 0) {
+            return -1;
+        }
+        int first = (colorBitboards[0] & mask) != 0 ? 0 : 6;
+        for (int index = first; index < first + 6; index++) {
+            if ((pieceBitboards[index] & mask) != 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return bitboard of every piece of the given color and type
+     */
+    public long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieceBitboards[ChessPiece.index(color, type)];
+    }
+
+    /**
+     * @return bitboard of every piece with the given ChessPiece.index
+     */
+    public long getPieces(int index) {
+        return pieceBitboards[index];
+    }
+
+    /**
+     * @return bitboard of every piece belonging to the given team
+     */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        return colorBitboards[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long getOccupancy() {
+        return occupied;
+    }
+
+    /**
+     * Gets where a team's king stands. The king bitboard is updated by every
+     * addPiece, so this is a single bit scan rather than a board search.
+     *
+     * @return the king's square, or -1 if the team has no king on the board
+     */
+    public int getKingSquare(ChessGame.TeamColor color) {
+        long king = pieceBitboards[ChessPiece.index(color, ChessPiece.PieceType.KING)];
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Gets the placement part of the Zobrist key: the XOR of Zobrist.piece for every
+     * piece on the board. It is kept up to date by addPiece and removePiece, and only
+     * recomputed when the board was filled in some other way, e.g. by Gson.
+     *
+     * @return the 64-bit key for the pieces on this board
+     */
+    public long getZobristKey() {
+        rebuildIfStale();
+        return zobristKey;
+    }
+
+    /**
+     * Gets the tapered material and piece-square score of the pieces on this board.
+     * Like the Zobrist key it is kept up to date by addPiece and removePiece, so this
+     * is a few arithmetic operations rather than a pass over the board.
+     *
+     * @return the score in centipawns, positive when white is ahead
+     */
+    public int getEvaluation() {
+        rebuildIfStale();
+        return PieceSquareTables.taper(midgameScore, endgameScore, phase);
+    }
+
+    /**
+     * @return the game phase of the material on the board, PieceSquareTables.MAX_PHASE
+     * at the start and 0 with only kings and pawns left
+     */
+    public int getPhase() {
+        rebuildIfStale();
+        return Math.min(phase, PieceSquareTables.MAX_PHASE);
+    }
+
+    // recomputes the incremental fields when the board was filled in some other way, e.g. by Gson
+    private void rebuildIfStale() {
+        if (keyedBitboards == pieceBitboards) {
+            return;
+        }
+        zobristKey = Zobrist.placement(this);
+        midgameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        for (int index = 0; index < 12; index++) {
+            for (long pieces = pieceBitboards[index]; pieces != 0; pieces &= pieces - 1) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                midgameScore += PieceSquareTables.midgame(index, square);
+                endgameScore += PieceSquareTables.endgame(index, square);
+                phase += PieceSquareTables.phase(index);
+            }
+        }
+        keyedBitboards = pieceBitboards;
     }
 
     /**
@@ -43,7 +259,14 @@ public class ChessBoard {
      */
     public void resetBoard() {
         // clear existing board
-        board = new ChessPiece[8][8];
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(colorBitboards, 0L);
+        occupied = 0L;
+        zobristKey = 0L;
+        midgameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        keyedBitboards = pieceBitboards;
 
         // set black and white pawns
         for (int column = 1; column <= 8; column++) {
@@ -78,18 +301,107 @@ public class ChessBoard {
         addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
     }
 
+    /**
+     * Reads a board from the piece-placement field of a FEN record, e.g.
+     * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR". Anything after the first space
+     * (the rest of a full FEN record) is ignored.
+     *
+     * @throws IllegalArgumentException if the placement is malformed
+     */
+    public static ChessBoard fromFen(CharSequence fen) {
+        ChessBoard board = new ChessBoard();
+        board.readFen(fen, 0);
+        return board;
+    }
+
+    /**
+     * Fills this empty board from the placement field of a FEN record, scanning the
+     * characters once and adding each piece straight to its bitboard
+     *
+     * @param start index of the field's first character
+     * @return the index just past the field
+     */
+    int readFen(CharSequence fen, int start) {
+        int row = 7;
+        int column = 0;
+        int i = start;
+        for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (column != 8 || row == 0) {
+                    throw Fen.malformed(fen, i, "rank of " + column + " squares");
+                }
+                row--;
+                column = 0;
+            } else if (c >= '1' && c <= '8') {
+                column += c - '0';
+                if (column > 8) {
+                    throw Fen.malformed(fen, i, "rank of more than 8 squares");
+                }
+            } else {
+                int index = Fen.pieceIndex(c);
+                if (index < 0) {
+                    throw Fen.malformed(fen, i, "unknown piece '" + c + "'");
+                }
+                if (column == 8) {
+                    throw Fen.malformed(fen, i, "rank of more than 8 squares");
+                }
+                addPiece(row * 8 + column, ChessPiece.fromIndex(index));
+                column++;
+            }
+        }
+        if (row != 0 || column != 8) {
+            throw Fen.malformed(fen, i, "placement that does not cover 8 ranks of 8 squares");
+        }
+        return i;
+    }
+
+    /**
+     * @return the piece-placement field of a FEN record for this board
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(72);
+        appendFen(fen);
+        return fen.toString();
+    }
+
+    void appendFen(StringBuilder fen) {
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int square = row * 8; square < row * 8 + 8; square++) {
+                int index = pieceIndexAt(square);
+                if (index < 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                fen.append(Fen.pieceChar(index));
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(board, that.board);
+        // different keys always mean different boards, so most unequal boards stop here
+        return getZobristKey() == that.getZobristKey() && Arrays.equals(pieceBitboards, that.pieceBitboards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return Long.hashCode(getZobristKey());
     }
 
     @Override
@@ -100,7 +412,7 @@ public class ChessBoard {
         for (int row = 7; row >= 0; row--) {
             sb.append((row + 1)).append(" ");
             for (int col = 0; col < 8; col++) {
-                ChessPiece piece = board[row][col];
+                ChessPiece piece = getPiece(row * 8 + col);
                 if (piece == null) {
                     sb.append(".  ");
                 } else {
@@ -128,4 +440,75 @@ public class ChessBoard {
         return piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toString(symbol) :
                 Character.toString(Character.toLowerCase(symbol));
     }
+
+    /**
+     * Reads a board from the ChessPiece[8][8] grid that boards were stored as before
+     * they were bitboards: "board" holds eight rows, rank 1 first, of eight squares,
+     * file a first, each null or a piece with a teamColor and pieceType.
+     *
+     * @param grid the "board" array
+     * @return the board the grid describes
+     * @throws JsonParseException if the grid is not 8 by 8 or holds something other than pieces
+     */
+    public static ChessBoard fromGrid(JsonArray grid) {
+        if (grid.size() != 8) {
+            throw new JsonParseException("Board grid has " + grid.size() + " rows, not 8");
+        }
+        ChessBoard board = new ChessBoard();
+        for (int row = 0; row < 8; row++) {
+            if (!grid.get(row).isJsonArray() || grid.get(row).getAsJsonArray().size() != 8) {
+                throw new JsonParseException("Board grid row " + (row + 1) + " is not 8 squares");
+            }
+            JsonArray squares = grid.get(row).getAsJsonArray();
+            for (int col = 0; col < 8; col++) {
+                JsonElement square = squares.get(col);
+                if (!square.isJsonNull()) {
+                    board.addPiece(row * 8 + col, gridPiece(square));
+                }
+            }
+        }
+        return board;
+    }
+
+    private static ChessPiece gridPiece(JsonElement square) {
+        if (square.isJsonObject()) {
+            JsonObject piece = square.getAsJsonObject();
+            JsonElement color = piece.get("teamColor");
+            JsonElement type = piece.get("pieceType");
+            if (color != null && color.isJsonPrimitive() && type != null && type.isJsonPrimitive()) {
+                try {
+                    return ChessPiece.of(ChessGame.TeamColor.valueOf(color.getAsString()),
+                            ChessPiece.PieceType.valueOf(type.getAsString()));
+                } catch (IllegalArgumentException e) {
+                    // reported below
+                }
+            }
+        }
+        throw new JsonParseException("Board grid square is not a piece: " + square);
+    }
+
+    // writes the bitboard fields; reads them or the grid form older versions wrote
+    static final class JsonForm implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            TypeAdapter<ChessBoard> bitboards = gson.getDelegateAdapter(this, TypeToken.get(ChessBoard.class));
+            TypeAdapter<JsonElement> tree = gson.getAdapter(JsonElement.class);
+            return (TypeAdapter<T>) new TypeAdapter<ChessBoard>() {
+                @Override
+                public void write(JsonWriter out, ChessBoard board) throws IOException {
+                    bitboards.write(out, board);
+                }
+
+                @Override
+                public ChessBoard read(JsonReader in) throws IOException {
+                    JsonElement json = tree.read(in);
+                    if (json.isJsonObject() && json.getAsJsonObject().get("board") instanceof JsonArray grid) {
+                        return fromGrid(grid);
+                    }
+                    return bitboards.fromJsonTree(json);
+                }
+            };
+        }
+    }
 }
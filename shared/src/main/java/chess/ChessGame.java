@@ -1,5 +1,15 @@
 package chess;
 
+import chess.book.BookMove;
+import chess.book.PolyglotBook;
+import chess.movecalculations.Bitboards;
+import chess.movecalculations.CastlingRights;
+import chess.movecalculations.LegalMoveGenerator;
+import chess.movecalculations.Move;
+import chess.movecalculations.MoveList;
+import chess.tablebase.TablebaseResult;
+import chess.tablebase.Tablebases;
+
 import java.util.*;
 
 /**
@@ -13,11 +23,212 @@ public class ChessGame {
     private ChessBoard board;
     private TeamColor teamTurn;
     private boolean resigned = false;
+    // CastlingRights bitmask, and the square behind a pawn that just moved two squares if an enemy pawn can take it (-1 if none)
+    private int castlingRights;
+    private byte enPassantSquare;
+    // plies since the last capture or pawn move, and the number of the move white plays next (as in FEN)
+    private int halfmoveClock = 0;
+    private int fullmoveNumber = 1;
+    private MoveHistory history = new MoveHistory();
+
+    // scratch state reused by move generation so the hot path does not allocate
+    private final transient LegalMoveGenerator legalMoveGenerator = new LegalMoveGenerator();
+    private final transient MoveList legalMoves = new MoveList();
+
+    // one entry per move played with doMove: the move, what it captured and the rights
+    // it replaced, and the position key before the move, so undoMove can restore the
+    // position exactly
+    private transient long[] undoRecords = new long[UNDO_CAPACITY];
+    private transient long[] undoKeys = new long[UNDO_CAPACITY];
+    private transient int undoSize = 0;
+
+    // status of the team to move, valid while the position key still equals statusKey
+    private transient GameStatus cachedStatus = null;
+    private transient long statusKey;
+
+    private static final int UNDO_CAPACITY = 128;
+    private static final int CAPTURED_SHIFT = 20;
+    private static final int CASTLING_SHIFT = 24;
+    private static final int EN_PASSANT_SHIFT = 28;
+    private static final int HALFMOVE_SHIFT = 35;
+    private static final int MAX_HALFMOVE_CLOCK = 0xFF;
+
+    /**
+     * The FEN record of the starting position
+     */
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
 
     public ChessGame() {
         teamTurn = TeamColor.WHITE;
         board = new ChessBoard();
         board.resetBoard();
+        castlingRights = CastlingRights.ALL;
+        enPassantSquare = -1;
+    }
+
+    /**
+     * Copies another game's position, turn, castling and en-passant rights, resigned
+     * flag and MoveHistory, e.g. to hand a game to another thread. The undo stack is not
+     * copied, so the copy cannot undo moves made before it was taken.
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        board = new ChessBoard(other.board);
+        teamTurn = other.teamTurn;
+        resigned = other.resigned;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        history = new MoveHistory(other.history);
+    }
+
+    // a game on an already filled board, for fromFen
+    private ChessGame(ChessBoard board, TeamColor teamTurn) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+        enPassantSquare = -1;
+    }
+
+    // a game on an already filled board with the rest of its state already checked, for GameCodec
+    ChessGame(ChessBoard board, TeamColor teamTurn, int castlingRights, int enPassantSquare,
+              int halfmoveClock, int fullmoveNumber, boolean resigned, MoveHistory history) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = (byte) enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.resigned = resigned;
+        this.history = history;
+    }
+
+    /**
+     * Reads a game from a FEN record, e.g. {@value #START_FEN}. The record is scanned
+     * once, character by character, and the pieces go straight onto the board's
+     * bitboards. The two move counters may be left off, as in EPD, and default to 0
+     * and 1. Castling rights whose king or rook has left its home square are dropped,
+     * and an en-passant square is kept only if a pawn can actually capture onto it, so
+     * the game's Zobrist key matches the same position reached by playing moves.
+     *
+     * @param fen the record to read
+     * @return a game in that position, with no moves to undo
+     * @throws IllegalArgumentException if the record is malformed
+     */
+    public static ChessGame fromFen(CharSequence fen) {
+        ChessBoard board = new ChessBoard();
+        int i = expectSpace(fen, board.readFen(fen, 0));
+        char side = i < fen.length() ? fen.charAt(i) : ' ';
+        if (side != 'w' && side != 'b') {
+            throw Fen.malformed(fen, i, "side to move is not 'w' or 'b'");
+        }
+        ChessGame game = new ChessGame(board, side == 'w' ? TeamColor.WHITE : TeamColor.BLACK);
+        i = expectSpace(fen, i + 1);
+
+        int rights = CastlingRights.NONE;
+        if (i < fen.length() && fen.charAt(i) == '-') {
+            i++;
+        } else {
+            int first = i;
+            for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+                rights |= switch (fen.charAt(i)) {
+                    case 'K' -> CastlingRights.WHITE_KINGSIDE;
+                    case 'Q' -> CastlingRights.WHITE_QUEENSIDE;
+                    case 'k' -> CastlingRights.BLACK_KINGSIDE;
+                    case 'q' -> CastlingRights.BLACK_QUEENSIDE;
+                    default -> throw Fen.malformed(fen, i, "unknown castling right '" + fen.charAt(i) + "'");
+                };
+            }
+            if (i == first) {
+                throw Fen.malformed(fen, i, "castling field is empty");
+            }
+        }
+        game.castlingRights = rights & CastlingRights.fromBoard(board);
+        i = expectSpace(fen, i);
+
+        if (i < fen.length() && fen.charAt(i) == '-') {
+            i++;
+        } else {
+            char file = i < fen.length() ? fen.charAt(i) : ' ';
+            char rank = i + 1 < fen.length() ? fen.charAt(i + 1) : ' ';
+            int capturing = game.teamTurn == TeamColor.WHITE ? '6' : '3';
+            if (file < 'a' || file > 'h' || rank != capturing) {
+                throw Fen.malformed(fen, i, "en-passant square is not '-' or a square on rank " + (char) capturing);
+            }
+            int square = (rank - '1') * 8 + (file - 'a');
+            // a pawn of the side to move stands where an enemy pawn would attack the square from
+            TeamColor passed = opponent(game.teamTurn);
+            if ((Bitboards.pawnAttacks(passed, square) & board.getPieces(game.teamTurn, ChessPiece.PieceType.PAWN)) != 0) {
+                game.enPassantSquare = (byte) square;
+            }
+            i += 2;
+        }
+
+        if (i < fen.length()) {
+            i = expectSpace(fen, i);
+            int start = i;
+            int halfmoves = 0;
+            for (; i < fen.length() && fen.charAt(i) >= '0' && fen.charAt(i) <= '9' && i - start < 4; i++) {
+                halfmoves = halfmoves * 10 + fen.charAt(i) - '0';
+            }
+            i = expectSpace(fen, i == start ? -1 : i);
+            start = i;
+            int fullmoves = 0;
+            for (; i < fen.length() && fen.charAt(i) >= '0' && fen.charAt(i) <= '9' && i - start < 5; i++) {
+                fullmoves = fullmoves * 10 + fen.charAt(i) - '0';
+            }
+            if (i == start || i != fen.length() || fullmoves == 0) {
+                throw Fen.malformed(fen, i, "move counters are not two numbers");
+            }
+            game.halfmoveClock = halfmoves;
+            game.fullmoveNumber = fullmoves;
+        }
+        return game;
+    }
+
+    // checks that the character at i separates two fields, and returns the index of the next field
+    private static int expectSpace(CharSequence fen, int i) {
+        if (i < 0 || i >= fen.length() || fen.charAt(i) != ' ') {
+            throw Fen.malformed(fen, Math.max(i, 0), "expected a space between fields");
+        }
+        return i + 1;
+    }
+
+    /**
+     * Writes the game as a FEN record. The en-passant field names a square only when a
+     * pawn can capture onto it (see getEnPassantSquare), as several engines also do.
+     *
+     * @return the six-field FEN record of the current position
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        board.appendFen(fen);
+        fen.append(' ').append(teamTurn == TeamColor.WHITE ? 'w' : 'b').append(' ');
+        if (castlingRights == CastlingRights.NONE) {
+            fen.append('-');
+        } else {
+            if ((castlingRights & CastlingRights.WHITE_KINGSIDE) != 0) {
+                fen.append('K');
+            }
+            if ((castlingRights & CastlingRights.WHITE_QUEENSIDE) != 0) {
+                fen.append('Q');
+            }
+            if ((castlingRights & CastlingRights.BLACK_KINGSIDE) != 0) {
+                fen.append('k');
+            }
+            if ((castlingRights & CastlingRights.BLACK_QUEENSIDE) != 0) {
+                fen.append('q');
+            }
+        }
+        fen.append(' ');
+        if (enPassantSquare < 0) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + (enPassantSquare & 7))).append((char) ('1' + (enPassantSquare >> 3)));
+        }
+        fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return fen.toString();
     }
 
     /**
@@ -34,6 +245,7 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         teamTurn = team;
+        history.restart();
     }
 
     /**
@@ -43,6 +255,21 @@ public class ChessGame {
         WHITE,
         BLACK
     }
+
+    /**
+     * Where the game stands for the team whose turn it is
+     */
+    public enum GameStatus {
+        ONGOING,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        RESIGNED;
+
+        public boolean isGameOver() {
+            return this == CHECKMATE || this == STALEMATE || this == RESIGNED;
+        }
+    }
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -51,37 +278,52 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        ChessPiece currentPiece = board.getPiece(startPosition);
-
-        if (currentPiece == null) {
+        ChessPiece piece = board.getPiece(startPosition);
+        if (piece == null) {
             return Collections.emptySet();
         }
-        // get all moves for the piece at the position
-        Collection<ChessMove> possibleMoves = currentPiece.pieceMoves(board, startPosition);
-
-        // hash set to store all the valid moves.
-        HashSet<ChessMove> validMoves = new HashSet<>();
-
-        // loop through all possible moves and checks if they put the king in check.
-        for (ChessMove move : possibleMoves) {
-            ChessPiece temporaryPiece = board.getPiece(move.getEndPosition());
-            // this places the piece at the new position to simulate a move.
-            board.addPiece(move.getEndPosition(), currentPiece);
-
-            // this removes the current piece from the old position on the board, to simulate a move
-            board.addPiece(startPosition, null);
-
-            // now that we have fully simulated a move, we need to check if our king is in check
-            if (!isInCheck(currentPiece.getTeamColor())) { // param is our team color.
-                validMoves.add(move);
+        int square = startPosition.toSquare();
+        legalMoves.clear();
+        if (piece.getTeamColor() != teamTurn) {
+            validMoves(square, legalMoves);
+            return legalMoves.toChessMoves();
+        }
+        // the team to move's moves are usually in the shared cache already
+        teamToMoveMoves(legalMoves);
+        Set<ChessMove> moves = new HashSet<>();
+        for (int i = 0; i < legalMoves.size(); i++) {
+            if (Move.from(legalMoves.get(i)) == square) {
+                moves.add(Move.toChessMove(legalMoves.get(i)));
             }
-
-            // now we need to reset the board and do the next move.
-            board.addPiece(move.getEndPosition(), temporaryPiece);
-            board.addPiece(startPosition, currentPiece);
         }
-        return validMoves;
+        return moves;
+    }
+
+    /**
+     * Appends the valid moves for the piece on a square to a caller-supplied buffer,
+     * encoded with Move. Nothing is allocated and the shared PositionCache is not
+     * consulted, so this is the path to use in search loops.
+     *
+     * @param square the square of the piece to get valid moves for
+     * @param moves  buffer the valid moves are appended to
+     */
+    public void validMoves(int square, MoveList moves) {
+        // pins and checks are worked out up front, so no candidate move is tried on the board
+        legalMoveGenerator.generate(board, square, castlingRights, enPassantSquare, moves);
+    }
+
+    /**
+     * Appends every valid move for a team to a caller-supplied buffer, encoded with Move.
+     * Like validMoves(int, MoveList) this always generates and bypasses the PositionCache,
+     * so searches do not flood it with positions no game will reach.
+     *
+     * @param teamColor the team to get valid moves for
+     * @param moves     buffer the valid moves are appended to
+     */
+    public void validMoves(TeamColor teamColor, MoveList moves) {
+        legalMoveGenerator.generate(board, teamColor, castlingRights, enPassantSquare, moves);
     }
+
     /**
      * Makes a move in a chess game
      *
@@ -89,34 +331,25 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-
-        ChessPosition piecePosition = move.getStartPosition();
+        int from = move.getStartPosition().toSquare();
+        ChessPiece pieceToMove = board.getPiece(from);
 
         // checks if the starting position has piece
-         if (board.getPiece(piecePosition) == null) {
-             throw new InvalidMoveException();
-         }
-
-        boolean teamTurn = getTeamTurn() == board.getPiece(piecePosition).getTeamColor();
-        Collection<ChessMove> validMoves = validMoves(piecePosition);
+        if (pieceToMove == null) {
+            throw new InvalidMoveException();
+        }
 
-        if (validMoves.isEmpty()) {
+        if (getTeamTurn() != pieceToMove.getTeamColor()) {
             throw new InvalidMoveException("There are no more moves to make");
         }
+        legalMoves.clear();
+        teamToMoveMoves(legalMoves);
 
-        boolean isValidMove = validMoves.contains(move);
+        // the generated move carries the flags (capture, castle, en passant, ...) that doMove needs
+        int validMove = legalMoves.find(Move.fromChessMove(move));
 
-        if (isValidMove && teamTurn){
-            ChessPiece pieceToMove = board.getPiece(piecePosition);
-            if (move.getPromotionPiece() != null){
-                pieceToMove = new ChessPiece(pieceToMove.getTeamColor(), move.getPromotionPiece());
-            }
-
-            // move the piece
-            board.addPiece(move.getEndPosition(), pieceToMove);
-            // remove the old piece
-            board.addPiece(move.getStartPosition(), null);
-            setTeamTurn(getTeamTurn() == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE);
+        if (validMove != Move.NONE){
+            doMove(validMove);
         } else {
             throw new InvalidMoveException("There are no more moves to make");
         }
@@ -129,55 +362,161 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = null;
-        // compare enemy moves to king position at the end
-        List<ChessMove> enemyMoves = new ArrayList<>();
-
-        // first find the king and enemy pieces
-        for (int row = 1; row <= 8; row++) {
-            for (int column = 1; column <= 8; column++) {
-                ChessPiece pieceAtNewPosition = board.getPiece(new ChessPosition(row, column));
-                // piece has been encountered
-                if (pieceAtNewPosition != null) {
-                    // found king
-                    if (pieceAtNewPosition.getTeamColor() == teamColor && ChessPiece.PieceType.KING == pieceAtNewPosition.getPieceType()) {
-                        kingPosition = new ChessPosition(row, column);
-
-                    // enemy piece has been encountered
-                    } else if (pieceAtNewPosition.getTeamColor() != teamColor) {
-                        ChessPiece enemyPiece = board.getPiece(new ChessPosition(row, column));
-                        ChessPosition enemyPosition = new ChessPosition(row, column);
-                        // add its moves.
-                        enemyMoves.addAll(enemyPiece.pieceMoves(board, enemyPosition));
-                    }
-                }
-            }
+        int kingSquare = board.getKingSquare(teamColor);
+        if (kingSquare < 0) {
+            return false;
+        }
+        // the king is in check if any enemy piece attacks its square
+        return Bitboards.isSquareAttacked(board, kingSquare, opponent(teamColor));
+    }
+
+    /**
+     * Plays a move and passes the turn, recording what undoMove needs to take it back.
+     * The move is not checked, so it must come from validMoves for the team to move;
+     * makeMove is the checked version. Castling also moves the rook, en passant removes
+     * the pawn that was passed, and the castling rights and en-passant square are updated.
+     *
+     * @param move a legal move encoded with Move
+     */
+    public void doMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece moving = board.getPiece(from);
+        TeamColor color = moving.getTeamColor();
+        int capturedSquare = Move.hasFlag(move, Move.EN_PASSANT) ? passedPawnSquare(to, color) : to;
+        int captured = board.pieceIndexAt(capturedSquare);
+
+        if (undoSize == undoRecords.length) {
+            undoRecords = Arrays.copyOf(undoRecords, undoSize * 2);
+            undoKeys = Arrays.copyOf(undoKeys, undoSize * 2);
+        }
+        undoRecords[undoSize] = (move & 0xFFFFFL)
+                | ((long) (captured + 1) << CAPTURED_SHIFT)
+                | ((long) castlingRights << CASTLING_SHIFT)
+                | ((long) (enPassantSquare + 1) << EN_PASSANT_SHIFT)
+                | ((long) Math.min(halfmoveClock, MAX_HALFMOVE_CLOCK) << HALFMOVE_SHIFT);
+        undoKeys[undoSize] = getZobristKey();
+        undoSize++;
+        history.add(this, move);
+
+        if (capturedSquare != to) {
+            board.removePiece(capturedSquare);
+        }
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        board.addPiece(to, promotion == null ? moving : ChessPiece.of(color, promotion));
+        board.addPiece(from, null);
+        if (Move.hasFlag(move, Move.CASTLE)) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = (from + to) / 2;
+            board.addPiece(rookTo, board.getPiece(rookFrom));
+            board.addPiece(rookFrom, null);
         }
-        for (ChessMove move : enemyMoves) {
-            if (move.getEndPosition().equals(kingPosition)) {
-                return true;
+
+        castlingRights = CastlingRights.afterMove(castlingRights, from, to);
+        boolean irreversible = captured >= 0 || moving.getPieceType() == ChessPiece.PieceType.PAWN;
+        halfmoveClock = irreversible ? 0 : halfmoveClock + 1;
+        if (color == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        enPassantSquare = -1;
+        if (Move.hasFlag(move, Move.DOUBLE_PUSH)) {
+            int passed = (from + to) / 2;
+            // only remember the square if an enemy pawn is there to use it
+            if ((Bitboards.pawnAttacks(color, passed) & board.getPieces(opponent(color), ChessPiece.PieceType.PAWN)) != 0) {
+                enPassantSquare = (byte) passed;
             }
         }
+        teamTurn = opponent(teamTurn);
+    }
 
-        return false;
+    /**
+     * Takes back the last move played with doMove (or makeMove)
+     *
+     * @return the move that was taken back
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public int undoMove() {
+        if (undoSize == 0) {
+            throw new IllegalStateException("There is no move to undo");
+        }
+        undoSize--;
+        history.removeLast();
+        long record = undoRecords[undoSize];
+        int move = (int) (record & 0xFFFFFL);
+        int captured = (int) ((record >>> CAPTURED_SHIFT) & 0xF) - 1;
+        castlingRights = (int) ((record >>> CASTLING_SHIFT) & 0xF);
+        enPassantSquare = (byte) (((record >>> EN_PASSANT_SHIFT) & 0x7F) - 1);
+        halfmoveClock = (int) ((record >>> HALFMOVE_SHIFT) & MAX_HALFMOVE_CLOCK);
+
+        int from = Move.from(move);
+        int to = Move.to(move);
+        teamTurn = opponent(teamTurn);
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber--;
+        }
+        ChessPiece moved = board.getPiece(to);
+        if (Move.promotion(move) != null) {
+            moved = ChessPiece.of(moved.getTeamColor(), ChessPiece.PieceType.PAWN);
+        }
+        board.addPiece(from, moved);
+        board.addPiece(to, null);
+        if (Move.hasFlag(move, Move.CASTLE)) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = (from + to) / 2;
+            board.addPiece(rookFrom, board.getPiece(rookTo));
+            board.addPiece(rookTo, null);
+        }
+        if (captured >= 0) {
+            int capturedSquare = Move.hasFlag(move, Move.EN_PASSANT) ? passedPawnSquare(to, moved.getTeamColor()) : to;
+            board.addPiece(capturedSquare, ChessPiece.fromIndex(captured));
+        }
+        return move;
     }
 
-    private boolean noValidMoves(TeamColor teamColor) {
-        // iterates through board
-        for (int row = 1; row <= 8; row++) {
-            for (int column = 1; column <= 8; column++) {
-                // finds pieces and sees if they have valid moves.
-                ChessPiece pieceAtNewPosition = board.getPiece(new ChessPosition(row, column));
-                ChessPosition position = new ChessPosition(row, column);
-
-                if (pieceAtNewPosition != null && pieceAtNewPosition.getTeamColor() == teamColor) {
-                    if (!validMoves(position).isEmpty()) {
-                        return false;
-                    }
-                }
+    // where the pawn taken en passant stands: one row behind the capture square, seen from the capturing side
+    private static int passedPawnSquare(int enPassantSquare, TeamColor capturingColor) {
+        return capturingColor == TeamColor.WHITE ? enPassantSquare - 8 : enPassantSquare + 8;
+    }
+
+    /**
+     * @return the moves played in this game, kept across serialization, unlike the undo stack
+     */
+    public MoveHistory getMoveHistory() {
+        return history;
+    }
+
+    /**
+     * @return how many moves undoMove can take back
+     */
+    public int getUndoDepth() {
+        return undoSize;
+    }
+
+    /**
+     * Counts how often the current position has occurred before, by comparing its key
+     * with the keys recorded on the undo stack
+     *
+     * @return the number of earlier occurrences, 0 if the position is new
+     */
+    public int getRepetitionCount() {
+        long key = getZobristKey();
+        int count = 0;
+        // a position can only repeat with the same side to move, so step back two plies at a time
+        for (int i = undoSize - 2; i >= 0; i -= 2) {
+            if (undoKeys[i] == key) {
+                count++;
             }
         }
-        return true;
+        return count;
+    }
+
+    private boolean noValidMoves(TeamColor teamColor) {
+        // stops at the first piece that has a valid move
+        return !legalMoveGenerator.hasLegalMove(board, teamColor, enPassantSquare, legalMoves);
+    }
+
+    private static TeamColor opponent(TeamColor teamColor) {
+        return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
     /**
@@ -187,6 +526,9 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
+        if (teamColor == teamTurn) {
+            return positionStatus() == GameStatus.CHECKMATE;
+        }
         if (!isInCheck(teamColor)) {
             return false;
         }
@@ -202,6 +544,9 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
+        if (teamColor == teamTurn) {
+            return positionStatus() == GameStatus.STALEMATE;
+        }
         if (isInCheck(teamColor)) {
             return false;
         }
@@ -216,6 +561,13 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        // a new board has no history, so any king and rook on their home squares may castle
+        castlingRights = CastlingRights.fromBoard(board);
+        enPassantSquare = -1;
+        halfmoveClock = 0;
+        // the recorded moves belong to the old board
+        undoSize = 0;
+        history.clear();
     }
     /**
      * Gets the current chessboard
@@ -226,12 +578,198 @@ public class ChessGame {
         return board;
     }
 
+    /**
+     * Counts the leaf nodes of the legal move tree from the current position, for
+     * checking and benchmarking the move generator against published perft counts.
+     * The position is restored before this returns.
+     *
+     * @param depth how many plies to search
+     * @return number of move sequences of exactly that length
+     */
+    public long perft(int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        MoveList[] movesByPly = new MoveList[depth];
+        for (int ply = 0; ply < depth; ply++) {
+            movesByPly[ply] = new MoveList();
+        }
+        return perft(depth, movesByPly);
+    }
+
+    /**
+     * Perft split by root move ("divide"), for finding which subtree disagrees with
+     * a reference count.
+     *
+     * @param depth how many plies to search, including the root move
+     * @return subtree count per legal root move, in generation order
+     */
+    public Map<ChessMove, Long> perftDivide(int depth) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        if (depth <= 0) {
+            return counts;
+        }
+        MoveList rootMoves = new MoveList();
+        validMoves(teamTurn, rootMoves);
+        MoveList[] movesByPly = new MoveList[depth];
+        for (int ply = 0; ply < depth; ply++) {
+            movesByPly[ply] = new MoveList();
+        }
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            doMove(move);
+            long count = perft(depth - 1, movesByPly);
+            undoMove();
+            counts.put(Move.toChessMove(move), count);
+        }
+        return counts;
+    }
+
+    private long perft(int depth, MoveList[] movesByPly) {
+        MoveList moves = movesByPly[depth - 1];
+        moves.clear();
+        validMoves(teamTurn, moves);
+        // the last ply only needs counting, not playing
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            doMove(move);
+            nodes += perft(depth - 1, movesByPly);
+            undoMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the CastlingRights bitmask of rights neither side has lost yet
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return plies played since the last capture or pawn move, for the fifty-move rule
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the number of the current full move, starting at 1 and increasing after black moves
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @return the square a pawn can capture onto en passant this turn, or -1 if none
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * Gets the Zobrist key of the position: the board's placement key with the side
+     * to move, castling rights and en-passant file folded in. The placement key is
+     * updated piece by piece as makeMove moves pieces, so this is O(1). Equal positions
+     * always have equal keys, which makes the key usable for caches, repetition
+     * detection and transposition tables.
+     *
+     * @return the 64-bit key for the current position
+     */
+    public long getZobristKey() {
+        return board.getZobristKey() ^ Zobrist.sideToMove(teamTurn)
+                ^ Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare);
+    }
+
+    /**
+     * Gets a static evaluation of the position for an evaluation bar: material plus
+     * piece-square values, blended from middlegame to endgame as material comes off.
+     * The board keeps the sums up to date as makeMove moves pieces, so this is O(1).
+     * It does not look ahead, and is not adjusted for checkmate or stalemate.
+     *
+     * @return the score in centipawns, positive when white is ahead
+     */
+    public int getEvaluation() {
+        return board.getEvaluation();
+    }
+
+    /**
+     * Looks the position up in an opening book. The book is memory-mapped and searched
+     * by the position's key, so this takes microseconds and allocates only the result.
+     *
+     * @return the book's legal moves for the team to move, heaviest first; empty when the
+     * position is not in the book
+     */
+    public List<BookMove> getBookMoves(PolyglotBook book) {
+        return book.lookup(this);
+    }
+
+    /**
+     * Gets the status of the game for the team whose turn it is. Check, checkmate and
+     * stalemate are worked out once per position, shared with other games through the
+     * PositionCache, and kept on the game until the position changes, so asking again
+     * (or asking isGameOver, isInCheckmate or isInStalemate for the team to move) after
+     * the same move costs only a key comparison.
+     *
+     * @return RESIGNED if a player resigned, otherwise the status of the team to move
+     */
+    public GameStatus getGameStatus() {
+        return resigned ? GameStatus.RESIGNED : positionStatus();
+    }
+
+    // the cache is keyed on the Zobrist key, so any change to the board, turn or rights invalidates it
+    private GameStatus positionStatus() {
+        long key = getZobristKey();
+        if (cachedStatus == null || statusKey != key) {
+            legalMoves.clear();
+            cachedStatus = teamToMoveMoves(legalMoves);
+            statusKey = key;
+        }
+        return cachedStatus;
+    }
+
+    // fills an empty buffer with every legal move of the team to move, from the shared cache if it has the position
+    private GameStatus teamToMoveMoves(MoveList moves) {
+        long key = getZobristKey();
+        PositionCache cache = PositionCache.shared();
+        GameStatus status = cache.probe(key, moves);
+        if (status == null) {
+            validMoves(teamTurn, moves);
+            if (isInCheck(teamTurn)) {
+                status = moves.isEmpty() ? GameStatus.CHECKMATE : GameStatus.CHECK;
+            } else {
+                status = moves.isEmpty() ? GameStatus.STALEMATE : GameStatus.ONGOING;
+            }
+            cache.store(key, status, moves);
+        }
+        return status;
+    }
+
+    /**
+     * Gets the result of the position with perfect play from the shared Tablebases: a
+     * bit count for most positions, and one read of a mapped table for KQK, KRK and KPK.
+     *
+     * @return WIN, DRAW or LOSS for the team to move, or null if the position has too
+     * many pieces or its table is not loaded
+     */
+    public TablebaseResult getTablebaseResult() {
+        return Tablebases.shared().probe(this);
+    }
+
+    /**
+     * @return true once the game is decided: by checkmate, stalemate or resignation, or
+     * because the tablebases show neither side can win any more
+     */
     public boolean isGameOver() {
-        // Get the color of the player whose turn it is
-        TeamColor currentTurnColor = getTeamTurn();
+        return getGameStatus().isGameOver() || getTablebaseResult() == TablebaseResult.DRAW;
+    }
 
-        // Check if the player whose turn it is is in checkmate or stalemate
-        return isInCheckmate(currentTurnColor) || isInStalemate(currentTurnColor) || this.resigned;
+    public boolean isResigned() {
+        return resigned;
     }
 
     public void setResigned(boolean resigned) {
@@ -244,12 +782,13 @@ public class ChessGame {
             return false;
         }
         ChessGame chessGame = (ChessGame) o;
-        return (board.equals(chessGame.board)) && teamTurn == chessGame.teamTurn;
+        return (board.equals(chessGame.board)) && teamTurn == chessGame.teamTurn
+                && castlingRights == chessGame.castlingRights && enPassantSquare == chessGame.enPassantSquare;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(board, teamTurn);
+        return Long.hashCode(getZobristKey());
     }
 
     @Override
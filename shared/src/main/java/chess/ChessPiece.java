@@ -1,5 +1,7 @@
 package chess;
 
+import chess.movecalculations.*;
+
 import java.util.Collection;
 import java.util.Objects;
 
@@ -10,6 +12,17 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessPiece {
+    // pieces are immutable, so the board hands out these shared instances instead of allocating
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[index(color, type)] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     private final ChessGame.TeamColor teamColor;
     private final PieceType pieceType;
 
@@ -44,6 +57,39 @@ public class ChessPiece {
         return pieceType;
     }
 
+    /**
+     * Gets the bitboard index used by ChessBoard for a color and piece type
+     *
+     * @return color * 6 + piece type ordinal, 0 through 11
+     */
+    public static int index(ChessGame.TeamColor color, PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     * @return the bitboard index of this piece
+     */
+    public int index() {
+        return index(teamColor, pieceType);
+    }
+
+    /**
+     * Gets the shared piece instance for a bitboard index
+     *
+     * @param index bitboard index, 0 through 11
+     * @return the piece with that index
+     */
+    public static ChessPiece fromIndex(int index) {
+        return PIECES[index];
+    }
+
+    /**
+     * Gets the shared piece instance for a color and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor color, PieceType type) {
+        return PIECES[index(color, type)];
+    }
+
     /**
      * Calculates all the positions a chess piece can move to
      * Does not take into account moves that are illegal due to leaving the king in
@@ -52,20 +98,27 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        if (pieceType == PieceType.BISHOP) {
-            return chess.movecalculations.CalculateBishopMoves.getMoves(board, myPosition);
-        } else if (pieceType == PieceType.KING){
-            return chess.movecalculations.CalculateKingMoves.getMoves(board, myPosition);
-        } else if (pieceType == PieceType.QUEEN) {
-            return chess.movecalculations.CalculateQueenMoves.getMoves(board, myPosition);
-        } else if (pieceType == PieceType.ROOK) {
-            return chess.movecalculations.CalculateRookMoves.getMoves(board, myPosition);
-        } else if (pieceType == PieceType.KNIGHT) {
-            return chess.movecalculations.CalculateKnightMoves.getMoves(board, myPosition);
-        } else if (pieceType == PieceType.PAWN) {
-            return chess.movecalculations.CalculatePawnMoves.getMoves(board, myPosition);
-        } else {
-            return null;
+        MoveList moves = new MoveList();
+        pieceMoves(board, myPosition.toSquare(), moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Appends every position this piece can move to, encoded with Move, to a
+     * caller-supplied buffer. Like the Collection version this does not take into
+     * account moves that leave the king in danger, but it does not allocate.
+     *
+     * @param square where this piece stands, 0 (a1) through 63 (h8)
+     * @param moves  buffer the moves are appended to
+     */
+    public void pieceMoves(ChessBoard board, int square, MoveList moves) {
+        switch (pieceType) {
+            case BISHOP -> CalculateBishopMoves.generate(board, square, moves);
+            case KING -> CalculateKingMoves.generate(board, square, moves);
+            case QUEEN -> CalculateQueenMoves.generate(board, square, moves);
+            case ROOK -> CalculateRookMoves.generate(board, square, moves);
+            case KNIGHT -> CalculateKnightMoves.generate(board, square, moves);
+            case PAWN -> CalculatePawnMoves.generate(board, square, moves);
         }
     }
 
@@ -9,6 +9,15 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessPosition {
+    // one shared instance per square, so bitboard code can hand out positions without allocating
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new ChessPosition(square / 8 + 1, square % 8 + 1);
+        }
+    }
+
     private final int row;
     private final int column;
 
@@ -33,6 +42,23 @@ public class ChessPosition {
         return column;
     }
 
+    /**
+     * @return the bitboard square index of this position, 0 (a1) through 63 (h8)
+     */
+    public int toSquare() {
+        return (row - 1) * 8 + (column - 1);
+    }
+
+    /**
+     * Gets the shared position for a bitboard square index
+     *
+     * @param square square index, 0 (a1) through 63 (h8)
+     * @return the position at that square
+     */
+    public static ChessPosition fromSquare(int square) {
+        return SQUARES[square];
+    }
+
     /*Code Generated by IntelliJ*/
     @Override
     public boolean equals(Object o) {
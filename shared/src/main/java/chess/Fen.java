@@ -0,0 +1,42 @@
+package chess;
+
+/**
+ * Character tables and error reporting shared by the FEN readers and writers in
+ * ChessBoard and ChessGame
+ */
+final class Fen {
+    // indexed by ChessPiece.index
+    private static final char[] PIECE_CHARS = {'K', 'Q', 'B', 'N', 'R', 'P', 'k', 'q', 'b', 'n', 'r', 'p'};
+
+    private Fen() {
+    }
+
+    static char pieceChar(int index) {
+        return PIECE_CHARS[index];
+    }
+
+    /**
+     * @return the ChessPiece.index for a FEN piece letter, or -1 if it is not one
+     */
+    static int pieceIndex(char c) {
+        return switch (c) {
+            case 'K' -> 0;
+            case 'Q' -> 1;
+            case 'B' -> 2;
+            case 'N' -> 3;
+            case 'R' -> 4;
+            case 'P' -> 5;
+            case 'k' -> 6;
+            case 'q' -> 7;
+            case 'b' -> 8;
+            case 'n' -> 9;
+            case 'r' -> 10;
+            case 'p' -> 11;
+            default -> -1;
+        };
+    }
+
+    static IllegalArgumentException malformed(CharSequence fen, int index, String problem) {
+        return new IllegalArgumentException("Malformed FEN at character " + index + ", " + problem + ": " + fen);
+    }
+}
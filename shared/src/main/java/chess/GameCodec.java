@@ -0,0 +1,198 @@
+package chess;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A compact binary form of a ChessGame for storage: at most {@value #MAX_BYTES} bytes
+ * for the position where Gson writes about 350, plus two bytes per move of its
+ * MoveHistory. It is written and read with a pass over the occupied squares rather
+ * than a reflective walk. The undo stack is not kept, as with Gson.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * 1 byte    FORMAT
+ * 8 bytes   occupancy bitboard
+ * n bytes   one nibble per occupied square in square order, the ChessPiece.index of
+ *           its piece, high nibble first; an odd count leaves the last low nibble 0
+ * 1 byte    castling rights in bits 0-3, en-passant file + 1 in bits 4-7 (0 if none)
+ * 1 byte    bit 0 set when black is to move, bit 1 set when a player resigned, bit 2
+ *           set when a move history follows, bit 3 set when it has a start FEN
+ * 1 byte    halfmove clock, up to 255
+ * 2 bytes   fullmove number, up to 65535
+ * then, if bit 2 is set:
+ * 2 bytes   number of moves, up to {@value #MAX_MOVES}
+ * 2 bytes   per move, as MoveHistory keeps it
+ * then, if bit 3 is set:
+ * 1 byte    length of the start FEN, followed by its ASCII characters
+ * </pre>
+ * The first byte can never be '{', so stored JSON and binary games can be told apart
+ * with isEncoded.
+ */
+public final class GameCodec {
+    public static final byte FORMAT = 1;
+    // the largest position, without a move history
+    public static final int MAX_BYTES = 1 + 8 + 16 + 5;
+    // the longest move history the two-byte count holds
+    public static final int MAX_MOVES = 0xFFFF;
+
+    private static final int HAS_HISTORY = 4;
+    private static final int HAS_START_FEN = 8;
+
+    private GameCodec() {
+    }
+
+    /**
+     * Writes a game in the binary form
+     *
+     * @throws IllegalArgumentException if the move history is longer than {@value #MAX_MOVES} moves
+     */
+    public static byte[] encode(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long occupied = board.getOccupancy();
+        int pieces = Long.bitCount(occupied);
+        MoveHistory history = game.getMoveHistory();
+        int moves = history.size();
+        if (moves > MAX_MOVES) {
+            throw new IllegalArgumentException("A history of " + moves + " moves does not fit, the most is " + MAX_MOVES);
+        }
+        String startFen = history.getStartFen();
+        int flags = (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? 1 : 0) | (game.isResigned() ? 2 : 0);
+        int length = 1 + 8 + (pieces + 1) / 2 + 5;
+        if (moves > 0) {
+            flags |= HAS_HISTORY;
+            length += 2 + 2 * moves;
+            if (startFen != null) {
+                flags |= HAS_START_FEN;
+                length += 1 + startFen.length();
+            }
+        }
+        byte[] bytes = new byte[length];
+        bytes[0] = FORMAT;
+        for (int i = 0; i < 8; i++) {
+            bytes[1 + i] = (byte) (occupied >>> (56 - 8 * i));
+        }
+        int offset = 9;
+        int nibble = 0;
+        for (long squares = occupied; squares != 0; squares &= squares - 1) {
+            int index = board.pieceIndexAt(Long.numberOfTrailingZeros(squares));
+            if ((nibble++ & 1) == 0) {
+                bytes[offset] = (byte) (index << 4);
+            } else {
+                bytes[offset++] |= (byte) index;
+            }
+        }
+        offset = 9 + (pieces + 1) / 2;
+
+        int enPassant = game.getEnPassantSquare();
+        int enPassantFile = enPassant < 0 ? 0 : (enPassant & 7) + 1;
+        bytes[offset] = (byte) (game.getCastlingRights() | (enPassantFile << 4));
+        bytes[offset + 1] = (byte) flags;
+        bytes[offset + 2] = (byte) Math.min(game.getHalfmoveClock(), 0xFF);
+        int fullmove = Math.min(game.getFullmoveNumber(), 0xFFFF);
+        bytes[offset + 3] = (byte) (fullmove >>> 8);
+        bytes[offset + 4] = (byte) fullmove;
+        offset += 5;
+        if ((flags & HAS_HISTORY) != 0) {
+            bytes[offset++] = (byte) (moves >>> 8);
+            bytes[offset++] = (byte) moves;
+            for (int i = 0; i < moves; i++) {
+                int move = history.get(i);
+                bytes[offset++] = (byte) (move >>> 8);
+                bytes[offset++] = (byte) move;
+            }
+            if ((flags & HAS_START_FEN) != 0) {
+                bytes[offset++] = (byte) startFen.length();
+                for (int i = 0; i < startFen.length(); i++) {
+                    bytes[offset++] = (byte) startFen.charAt(i);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return true if the bytes start like a game written by encode rather than, say, JSON
+     */
+    public static boolean isEncoded(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == FORMAT;
+    }
+
+    /**
+     * Reads a game written by encode
+     *
+     * @throws IllegalArgumentException if the bytes are not an encoded game
+     */
+    public static ChessGame decode(byte[] bytes) {
+        if (!isEncoded(bytes) || bytes.length < 1 + 8 + 5) {
+            throw new IllegalArgumentException("Not an encoded game");
+        }
+        long occupied = 0;
+        for (int i = 1; i < 9; i++) {
+            occupied = (occupied << 8) | (bytes[i] & 0xFF);
+        }
+        int pieces = Long.bitCount(occupied);
+        int offset = 9 + (pieces + 1) / 2;
+        if (bytes.length < offset + 5) {
+            throw new IllegalArgumentException("Encoded game has " + bytes.length + " bytes for " + pieces + " pieces");
+        }
+
+        ChessBoard board = new ChessBoard();
+        int nibble = 0;
+        for (long squares = occupied; squares != 0; squares &= squares - 1) {
+            int packed = bytes[9 + nibble / 2];
+            int index = ((nibble++ & 1) == 0 ? packed >>> 4 : packed) & 0xF;
+            if (index >= 12) {
+                throw new IllegalArgumentException("Encoded game has an unknown piece " + index);
+            }
+            board.addPiece(Long.numberOfTrailingZeros(squares), ChessPiece.fromIndex(index));
+        }
+
+        int rights = bytes[offset] & 0xF;
+        int enPassantFile = (bytes[offset] >>> 4) & 0xF;
+        int flags = bytes[offset + 1];
+        ChessGame.TeamColor turn = (flags & 1) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if (enPassantFile > 8) {
+            throw new IllegalArgumentException("Encoded game has an unknown en-passant file " + enPassantFile);
+        }
+        // the square is behind the pawn that just moved, on the sixth rank when white takes and the third when black does
+        int enPassant = enPassantFile == 0 ? -1
+                : (turn == ChessGame.TeamColor.WHITE ? 40 : 16) + enPassantFile - 1;
+        int halfmove = bytes[offset + 2] & 0xFF;
+        int fullmove = ((bytes[offset + 3] & 0xFF) << 8) | (bytes[offset + 4] & 0xFF);
+        MoveHistory history = decodeHistory(bytes, offset + 5, flags);
+        return new ChessGame(board, turn, rights, enPassant, halfmove, fullmove, (flags & 2) != 0, history);
+    }
+
+    private static MoveHistory decodeHistory(byte[] bytes, int offset, int flags) {
+        if ((flags & HAS_HISTORY) == 0) {
+            if (bytes.length != offset) {
+                throw new IllegalArgumentException("Encoded game has " + (bytes.length - offset) + " trailing bytes");
+            }
+            return new MoveHistory();
+        }
+        if (bytes.length < offset + 2) {
+            throw new IllegalArgumentException("Encoded game is missing its move count");
+        }
+        int count = ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+        offset += 2;
+        if (bytes.length < offset + 2 * count) {
+            throw new IllegalArgumentException("Encoded game is missing moves of its history");
+        }
+        short[] moves = new short[count];
+        for (int i = 0; i < count; i++) {
+            moves[i] = (short) (((bytes[offset] & 0x7F) << 8) | (bytes[offset + 1] & 0xFF));
+            offset += 2;
+        }
+        String startFen = null;
+        if ((flags & HAS_START_FEN) != 0) {
+            int length = offset < bytes.length ? bytes[offset++] & 0xFF : -1;
+            if (length < 0 || bytes.length != offset + length) {
+                throw new IllegalArgumentException("Encoded game has a malformed start FEN");
+            }
+            startFen = new String(bytes, offset, length, StandardCharsets.US_ASCII);
+        } else if (bytes.length != offset) {
+            throw new IllegalArgumentException("Encoded game has " + (bytes.length - offset) + " trailing bytes");
+        }
+        return new MoveHistory(startFen, moves);
+    }
+}
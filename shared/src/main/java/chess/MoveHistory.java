@@ -0,0 +1,192 @@
+package chess;
+
+import chess.movecalculations.Move;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The moves of a game in the order they were played, for replaying, auditing and PGN
+ * export. Each move is kept as a short, the from square, to square and promotion of
+ * its Move encoding (which fit in 15 bits), so a game of 80 moves costs 160 bytes of
+ * array rather than 160 ChessMove and ChessPosition objects. The flags are dropped;
+ * replay regenerates them from the position.
+ * <p>
+ * The position the moves start from is noted when the first move is added: null for
+ * the standard starting position, which is almost every game, and a FEN record for
+ * any other. In JSON a history is {"startFen": ..., "moves": [...]}, with only the moves
+ * played, so a game sent to a client carries no spare capacity.
+ */
+@JsonAdapter(MoveHistory.JsonForm.class)
+public class MoveHistory {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final short[] EMPTY = new short[0];
+
+    private short[] moves = EMPTY;
+    private int size;
+    private String startFen;
+    // whether startFen has been noted for the current run of moves; a history with moves always has
+    private transient boolean started;
+
+    public MoveHistory() {
+    }
+
+    /**
+     * Copies another history, so the copy can grow without touching the original
+     */
+    public MoveHistory(MoveHistory other) {
+        moves = other.size == 0 ? EMPTY : Arrays.copyOf(other.moves, other.size);
+        size = other.size;
+        startFen = other.startFen;
+        started = other.started || other.size > 0;
+    }
+
+    // a stored history; the moves must already fit in 15 bits
+    MoveHistory(String startFen, short[] moves) {
+        this.moves = moves;
+        this.size = moves.length;
+        this.startFen = startFen;
+        this.started = moves.length > 0 || startFen != null;
+    }
+
+    /**
+     * @return the number of moves played
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the index-th move as a Move int without flags
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Move " + index + " of " + size);
+        }
+        return moves[index];
+    }
+
+    /**
+     * @return the FEN record of the position before the first move, or null for the
+     * standard starting position
+     */
+    public String getStartFen() {
+        return startFen;
+    }
+
+    /**
+     * @return a new game in the position before the first move
+     */
+    public ChessGame startPosition() {
+        return startFen == null ? new ChessGame() : ChessGame.fromFen(startFen);
+    }
+
+    /**
+     * Plays the moves again from the start position, checking each one, e.g. to audit
+     * a stored game
+     *
+     * @param plies how many moves to replay, at most size()
+     * @return the game after those moves, with the moves in its own history
+     * @throws InvalidMoveException if a move is not legal where it was played
+     */
+    public ChessGame replay(int plies) throws InvalidMoveException {
+        ChessGame game = startPosition();
+        for (int i = 0; i < plies; i++) {
+            game.makeMove(Move.toChessMove(get(i)));
+        }
+        return game;
+    }
+
+    // called by ChessGame.doMove before the move is played
+    void add(ChessGame before, int move) {
+        if (size == 0 && !started) {
+            String fen = before.toFen();
+            startFen = fen.equals(ChessGame.START_FEN) ? null : fen;
+            started = true;
+        }
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, Math.max(INITIAL_CAPACITY, size * 2));
+        }
+        moves[size++] = (short) Move.withoutFlags(move);
+    }
+
+    // called by ChessGame.undoMove
+    void removeLast() {
+        if (size > 0) {
+            moves[--size] = 0;
+        }
+    }
+
+    // forgets the moves and the start position, e.g. when the game gets a new board
+    void clear() {
+        size = 0;
+        startFen = null;
+        started = false;
+    }
+
+    // the start position is noted again on the next move if the game is still at the start
+    void restart() {
+        if (size == 0) {
+            started = false;
+        }
+    }
+
+    static final class JsonForm extends TypeAdapter<MoveHistory> {
+        @Override
+        public void write(JsonWriter out, MoveHistory history) throws IOException {
+            if (history == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            if (history.startFen != null) {
+                out.name("startFen").value(history.startFen);
+            }
+            out.name("moves").beginArray();
+            for (int i = 0; i < history.size; i++) {
+                out.value(history.moves[i]);
+            }
+            out.endArray().endObject();
+        }
+
+        @Override
+        public MoveHistory read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            String startFen = null;
+            short[] moves = EMPTY;
+            int size = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (name.equals("startFen")) {
+                    startFen = in.nextString();
+                } else if (name.equals("moves")) {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        if (size == moves.length) {
+                            moves = Arrays.copyOf(moves, Math.max(INITIAL_CAPACITY, size * 2));
+                        }
+                        moves[size++] = (short) (in.nextInt() & 0x7FFF);
+                    }
+                    in.endArray();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new MoveHistory(startFen, Arrays.copyOf(moves, size));
+        }
+    }
+}
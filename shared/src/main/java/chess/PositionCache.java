@@ -0,0 +1,209 @@
+package chess;
+
+import chess.movecalculations.MoveList;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size cache of the legal moves and status of positions, keyed by the
+ * position's Zobrist key and shared by every game in the JVM, so positions that recur
+ * across games (openings above all) are generated once.
+ * <p>
+ * Entries live in one long[] of fixed-size slots, and the slot for a key is picked by
+ * the key's low bits, so the slot count is a power of two. A newer position simply
+ * replaces whatever was in its slot. There are no locks: a slot stores its first long
+ * as the key XORed with every data long written after it. A reader XORs back what it
+ * read and only trusts the entry if it gets the key it asked for, which also catches
+ * entries torn by two threads writing the same slot at once.
+ * <p>
+ * Each slot holds up to {@value #MAX_MOVES} moves; positions with more are not cached.
+ * The shared instance is sized by the {@value #SIZE_PROPERTY} system property, in MB
+ * (default {@value #DEFAULT_SIZE_MB}, 0 turns caching off).
+ */
+public class PositionCache {
+    public static final String SIZE_PROPERTY = "chess.positionCacheMb";
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    // slot layout: [check][header][packed moves...], three 21-bit moves per long
+    private static final int SLOT_LONGS = 24;
+    private static final int MOVES_PER_LONG = 3;
+    private static final int MOVE_BITS = 21;
+    private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+    public static final int MAX_MOVES = (SLOT_LONGS - 2) * MOVES_PER_LONG;
+
+    // header: bit 0 marks a used slot, bits 1-3 the status ordinal, bits 8 and up the move count
+    private static final long USED = 1L;
+    private static final int STATUS_SHIFT = 1;
+    private static final int COUNT_SHIFT = 8;
+
+    private static final ChessGame.GameStatus[] STATUSES = ChessGame.GameStatus.values();
+
+    private static final class SharedHolder {
+        private static final PositionCache SHARED = new PositionCache(Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE_MB));
+    }
+
+    private final long[] slots;
+    private final int slotMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder overwrites = new LongAdder();
+
+    /**
+     * @param sizeMb memory to use, rounded down to a power-of-two number of slots; 0 disables the cache
+     */
+    public PositionCache(int sizeMb) {
+        if (sizeMb < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + sizeMb);
+        }
+        long slotCount = (long) sizeMb * 1024 * 1024 / (SLOT_LONGS * Long.BYTES);
+        int capacity = slotCount == 0 ? 0 : Integer.highestOneBit((int) Math.min(slotCount, 1 << 26));
+        slots = new long[capacity * SLOT_LONGS];
+        slotMask = capacity - 1;
+    }
+
+    /**
+     * @return the cache every ChessGame in this JVM consults
+     */
+    public static PositionCache shared() {
+        return SharedHolder.SHARED;
+    }
+
+    /**
+     * Looks a position up, appending its legal moves to the buffer on a hit
+     *
+     * @param key   the position's ChessGame.getZobristKey
+     * @param moves buffer the cached moves are appended to; left as it was on a miss
+     * @return the cached status of the team to move, or null on a miss
+     */
+    public ChessGame.GameStatus probe(long key, MoveList moves) {
+        if (slots.length == 0) {
+            return null;
+        }
+        int base = ((int) key & slotMask) * SLOT_LONGS;
+        long check = slots[base];
+        long header = slots[base + 1];
+        int count = (int) (header >>> COUNT_SHIFT);
+        if ((header & USED) == 0 || count > MAX_MOVES) {
+            misses.increment();
+            return null;
+        }
+
+        int start = moves.size();
+        long verify = check ^ header;
+        int dataLongs = (count + MOVES_PER_LONG - 1) / MOVES_PER_LONG;
+        for (int i = 0; i < dataLongs; i++) {
+            long packed = slots[base + 2 + i];
+            verify ^= packed;
+            for (int j = 0; j < MOVES_PER_LONG && i * MOVES_PER_LONG + j < count; j++) {
+                moves.add((int) ((packed >>> (j * MOVE_BITS)) & MOVE_MASK));
+            }
+        }
+        if (verify != key) {
+            // another position, or a slot caught half-written
+            moves.truncate(start);
+            misses.increment();
+            return null;
+        }
+        int status = (int) ((header >>> STATUS_SHIFT) & 7);
+        if (status >= STATUSES.length) {
+            moves.truncate(start);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return STATUSES[status];
+    }
+
+    /**
+     * Stores a position's legal moves and status, replacing whatever was in its slot
+     *
+     * @param key    the position's ChessGame.getZobristKey
+     * @param status the status of the team to move (not RESIGNED, which is not a property of the position)
+     * @param moves  every legal move of the team to move
+     * @return false if the position has too many moves to cache
+     */
+    public boolean store(long key, ChessGame.GameStatus status, MoveList moves) {
+        int count = moves.size();
+        if (slots.length == 0 || count > MAX_MOVES) {
+            return false;
+        }
+        int base = ((int) key & slotMask) * SLOT_LONGS;
+        if ((slots[base + 1] & USED) != 0 && storedKey(base) != key) {
+            overwrites.increment();
+        }
+
+        long header = USED | ((long) status.ordinal() << STATUS_SHIFT) | ((long) count << COUNT_SHIFT);
+        long check = key ^ header;
+        int dataLongs = (count + MOVES_PER_LONG - 1) / MOVES_PER_LONG;
+        for (int i = 0; i < dataLongs; i++) {
+            long packed = 0L;
+            for (int j = 0; j < MOVES_PER_LONG && i * MOVES_PER_LONG + j < count; j++) {
+                packed |= (moves.get(i * MOVES_PER_LONG + j) & MOVE_MASK) << (j * MOVE_BITS);
+            }
+            slots[base + 2 + i] = packed;
+            check ^= packed;
+        }
+        slots[base + 1] = header;
+        slots[base] = check;
+        stores.increment();
+        return true;
+    }
+
+    // the key a used slot was written for, as far as its current contents tell
+    private long storedKey(int base) {
+        long header = slots[base + 1];
+        int count = Math.min((int) (header >>> COUNT_SHIFT), MAX_MOVES);
+        long key = slots[base] ^ header;
+        for (int i = 0; i < (count + MOVES_PER_LONG - 1) / MOVES_PER_LONG; i++) {
+            key ^= slots[base + 2 + i];
+        }
+        return key;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0L);
+        hits.reset();
+        misses.reset();
+        stores.reset();
+        overwrites.reset();
+    }
+
+    /**
+     * @return how many positions the cache can hold at once
+     */
+    public int capacity() {
+        return slots.length / SLOT_LONGS;
+    }
+
+    public long sizeBytes() {
+        return (long) slots.length * Long.BYTES;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * @return how many stores replaced a different position
+     */
+    public long getOverwrites() {
+        return overwrites.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PositionCache[%d slots, %d KB, %d hits, %d misses, %d stores, %d overwrites]",
+                capacity(), sizeBytes() / 1024, getHits(), getMisses(), getStores(), getOverwrites());
+    }
+}
@@ -0,0 +1,101 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for Zobrist hashing. A position's key is the XOR of one key per
+ * (piece, square) pair on the board, plus the side-to-move key when black is to move,
+ * the key for the current castling rights and the key for the en-passant file if a
+ * pawn can be taken en passant.
+ * <p>
+ * Because XOR is its own inverse, moving a piece only needs the keys for the squares
+ * it leaves and lands on, so the key is kept up to date as the board changes instead
+ * of being recomputed. The keys come from a fixed seed, so a position has the same
+ * key in every JVM and keys can be stored or sent between client and server.
+ */
+public final class Zobrist {
+    private static final long SEED = 0x2400_CE55_C0DE_0001L;
+
+    // indexed by [ChessPiece.index][square]
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    private static final long BLACK_TO_MOVE;
+    // indexed by the castling rights bitmask, 4 bits
+    private static final long[] CASTLING = new long[16];
+    // indexed by file, 0 (a) through 7 (h)
+    private static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+        // one key per right, so a combination of rights is the XOR of its single keys
+        long[] rights = new long[4];
+        for (int right = 0; right < rights.length; right++) {
+            rights[right] = random.nextLong();
+        }
+        for (int mask = 0; mask < CASTLING.length; mask++) {
+            for (int right = 0; right < rights.length; right++) {
+                if ((mask & (1 << right)) != 0) {
+                    CASTLING[mask] ^= rights[right];
+                }
+            }
+        }
+        for (int file = 0; file < EN_PASSANT_FILE.length; file++) {
+            EN_PASSANT_FILE[file] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @return the key for a piece, by ChessPiece.index, standing on a square
+     */
+    public static long piece(int pieceIndex, int square) {
+        return PIECE_SQUARE[pieceIndex][square];
+    }
+
+    /**
+     * @return the key XORed in when black is to move, or 0 for white
+     */
+    public static long sideToMove(ChessGame.TeamColor teamTurn) {
+        return teamTurn == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0L;
+    }
+
+    /**
+     * @return the key for a castling rights bitmask (0 through 15)
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * @return the key for an en-passant target square, or 0 if there is none (-1)
+     */
+    public static long enPassant(int square) {
+        return square < 0 ? 0L : EN_PASSANT_FILE[square & 7];
+    }
+
+    /**
+     * Computes the placement part of a key from scratch, for boards whose key was
+     * not maintained incrementally
+     *
+     * @return the XOR of the piece-square keys of every piece on the board
+     */
+    public static long placement(ChessBoard board) {
+        long key = 0L;
+        for (int index = 0; index < 12; index++) {
+            long pieces = board.getPieces(index);
+            while (pieces != 0) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                key ^= PIECE_SQUARE[index][square];
+            }
+        }
+        return key;
+    }
+}
@@ -0,0 +1,106 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.InvalidMoveException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collects book moves, e.g. from the opening lines of played games, and writes them
+ * as a book PolyglotBook can map. Adding the same move for the same position again
+ * adds to its weight, so moves played more often come out heavier. Positions are keyed
+ * by PolyglotBook.polyglotKey, so other Polyglot tools can read the book too.
+ */
+public class BookBuilder {
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private final ToLongFunction<ChessGame> keyFunction;
+    // key -> Polyglot move -> weight, moves in the order they were first added
+    private final Map<Long, Map<Integer, Integer>> positions = new HashMap<>();
+
+    public BookBuilder() {
+        this(PolyglotBook::polyglotKey);
+    }
+
+    /**
+     * A builder for a book keyed some other way, to be mapped with PolyglotBook.open(Path, keyFunction)
+     */
+    public BookBuilder(ToLongFunction<ChessGame> keyFunction) {
+        this.keyFunction = keyFunction;
+    }
+
+    /**
+     * Adds weight to a move in the game's current position; the move is not checked for legality
+     */
+    public void add(ChessGame game, ChessMove move, int weight) {
+        int from = move.getStartPosition().toSquare();
+        int to = move.getEndPosition().toSquare();
+        ChessPiece mover = game.getBoard().getPiece(from);
+        if (mover != null && mover.getPieceType() == ChessPiece.PieceType.KING && Math.abs(to - from) == 2) {
+            // Polyglot writes castling as the king taking its own rook
+            to = to > from ? from + 3 : from - 4;
+        }
+        int polyglotMove = PolyglotBook.encodeMove(from, to, move.getPromotionPiece());
+        positions.computeIfAbsent(keyFunction.applyAsLong(game), key -> new LinkedHashMap<>())
+                .merge(polyglotMove, weight, (a, b) -> Math.min(a + b, MAX_WEIGHT));
+    }
+
+    /**
+     * Plays a line from the starting position, adding each move with weight 1
+     *
+     * @throws InvalidMoveException if a move of the line is not legal
+     */
+    public void addLine(List<ChessMove> moves) throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (ChessMove move : moves) {
+            ChessGame before = new ChessGame(game);
+            game.makeMove(move);
+            add(before, move, 1);
+        }
+    }
+
+    /**
+     * @return the number of entries write will produce
+     */
+    public int size() {
+        int size = 0;
+        for (Map<Integer, Integer> moves : positions.values()) {
+            size += moves.size();
+        }
+        return size;
+    }
+
+    /**
+     * Writes the book sorted by key, heaviest move first within a key
+     */
+    public void write(Path path) throws IOException {
+        List<Long> keys = new ArrayList<>(positions.keySet());
+        keys.sort(Long::compareUnsigned);
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            for (long key : keys) {
+                List<Map.Entry<Integer, Integer>> moves = new ArrayList<>(positions.get(key).entrySet());
+                moves.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+                for (Map.Entry<Integer, Integer> move : moves) {
+                    out.writeLong(key);
+                    out.writeShort(move.getKey());
+                    out.writeShort(move.getValue());
+                    out.writeInt(0);
+                }
+            }
+        }
+    }
+}
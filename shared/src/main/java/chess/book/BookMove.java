@@ -0,0 +1,13 @@
+package chess.book;
+
+import chess.ChessMove;
+
+/**
+ * One opening book entry for a position
+ *
+ * @param move   the move to play
+ * @param weight how strongly the book recommends the move, relative to the other moves for the position
+ * @param learn  the entry's learn field, kept as stored (usually 0)
+ */
+public record BookMove(ChessMove move, int weight, int learn) {
+}
@@ -0,0 +1,288 @@
+package chess.book;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.movecalculations.Move;
+import chess.movecalculations.MoveList;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import java.util.random.RandomGenerator;
+
+/**
+ * A read-only opening book in the Polyglot .bin layout: 16-byte big-endian entries of
+ * key (8 bytes), move (2), weight (2) and learn (4), sorted by key as an unsigned number,
+ * several entries per key when a position has several book moves.
+ * <p>
+ * The file is memory-mapped rather than read, so opening a book costs nothing however
+ * big it is, the operating system pages in only the parts lookups touch, and several
+ * servers on one machine share those pages. A lookup is a binary search over the
+ * entries, about twenty reads for a million-entry book.
+ * <p>
+ * A Polyglot move packs the destination square in bits 0-5, the origin in bits 6-11
+ * (both as file + 8 * rank, the same numbering as ChessPosition.toSquare) and the
+ * promotion piece in bits 12-14 (1 knight, 2 bishop, 3 rook, 4 queen). Castling is
+ * written as the king taking its own rook, e.g. e1h1.
+ * <p>
+ * Positions are keyed by polyglotKey, the hash other Polyglot tools use, so books written
+ * by them and by BookBuilder are read alike. The key is computed from the board when a
+ * position is looked up; it is not the ChessGame.getZobristKey kept for caches.
+ */
+public class PolyglotBook {
+    public static final int ENTRY_BYTES = 16;
+
+    private static final int MOVE_OFFSET = 8;
+    private static final int WEIGHT_OFFSET = 10;
+    private static final int LEARN_OFFSET = 12;
+    // Polyglot promotion codes, indexed by code
+    private static final ChessPiece.PieceType[] PROMOTIONS = {null, ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN};
+
+    private final MappedByteBuffer entries;
+    private final int entryCount;
+    private final ToLongFunction<ChessGame> keyFunction;
+
+    private PolyglotBook(MappedByteBuffer entries, int entryCount, ToLongFunction<ChessGame> keyFunction) {
+        this.entries = entries;
+        this.entryCount = entryCount;
+        this.keyFunction = keyFunction;
+    }
+
+    /**
+     * Maps a Polyglot book, keyed by polyglotKey
+     *
+     * @throws IOException if the file cannot be read or is not a whole number of entries
+     */
+    public static PolyglotBook open(Path path) throws IOException {
+        return open(path, PolyglotBook::polyglotKey);
+    }
+
+    /**
+     * Maps a book whose positions are keyed by the given function
+     *
+     * @throws IOException if the file cannot be read or is not a whole number of entries
+     */
+    public static PolyglotBook open(Path path, ToLongFunction<ChessGame> keyFunction) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ENTRY_BYTES != 0) {
+                throw new IOException("Not a Polyglot book, " + size + " bytes is not a whole number of entries: " + path);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Book too large to map: " + path);
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new PolyglotBook(entries, (int) (size / ENTRY_BYTES), keyFunction);
+        }
+    }
+
+    /**
+     * Computes the Polyglot key of a position: the XOR of the published random numbers
+     * for each piece on its square, each castling right, the en-passant file when a pawn
+     * of the side to move can take en passant, and white to move
+     *
+     * @return the key Polyglot books store the position under
+     */
+    public static long polyglotKey(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long key = 0L;
+        for (int index = 0; index < 12; index++) {
+            int kind = polyglotKind(ChessPiece.fromIndex(index));
+            long pieces = board.getPieces(index);
+            while (pieces != 0) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                key ^= PolyglotRandom.RANDOM64[64 * kind + square];
+            }
+        }
+        // CastlingRights orders its bits as Polyglot orders its castling numbers
+        int rights = game.getCastlingRights();
+        for (int right = 0; right < 4; right++) {
+            if ((rights & (1 << right)) != 0) {
+                key ^= PolyglotRandom.RANDOM64[PolyglotRandom.CASTLING + right];
+            }
+        }
+        // the game only keeps the square when a pawn can take on it, which is Polyglot's rule
+        if (game.getEnPassantSquare() >= 0) {
+            key ^= PolyglotRandom.RANDOM64[PolyglotRandom.EN_PASSANT + (game.getEnPassantSquare() & 7)];
+        }
+        if (game.getTeamTurn() == ChessGame.TeamColor.WHITE) {
+            key ^= PolyglotRandom.RANDOM64[PolyglotRandom.WHITE_TO_MOVE];
+        }
+        return key;
+    }
+
+    // black pawn 0, white pawn 1, black knight 2 and so on up to white king 11
+    private static int polyglotKind(ChessPiece piece) {
+        int type = switch (piece.getPieceType()) {
+            case PAWN -> 0;
+            case KNIGHT -> 1;
+            case BISHOP -> 2;
+            case ROOK -> 3;
+            case QUEEN -> 4;
+            case KING -> 5;
+        };
+        return 2 * type + (piece.getTeamColor() == ChessGame.TeamColor.WHITE ? 1 : 0);
+    }
+
+    /**
+     * @return the number of entries in the file
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Gets the stored entries for a key, with moves exactly as stored (castling as the king
+     * taking its own rook, and no check that the moves are legal)
+     *
+     * @return the entries in file order, empty if the key is not in the book
+     */
+    public List<BookMove> entries(long key) {
+        List<BookMove> found = new ArrayList<>();
+        for (int entry = firstEntry(key); entry < entryCount && keyAt(entry) == key; entry++) {
+            int move = moveAt(entry);
+            ChessMove chessMove = new ChessMove(ChessPosition.fromSquare(polyglotFrom(move)),
+                    ChessPosition.fromSquare(polyglotTo(move)), polyglotPromotion(move));
+            found.add(new BookMove(chessMove, weightAt(entry), learnAt(entry)));
+        }
+        return found;
+    }
+
+    /**
+     * Gets the book moves for the team to move, as legal moves of the game, heaviest first;
+     * entries that are not legal in the game (e.g. after a key collision) are left out
+     *
+     * @return the book moves, empty if the position is not in the book
+     */
+    public List<BookMove> lookup(ChessGame game) {
+        long key = keyFunction.applyAsLong(game);
+        int first = firstEntry(key);
+        if (first >= entryCount || keyAt(first) != key) {
+            return List.of();
+        }
+        MoveList legal = new MoveList();
+        game.validMoves(game.getTeamTurn(), legal);
+        List<BookMove> found = new ArrayList<>();
+        for (int entry = first; entry < entryCount && keyAt(entry) == key; entry++) {
+            int move = toLegalMove(game, legal, moveAt(entry));
+            if (move != 0) {
+                found.add(new BookMove(Move.toChessMove(move), weightAt(entry), learnAt(entry)));
+            }
+        }
+        found.sort((a, b) -> Integer.compare(b.weight(), a.weight()));
+        return found;
+    }
+
+    /**
+     * Picks one book move at random, in proportion to the weights
+     *
+     * @return the move, or null if the position is not in the book or all its moves weigh 0
+     */
+    public ChessMove pick(ChessGame game, RandomGenerator random) {
+        List<BookMove> moves = lookup(game);
+        int total = 0;
+        for (BookMove move : moves) {
+            total += move.weight();
+        }
+        if (total == 0) {
+            return null;
+        }
+        int choice = random.nextInt(total);
+        for (BookMove move : moves) {
+            choice -= move.weight();
+            if (choice < 0) {
+                return move.move();
+            }
+        }
+        return null;
+    }
+
+    // lower bound: the first entry whose key is not below the target, as unsigned numbers
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // the generated move a Polyglot move stands for, or 0 if there is none
+    private static int toLegalMove(ChessGame game, MoveList legal, int polyglotMove) {
+        int from = polyglotFrom(polyglotMove);
+        int to = polyglotTo(polyglotMove);
+        ChessPiece.PieceType promotion = polyglotPromotion(polyglotMove);
+        ChessPiece mover = game.getBoard().getPiece(from);
+        ChessPiece target = game.getBoard().getPiece(to);
+        if (mover != null && mover.getPieceType() == ChessPiece.PieceType.KING && target != null
+                && target.getTeamColor() == mover.getTeamColor()) {
+            // king takes own rook: castle towards that rook
+            to = to > from ? from + 2 : from - 2;
+        }
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            if (Move.from(move) == from && Move.to(move) == to && Move.promotion(move) == promotion) {
+                return move;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Encodes a move the Polyglot way; castling moves must already be written as the king taking its rook
+     */
+    static int encodeMove(int from, int to, ChessPiece.PieceType promotion) {
+        int code = 0;
+        for (int i = 1; i < PROMOTIONS.length; i++) {
+            if (PROMOTIONS[i] == promotion) {
+                code = i;
+            }
+        }
+        return to | (from << 6) | (code << 12);
+    }
+
+    private static int polyglotFrom(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    private static int polyglotTo(int move) {
+        return move & 0x3F;
+    }
+
+    private static ChessPiece.PieceType polyglotPromotion(int move) {
+        int code = (move >>> 12) & 7;
+        return code < PROMOTIONS.length ? PROMOTIONS[code] : null;
+    }
+
+    private long keyAt(int entry) {
+        return entries.getLong(entry * ENTRY_BYTES);
+    }
+
+    private int moveAt(int entry) {
+        return Short.toUnsignedInt(entries.getShort(entry * ENTRY_BYTES + MOVE_OFFSET));
+    }
+
+    private int weightAt(int entry) {
+        return Short.toUnsignedInt(entries.getShort(entry * ENTRY_BYTES + WEIGHT_OFFSET));
+    }
+
+    private int learnAt(int entry) {
+        return entries.getInt(entry * ENTRY_BYTES + LEARN_OFFSET);
+    }
+}
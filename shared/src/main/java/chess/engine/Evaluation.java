@@ -0,0 +1,32 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Static evaluation used by the search: the board's tapered material and piece-square
+ * score (see PieceSquareTables) in centipawns, from the point of view of the team to move.
+ */
+public final class Evaluation {
+    // plain material values for move ordering
+    // indexed by PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private Evaluation() {
+    }
+
+    /**
+     * @return the material value of a piece type in centipawns (0 for the king)
+     */
+    public static int pieceValue(ChessPiece.PieceType type) {
+        return PIECE_VALUES[type.ordinal()];
+    }
+
+    /**
+     * @return the score of the position in centipawns, positive when the team to move is ahead
+     */
+    public static int evaluate(ChessGame game) {
+        int score = game.getEvaluation();
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
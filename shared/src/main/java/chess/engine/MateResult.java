@@ -0,0 +1,28 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * What the mate solver found for one position
+ *
+ * @param keyMoves     every first move that forces mate in mateIn moves, in generation order
+ * @param mateIn       the length of the shortest forced mate in moves of the attacking side, or 0 if there is none
+ *                     within the solver's limit
+ * @param nodes        positions visited
+ * @param elapsedNanos wall-clock time the solve took
+ */
+public record MateResult(List<ChessMove> keyMoves, int mateIn, long nodes, long elapsedNanos) {
+
+    public boolean hasMate() {
+        return mateIn > 0;
+    }
+
+    /**
+     * @return true if exactly one first move forces the shortest mate, as a puzzle requires
+     */
+    public boolean isUnique() {
+        return keyMoves.size() == 1;
+    }
+}
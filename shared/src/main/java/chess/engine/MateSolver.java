@@ -0,0 +1,302 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.movecalculations.Move;
+import chess.movecalculations.MoveList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Finds forced mates, e.g. to check that a puzzle has exactly one solution.
+ * <p>
+ * A position is a mate in n if the side to move has a move after which every reply
+ * leaves a mate in n - 1, and a mate in 1 leaves the opponent checkmated. The solver
+ * tries n = 1, 2, ... up to its limit and reports every first move (key) that mates
+ * in the smallest n found.
+ * <p>
+ * The top of the move tree is split into fork/join tasks, one per move, each with its
+ * own copy of the game; the last {@value #SERIAL_MOVES} move(s) of each line are
+ * searched serially with doMove/undoMove. As soon as one attacking move is known to
+ * mate, or one defence is known to escape, the sibling tasks are told to give up.
+ * solveAll hands every puzzle of a batch to the pool at once, so a batch keeps every
+ * worker busy.
+ */
+public class MateSolver implements AutoCloseable {
+    // lines with this many attacking moves left (or fewer) are not split any further
+    private static final int SERIAL_MOVES = 1;
+    static final int NODES_BETWEEN_ABORT_CHECKS = 1024;
+
+    private final ForkJoinPool pool;
+    private final int maxMoves;
+
+    /**
+     * @param parallelism how many worker threads to solve with
+     * @param maxMoves    longest mate to look for, in moves of the attacking side
+     */
+    public MateSolver(int parallelism, int maxMoves) {
+        if (maxMoves < 1) {
+            throw new IllegalArgumentException("maxMoves must be at least 1: " + maxMoves);
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.maxMoves = maxMoves;
+    }
+
+    /**
+     * Finds the shortest forced mate for the team to move; the game is not changed
+     */
+    public MateResult solve(ChessGame game) {
+        return pool.invoke(new PuzzleTask(new ChessGame(game), maxMoves));
+    }
+
+    /**
+     * Solves a batch of positions in parallel; the games are not changed
+     *
+     * @return one result per game, in the same order
+     */
+    public List<MateResult> solveAll(List<ChessGame> games) {
+        List<PuzzleTask> tasks = new ArrayList<>();
+        for (ChessGame game : games) {
+            tasks.add(new PuzzleTask(new ChessGame(game), maxMoves));
+        }
+        return pool.invoke(new RecursiveTask<>() {
+            @Override
+            protected List<MateResult> compute() {
+                List<MateResult> results = new ArrayList<>();
+                for (PuzzleTask task : invokeAll(tasks)) {
+                    results.add(task.join());
+                }
+                return results;
+            }
+        });
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static final class PuzzleTask extends RecursiveTask<MateResult> {
+        private final ChessGame game;
+        private final int maxMoves;
+
+        PuzzleTask(ChessGame game, int maxMoves) {
+            this.game = game;
+            this.maxMoves = maxMoves;
+        }
+
+        @Override
+        protected MateResult compute() {
+            long start = System.nanoTime();
+            LongAdder nodes = new LongAdder();
+            MoveList rootMoves = new MoveList();
+            game.validMoves(game.getTeamTurn(), rootMoves);
+
+            for (int moves = 1; moves <= maxMoves; moves++) {
+                nodes.add(rootMoves.size());
+                List<DefenceTask> tasks = new ArrayList<>();
+                for (int i = 0; i < rootMoves.size(); i++) {
+                    tasks.add(new DefenceTask(afterMove(game, rootMoves.get(i)), moves, null, nodes));
+                }
+                List<ChessMove> keys = new ArrayList<>();
+                invokeAll(tasks);
+                for (int i = 0; i < tasks.size(); i++) {
+                    if (tasks.get(i).join()) {
+                        keys.add(Move.toChessMove(rootMoves.get(i)));
+                    }
+                }
+                if (!keys.isEmpty()) {
+                    return new MateResult(keys, moves, nodes.sum(), System.nanoTime() - start);
+                }
+            }
+            return new MateResult(List.of(), 0, nodes.sum(), System.nanoTime() - start);
+        }
+    }
+
+    private static ChessGame afterMove(ChessGame game, int move) {
+        ChessGame copy = new ChessGame(game);
+        copy.doMove(move);
+        return copy;
+    }
+
+    // a node of the split tree; gives up once it or any task above it has its answer
+    private abstract static class NodeTask extends RecursiveTask<Boolean> {
+        final ChessGame game;
+        final int movesLeft;
+        final NodeTask parent;
+        final LongAdder nodes;
+        volatile boolean resolved;
+
+        NodeTask(ChessGame game, int movesLeft, NodeTask parent, LongAdder nodes) {
+            this.game = game;
+            this.movesLeft = movesLeft;
+            this.parent = parent;
+            this.nodes = nodes;
+        }
+
+        boolean abandoned() {
+            for (NodeTask task = parent; task != null; task = task.parent) {
+                if (task.resolved) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // the attacker is to move: true if some move mates within movesLeft
+    private static final class AttackTask extends NodeTask {
+        AttackTask(ChessGame game, int movesLeft, NodeTask parent, LongAdder nodes) {
+            super(game, movesLeft, parent, nodes);
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (movesLeft <= SERIAL_MOVES) {
+                return new SerialSearch(game, movesLeft, this::abandoned, nodes).attackerMates(movesLeft, 0);
+            }
+            MoveList moves = new MoveList();
+            game.validMoves(game.getTeamTurn(), moves);
+            nodes.add(moves.size());
+            List<DefenceTask> tasks = new ArrayList<>();
+            for (int i = 0; i < moves.size(); i++) {
+                DefenceTask task = new DefenceTask(afterMove(game, moves.get(i)), movesLeft, this, nodes);
+                task.fork();
+                tasks.add(task);
+            }
+            boolean mates = false;
+            for (DefenceTask task : tasks) {
+                if (!mates && !abandoned() && task.join()) {
+                    mates = true;
+                    resolved = true;
+                } else if (mates) {
+                    task.cancel(false);
+                }
+            }
+            return mates;
+        }
+    }
+
+    // the defender is to move after the attacker used one of movesLeft: true if every reply still loses
+    private static final class DefenceTask extends NodeTask {
+        DefenceTask(ChessGame game, int movesLeft, NodeTask parent, LongAdder nodes) {
+            super(game, movesLeft, parent, nodes);
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (movesLeft - 1 <= SERIAL_MOVES) {
+                return new SerialSearch(game, movesLeft, this::abandoned, nodes).defenderLoses(movesLeft, 0);
+            }
+            MoveList replies = new MoveList();
+            game.validMoves(game.getTeamTurn(), replies);
+            nodes.add(replies.size());
+            if (replies.isEmpty()) {
+                return game.isInCheck(game.getTeamTurn());
+            }
+            List<AttackTask> tasks = new ArrayList<>();
+            for (int i = 0; i < replies.size(); i++) {
+                AttackTask task = new AttackTask(afterMove(game, replies.get(i)), movesLeft - 1, this, nodes);
+                task.fork();
+                tasks.add(task);
+            }
+            boolean loses = true;
+            for (AttackTask task : tasks) {
+                if (loses && !abandoned() && !task.join()) {
+                    loses = false;
+                    resolved = true;
+                } else if (!loses) {
+                    task.cancel(false);
+                }
+            }
+            return loses;
+        }
+    }
+
+    // the bottom of the tree, searched on one game with doMove/undoMove; package-private for tests
+    static final class SerialSearch {
+        private final ChessGame game;
+        private final BooleanSupplier taskAbandoned;
+        private final LongAdder sharedNodes;
+        private final MoveList[] movesByPly;
+        // nodes not yet added to sharedNodes
+        private long nodes;
+        // every node this search has visited; finish never resets it, so the abort check keeps its rhythm
+        private long visited;
+        private boolean abandoned;
+
+        SerialSearch(ChessGame game, int movesLeft, BooleanSupplier taskAbandoned, LongAdder sharedNodes) {
+            this.game = game;
+            this.taskAbandoned = taskAbandoned;
+            this.sharedNodes = sharedNodes;
+            this.movesByPly = new MoveList[2 * movesLeft + 1];
+            for (int ply = 0; ply < movesByPly.length; ply++) {
+                movesByPly[ply] = new MoveList();
+            }
+        }
+
+        boolean attackerMates(int movesLeft, int ply) {
+            boolean mates = false;
+            MoveList moves = movesByPly[ply];
+            moves.clear();
+            game.validMoves(game.getTeamTurn(), moves);
+            for (int i = 0; i < moves.size() && !mates && !countNode(); i++) {
+                game.doMove(moves.get(i));
+                mates = defenderLoses(movesLeft, ply + 1);
+                game.undoMove();
+            }
+            return finish(mates);
+        }
+
+        boolean defenderLoses(int movesLeft, int ply) {
+            boolean inCheck = game.isInCheck(game.getTeamTurn());
+            // the attacker's last move has to give check to mate
+            if (movesLeft == 1 && !inCheck) {
+                return finish(false);
+            }
+            MoveList replies = movesByPly[ply];
+            replies.clear();
+            game.validMoves(game.getTeamTurn(), replies);
+            if (replies.isEmpty()) {
+                return finish(inCheck);
+            }
+            if (movesLeft == 1) {
+                return finish(false);
+            }
+            boolean loses = true;
+            for (int i = 0; i < replies.size() && loses && !countNode(); i++) {
+                game.doMove(replies.get(i));
+                loses = attackerMates(movesLeft - 1, ply + 1);
+                game.undoMove();
+            }
+            return finish(loses && !abandoned);
+        }
+
+        // true once the task's answer no longer matters
+        private boolean countNode() {
+            nodes++;
+            visited++;
+            if ((visited & (NODES_BETWEEN_ABORT_CHECKS - 1)) == 0 && taskAbandoned.getAsBoolean()) {
+                abandoned = true;
+            }
+            return abandoned;
+        }
+
+        private boolean finish(boolean result) {
+            if (nodes > 0) {
+                sharedNodes.add(nodes);
+                nodes = 0;
+            }
+            return result;
+        }
+    }
+}
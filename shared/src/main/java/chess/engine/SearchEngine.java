@@ -0,0 +1,306 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.movecalculations.Move;
+import chess.movecalculations.MoveList;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Picks a move for the team to move with an alpha-beta search.
+ * <p>
+ * The search deepens one ply at a time (iterative deepening) until the time budget or
+ * the depth limit runs out, trying the previous iteration's best move first so each
+ * iteration cuts off sooner. At the horizon a quiescence search keeps playing captures
+ * and promotions until the position is quiet, so the evaluation is never taken in the
+ * middle of an exchange. Moves are ordered best move first, then captures by most
+ * valuable victim and least valuable attacker, then promotions, then two killer moves
+ * per ply.
+ * <p>
+ * The deadline is hard: the clock is read every {@value #NODES_BETWEEN_CLOCK_CHECKS}
+ * nodes and the running iteration is abandoned as soon as it passes. Moves of an
+ * abandoned iteration count only if they were searched to the end. A new iteration is
+ * not started once half the budget is gone, since it would rarely finish.
+ * <p>
+ * The search plays moves on the game it is given with doMove/undoMove and leaves it as
+ * it found it. An engine keeps its move buffers between searches, so one instance
+ * should be used by one thread at a time; stop() may be called from any thread.
+ */
+public class SearchEngine {
+    public static final int MATE_SCORE = 100_000;
+    public static final int MAX_PLY = 128;
+    public static final int MAX_DEPTH = 64;
+
+    private static final int INFINITY = MATE_SCORE + 1;
+    static final int NODES_BETWEEN_CLOCK_CHECKS = 1024;
+
+    private static final int BEST_MOVE_ORDER = 1_000_000;
+    private static final int CAPTURE_ORDER = 100_000;
+    private static final int PROMOTION_ORDER = 90_000;
+    private static final int KILLER_ORDER = 80_000;
+
+    private final LongSupplier clock;
+    private final MoveList[] movesByPly = new MoveList[MAX_PLY];
+    private final int[][] orderByPly = new int[MAX_PLY][MoveList.DEFAULT_CAPACITY];
+    private final int[][] killers = new int[MAX_PLY][2];
+
+    private ChessGame game;
+    private long deadlineNanos;
+    private long nodes;
+    private boolean stopped;
+    private volatile boolean stopRequested;
+    private int rootBestMove;
+
+    public SearchEngine() {
+        this(System::nanoTime);
+    }
+
+    // an engine that reads the time from the given nanosecond clock, for tests
+    SearchEngine(LongSupplier clock) {
+        this.clock = clock;
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            movesByPly[ply] = new MoveList();
+        }
+    }
+
+    /**
+     * Searches until the time budget runs out or a forced mate is found
+     *
+     * @param game         the game to pick a move in; restored before this returns
+     * @param budgetMillis how long the search may take
+     * @return the best move found and the search statistics
+     */
+    public SearchResult search(ChessGame game, long budgetMillis) {
+        return search(game, budgetMillis, MAX_DEPTH);
+    }
+
+    /**
+     * Searches until the time budget runs out, the depth limit is reached or a forced
+     * mate is found
+     *
+     * @param game         the game to pick a move in; restored before this returns
+     * @param budgetMillis how long the search may take
+     * @param maxDepth     deepest iteration to run, in plies
+     * @return the best move found and the search statistics
+     */
+    public SearchResult search(ChessGame game, long budgetMillis, int maxDepth) {
+        long start = clock.getAsLong();
+        this.game = game;
+        this.deadlineNanos = start + budgetMillis * 1_000_000L;
+        this.nodes = 0;
+        this.stopped = false;
+        this.stopRequested = false;
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = Move.NONE;
+            plyKillers[1] = Move.NONE;
+        }
+
+        // fall back to any legal move in case not even depth 1 finishes
+        MoveList rootMoves = movesByPly[0];
+        rootMoves.clear();
+        game.validMoves(game.getTeamTurn(), rootMoves);
+        int bestMove = rootMoves.isEmpty() ? Move.NONE : rootMoves.get(0);
+        int bestScore = 0;
+        int completedDepth = 0;
+
+        for (int depth = 1; depth <= Math.min(maxDepth, MAX_DEPTH) && bestMove != Move.NONE; depth++) {
+            rootBestMove = Move.NONE;
+            int score = search(depth, 0, -INFINITY, INFINITY, bestMove);
+            if (rootBestMove != Move.NONE) {
+                bestMove = rootBestMove;
+            }
+            if (stopped) {
+                break;
+            }
+            bestScore = score;
+            completedDepth = depth;
+            if (Math.abs(score) >= MATE_SCORE - MAX_PLY) {
+                break;
+            }
+            if (clock.getAsLong() - start > (deadlineNanos - start) / 2) {
+                break;
+            }
+        }
+
+        this.game = null;
+        return new SearchResult(bestMove, bestScore, completedDepth, nodes, clock.getAsLong() - start);
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible; it still returns its best move so far
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    private int search(int depth, int ply, int alpha, int beta, int bestMoveHint) {
+        if (countNode()) {
+            return 0;
+        }
+        ChessGame.TeamColor turn = game.getTeamTurn();
+        if (ply > 0 && game.getRepetitionCount() > 0) {
+            return 0;
+        }
+        boolean inCheck = game.isInCheck(turn);
+        // look one ply further when in check, so a check at the horizon cannot hide a mate
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return quiescence(ply, alpha, beta);
+        }
+
+        MoveList moves = movesByPly[ply];
+        moves.clear();
+        game.validMoves(turn, moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE_SCORE + ply : 0;
+        }
+        scoreMoves(moves, ply, bestMoveHint);
+
+        int best = -INFINITY;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = nextBestMove(moves, ply, i);
+            game.doMove(move);
+            int score = -search(depth - 1, ply + 1, -beta, -alpha, Move.NONE);
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (ply == 0) {
+                        rootBestMove = move;
+                    }
+                    if (alpha >= beta) {
+                        if (!Move.hasFlag(move, Move.CAPTURE) && Move.promotion(move) == null) {
+                            addKiller(ply, move);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // searches captures and promotions (or every evasion when in check) until the position is quiet
+    private int quiescence(int ply, int alpha, int beta) {
+        if (countNode()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            // no move buffer left for another ply, even to get out of check
+            return Evaluation.evaluate(game);
+        }
+        ChessGame.TeamColor turn = game.getTeamTurn();
+        boolean inCheck = game.isInCheck(turn);
+        int best = -INFINITY;
+        if (!inCheck) {
+            // the side to move can usually do at least as well as standing still
+            best = Evaluation.evaluate(game);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        MoveList moves = movesByPly[ply];
+        moves.clear();
+        game.validMoves(turn, moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE_SCORE + ply : 0;
+        }
+        scoreMoves(moves, ply, Move.NONE);
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = nextBestMove(moves, ply, i);
+            if (!inCheck && !Move.hasFlag(move, Move.CAPTURE) && Move.promotion(move) == null) {
+                // moves are sorted, so everything after the first quiet move is quiet too
+                break;
+            }
+            game.doMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // counts the node and checks the clock now and then; true if the search has to stop
+    private boolean countNode() {
+        nodes++;
+        if ((nodes & (NODES_BETWEEN_CLOCK_CHECKS - 1)) == 0
+                && (stopRequested || clock.getAsLong() - deadlineNanos >= 0)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private void scoreMoves(MoveList moves, int ply, int bestMoveHint) {
+        ChessBoard board = game.getBoard();
+        int[] order = orderByPly[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (move == bestMoveHint) {
+                order[i] = BEST_MOVE_ORDER;
+            } else if (Move.hasFlag(move, Move.CAPTURE)) {
+                int victim = Move.hasFlag(move, Move.EN_PASSANT) ? ChessPiece.PieceType.PAWN.ordinal()
+                        : board.pieceIndexAt(Move.to(move)) % 6;
+                int attacker = board.pieceIndexAt(Move.from(move)) % 6;
+                order[i] = CAPTURE_ORDER + Evaluation.PIECE_VALUES[victim] * 10 - Evaluation.PIECE_VALUES[attacker] / 10;
+            } else if (Move.promotion(move) != null) {
+                order[i] = PROMOTION_ORDER + Evaluation.pieceValue(Move.promotion(move));
+            } else if (move == killers[ply][0]) {
+                order[i] = KILLER_ORDER;
+            } else if (move == killers[ply][1]) {
+                order[i] = KILLER_ORDER - 1;
+            } else {
+                order[i] = 0;
+            }
+        }
+    }
+
+    // selection sort one step at a time: moves the best remaining move to index and returns it
+    private int nextBestMove(MoveList moves, int ply, int index) {
+        int[] order = orderByPly[ply];
+        int[] array = moves.array();
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (order[i] > order[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            int move = array[best];
+            array[best] = array[index];
+            array[index] = move;
+            int score = order[best];
+            order[best] = order[index];
+            order[index] = score;
+        }
+        return array[index];
+    }
+
+    private void addKiller(int ply, int move) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+}
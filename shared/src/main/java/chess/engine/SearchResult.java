@@ -0,0 +1,42 @@
+package chess.engine;
+
+import chess.ChessMove;
+import chess.movecalculations.Move;
+
+/**
+ * What a search found, and what it cost
+ *
+ * @param move         the best move encoded with Move, or Move.NONE if the team to move has no legal move
+ * @param score        the score of that move in centipawns for the team to move; mates are scored near
+ *                     plus or minus SearchEngine.MATE_SCORE
+ * @param depth        the deepest iteration that finished
+ * @param nodes        positions visited, including quiescence nodes
+ * @param elapsedNanos wall-clock time the search took
+ */
+public record SearchResult(int move, int score, int depth, long nodes, long elapsedNanos) {
+
+    /**
+     * @return the best move, or null if there is none
+     */
+    public ChessMove bestMove() {
+        return move == Move.NONE ? null : Move.toChessMove(move);
+    }
+
+    public long nodesPerSecond() {
+        return elapsedNanos <= 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+
+    /**
+     * @return true if the score is a forced mate for either side
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= SearchEngine.MATE_SCORE - SearchEngine.MAX_PLY;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s score %d depth %d nodes %d in %.1f ms (%d nodes/sec)",
+                move == Move.NONE ? "(none)" : Move.toString(move), score, depth, nodes,
+                elapsedNanos / 1e6, nodesPerSecond());
+    }
+}
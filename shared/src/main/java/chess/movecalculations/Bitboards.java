@@ -0,0 +1,237 @@
+package chess.movecalculations;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Precomputed attack tables and helpers for 64-bit bitboards.
+ * <p>
+ * Square 0 is a1 (row 1, column 1) and square 63 is h8, so a square is
+ * (row - 1) * 8 + (column - 1), matching ChessPosition.toSquare.
+ */
+public final class Bitboards {
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = 0xFFL << 56;
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+
+    public static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    public static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {-1, -1}, {1, -1}, {-1, 1}};
+    public static final int[][] QUEEN_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {-1, -1}, {1, -1}, {-1, 1}};
+    public static final int[][] KNIGHT_OFFSETS = {{2, 1}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}, {-1, -2}, {1, -2}, {2, -1}};
+    public static final int[][] KING_OFFSETS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {-1, -1}, {1, -1}, {-1, 1}};
+
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    // indexed by [color ordinal][square]
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+    // squares strictly between two squares on a shared row, column or diagonal, else 0
+    private static final long[][] BETWEEN = new long[64][64];
+    // the whole row, column or diagonal through two aligned squares, else 0
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = stepAttacks(square, KNIGHT_OFFSETS);
+            KING_ATTACKS[square] = stepAttacks(square, KING_OFFSETS);
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][square] = stepAttacks(square, new int[][]{{1, 1}, {1, -1}});
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][square] = stepAttacks(square, new int[][]{{-1, 1}, {-1, -1}});
+        }
+        for (int from = 0; from < 64; from++) {
+            for (int[] direction : QUEEN_DIRECTIONS) {
+                long ray = slidingAttacks(from, 0L, new int[][]{direction});
+                long backRay = slidingAttacks(from, 0L, new int[][]{{-direction[0], -direction[1]}});
+                long between = 0L;
+                int row = row(from) + direction[0];
+                int column = column(from) + direction[1];
+                while (isOnBoard(row, column)) {
+                    int to = (row - 1) * 8 + column - 1;
+                    BETWEEN[from][to] = between;
+                    LINE[from][to] = ray | backRay | bit(from);
+                    between |= bit(to);
+                    row += direction[0];
+                    column += direction[1];
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static boolean isOnBoard(int row, int column) {
+        return row <= 8 && row >= 1 && column <= 8 && column >= 1;
+    }
+
+    /**
+     * @return the squares strictly between two squares on a shared line, or 0 if they are not aligned
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @return every square on the line through two aligned squares, or 0 if they are not aligned
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color on the given square attacks diagonally
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /**
+     * Squares reachable in one step from a square for each (row, column) offset
+     */
+    public static long stepAttacks(int square, int[][] offsets) {
+        long attacks = 0L;
+        int row = row(square);
+        int column = column(square);
+        for (int[] offset : offsets) {
+            int newRow = row + offset[0];
+            int newColumn = column + offset[1];
+            if (isOnBoard(newRow, newColumn)) {
+                attacks |= bit((newRow - 1) * 8 + newColumn - 1);
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Squares a sliding piece attacks along each direction, stopping at (and including)
+     * the first occupied square. This walks each ray, so the bishop, rook and queen
+     * lookups go through MagicBitboards instead; it is kept for building those tables.
+     */
+    public static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        int row = row(square);
+        int column = column(square);
+        for (int[] direction : directions) {
+            int newRow = row + direction[0];
+            int newColumn = column + direction[1];
+            while (isOnBoard(newRow, newColumn)) {
+                long target = bit((newRow - 1) * 8 + newColumn - 1);
+                attacks |= target;
+                if ((occupied & target) != 0) {
+                    break;
+                }
+                newRow += direction[0];
+                newColumn += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return MagicBitboards.rookAttacks(square, occupied);
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return MagicBitboards.bishopAttacks(square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * @return every square attacked by at least one piece of the given team
+     */
+    public static long attacksBy(ChessBoard board, ChessGame.TeamColor color) {
+        long occupied = board.getOccupancy();
+        long attacks = 0L;
+        for (ChessPiece.PieceType type : PIECE_TYPES) {
+            long pieces = board.getPieces(color, type);
+            while (pieces != 0) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                attacks |= switch (type) {
+                    case KING -> kingAttacks(square);
+                    case QUEEN -> queenAttacks(square, occupied);
+                    case BISHOP -> bishopAttacks(square, occupied);
+                    case KNIGHT -> knightAttacks(square);
+                    case ROOK -> rookAttacks(square, occupied);
+                    case PAWN -> pawnAttacks(color, square);
+                };
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Determines whether any piece of the attacking team attacks a square, by probing
+     * outward from the square with each piece's pattern instead of generating the
+     * attacker's moves: a knight on a knight-jump away, a pawn on one of the two
+     * squares it would capture from, a king next to it, or a slider on the first
+     * occupied square of a ray.
+     */
+    public static boolean isSquareAttacked(ChessBoard board, int square, ChessGame.TeamColor attacker) {
+        return isSquareAttacked(board, square, attacker, board.getOccupancy());
+    }
+
+    /**
+     * Same as isSquareAttacked, but slider rays are traced through the given occupancy,
+     * e.g. with the defending king lifted off so it cannot hide behind itself
+     */
+    public static boolean isSquareAttacked(ChessBoard board, int square, ChessGame.TeamColor attacker, long occupied) {
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if ((knightAttacks(square) & board.getPieces(attacker, ChessPiece.PieceType.KNIGHT)) != 0) {
+            return true;
+        }
+        // an attacking pawn sits where a defending pawn on this square would capture
+        if ((pawnAttacks(defender, square) & board.getPieces(attacker, ChessPiece.PieceType.PAWN)) != 0) {
+            return true;
+        }
+        if ((kingAttacks(square) & board.getPieces(attacker, ChessPiece.PieceType.KING)) != 0) {
+            return true;
+        }
+        long queens = board.getPieces(attacker, ChessPiece.PieceType.QUEEN);
+        long straight = board.getPieces(attacker, ChessPiece.PieceType.ROOK) | queens;
+        if (straight != 0 && (rookAttacks(square, occupied) & straight) != 0) {
+            return true;
+        }
+        long diagonal = board.getPieces(attacker, ChessPiece.PieceType.BISHOP) | queens;
+        return diagonal != 0 && (bishopAttacks(square, occupied) & diagonal) != 0;
+    }
+
+    /**
+     * @return bitboard of every piece of the attacking team that attacks the square
+     */
+    public static long attackersTo(ChessBoard board, int square, ChessGame.TeamColor attacker) {
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long occupied = board.getOccupancy();
+        long queens = board.getPieces(attacker, ChessPiece.PieceType.QUEEN);
+        return (knightAttacks(square) & board.getPieces(attacker, ChessPiece.PieceType.KNIGHT))
+                | (pawnAttacks(defender, square) & board.getPieces(attacker, ChessPiece.PieceType.PAWN))
+                | (kingAttacks(square) & board.getPieces(attacker, ChessPiece.PieceType.KING))
+                | (rookAttacks(square, occupied) & (board.getPieces(attacker, ChessPiece.PieceType.ROOK) | queens))
+                | (bishopAttacks(square, occupied) & (board.getPieces(attacker, ChessPiece.PieceType.BISHOP) | queens));
+    }
+}
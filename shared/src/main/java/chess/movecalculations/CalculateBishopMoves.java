@@ -6,7 +6,13 @@ import java.util.Collection;
 public class CalculateBishopMoves implements PieceMoveCalculator {
 
     public static Collection<ChessMove> getMoves(ChessBoard board, ChessPosition position) {
-        int[][] bishopMoves = {{1, 1}, {-1, -1}, {1, -1}, {-1, 1}};
-        return PieceMoveCalculator.slidingPieces(board, position, bishopMoves);
+        MoveList moves = new MoveList();
+        generate(board, position.toSquare(), moves);
+        return moves.toChessMoves();
+    }
+
+    public static void generate(ChessBoard board, int square, MoveList moves) {
+        long targets = Bitboards.bishopAttacks(square, board.getOccupancy()) & ~PieceMoveCalculator.friendlyPieces(board, square);
+        PieceMoveCalculator.addMoves(board, square, targets, moves);
     }
 }
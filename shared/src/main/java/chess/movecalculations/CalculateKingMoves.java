@@ -5,7 +5,13 @@ import java.util.Collection;
 
 public class CalculateKingMoves implements PieceMoveCalculator {
     public static Collection<ChessMove> getMoves(ChessBoard board, ChessPosition position) {
-        int[][] kingMoves = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {    -1, -1}, {1, -1}, {-1, 1}};
-        return PieceMoveCalculator.singleSpacePieces(board, position, kingMoves);
+        MoveList moves = new MoveList();
+        generate(board, position.toSquare(), moves);
+        return moves.toChessMoves();
+    }
+
+    public static void generate(ChessBoard board, int square, MoveList moves) {
+        long targets = Bitboards.kingAttacks(square) & ~PieceMoveCalculator.friendlyPieces(board, square);
+        PieceMoveCalculator.addMoves(board, square, targets, moves);
     }
 }
@@ -8,7 +8,13 @@ import java.util.Collection;
 
 public class CalculateKnightMoves implements PieceMoveCalculator {
     public static Collection<ChessMove> getMoves(ChessBoard board, ChessPosition position){
-        int[][] knightMoves = {{2,1}, {1,2}, {-1,2}, {-2,1}, {-2,-1}, {-1,-2}, {1,-2}, {2,-1}};
-        return PieceMoveCalculator.singleSpacePieces(board, position, knightMoves);
+        MoveList moves = new MoveList();
+        generate(board, position.toSquare(), moves);
+        return moves.toChessMoves();
+    }
+
+    public static void generate(ChessBoard board, int square, MoveList moves) {
+        long targets = Bitboards.knightAttacks(square) & ~PieceMoveCalculator.friendlyPieces(board, square);
+        PieceMoveCalculator.addMoves(board, square, targets, moves);
     }
 }
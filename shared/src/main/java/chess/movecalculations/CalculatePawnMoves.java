@@ -5,120 +5,74 @@ import chess.ChessPosition;
 import chess.*;
 
 import java.util.Collection;
-import java.util.HashSet;
 
 public class CalculatePawnMoves implements PieceMoveCalculator {
+    private static final ChessPiece.PieceType[] PROMOTION_PIECES = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT};
+
     public static Collection<ChessMove> getMoves(ChessBoard board, ChessPosition position) {
-        HashSet<ChessMove> moves = new HashSet<>();
-        int currentRow = position.getRow();
-        ChessPiece currentPiece = board.getPiece(position);
+        MoveList moves = new MoveList();
+        generate(board, position.toSquare(), moves);
+        return moves.toChessMoves();
+    }
+
+    public static void generate(ChessBoard board, int square, MoveList moves) {
+        ChessPiece currentPiece = board.getPiece(square);
 
         // check early for invalid piece
         if (currentPiece == null) {
-            return moves;
+            return;
         }
 
         ChessGame.TeamColor teamColor = currentPiece.getTeamColor();
-
-        int direction = (teamColor == ChessGame.TeamColor.WHITE) ? 1 : -1;
-        int startingRow = (teamColor == ChessGame.TeamColor.WHITE ? 2 : 7);
-
-        if (currentRow == startingRow) {
-            moves.addAll(CalculatePawnMoves.startingMoves(board, position, direction));
-        } else {
-            moves.addAll(CalculatePawnMoves.regularMoves(board, position, direction));
+        long pushes = pushTargets(board, square, teamColor);
+        long attacks = attackTargets(board, square, teamColor);
+
+        while (pushes != 0) {
+            int target = Long.numberOfTrailingZeros(pushes);
+            pushes &= pushes - 1;
+            int flags = Math.abs(target - square) == 16 ? Move.DOUBLE_PUSH : 0;
+            addMoveOrPromotion(moves, square, target, teamColor, flags);
         }
-        moves.addAll(CalculatePawnMoves.attackMoves(board, position, direction));
-        return moves;
-    }
-
-    public static Collection<ChessMove> startingMoves(ChessBoard board, ChessPosition position, int direction) {
-        HashSet<ChessMove> startingMoves = new HashSet<>();
-        int currentRow = position.getRow();
-        int currentColumn = position.getColumn();
-        int[][] pawnStartMoves = {{direction,0}, {direction * 2,0}};
-
-        for (int[] move : pawnStartMoves) {
-            int newRow = currentRow + move[0];
-            int newColumn = currentColumn + move[1];
-
-            ChessPosition newPosition = new ChessPosition(newRow, newColumn);
-            if (!PieceMoveCalculator.isOnBoard(newPosition)){
-                break;
-            }
-            ChessPiece newPiece = board.getPiece(newPosition);
-
-            if (newPiece != null) {
-                break;
-            } else {
-                startingMoves.add(new ChessMove(position, newPosition, null));
-            }
-
+        while (attacks != 0) {
+            int target = Long.numberOfTrailingZeros(attacks);
+            attacks &= attacks - 1;
+            addMoveOrPromotion(moves, square, target, teamColor, Move.CAPTURE);
         }
-        return startingMoves;
     }
 
-    public static Collection<ChessMove> attackMoves(ChessBoard board, ChessPosition position, int direction) {
-        HashSet<ChessMove> moves = new HashSet<>();
-        int currentRow = position.getRow();
-        int currentColumn = position.getColumn();
-        ChessPiece currentPiece = board.getPiece(position);
-        int[][] attackMoves = {{direction,1}, {direction,-1}};
-        ChessGame.TeamColor teamColor = currentPiece.getTeamColor();
-
-        for (int[] move: attackMoves) {
-            int newRow = currentRow + move[0];
-            int newColumn = currentColumn + move[1];
-            ChessPosition newPosition = new ChessPosition(newRow, newColumn);
-
-            if (!PieceMoveCalculator.isOnBoard(newPosition)){
-                continue;
-            }
-            ChessPiece newPiece = board.getPiece(newPosition);
-
-            if (newPiece != null && newPiece.getTeamColor() != currentPiece.getTeamColor()) {
-                CalculatePawnMoves.addMoveOrPromotion(moves, position, newPosition, teamColor);
-            }
-        }
-        return moves;
-    }
-
-    public static Collection<ChessMove> regularMoves(ChessBoard board, ChessPosition position, int direction) {
-        HashSet<ChessMove> moves = new HashSet<>();
-        int currentRow = position.getRow();
-        int currentColumn = position.getColumn();
-        ChessPiece currentPiece = board.getPiece(position);
-        ChessGame.TeamColor teamColor = currentPiece.getTeamColor();
-
-        // move forward one spot
-        int newRow = currentRow + direction;
-        ChessPiece newPiece = board.getPiece(new ChessPosition(newRow, currentColumn));
-        ChessPosition newPosition = new ChessPosition(newRow, currentColumn);
-
-        if (!PieceMoveCalculator.isOnBoard(newPosition)){
-            return moves;
-        }
-
-        // check if ANY piece is there
-        if (newPiece != null) {
-            return moves;
+    // one step forward onto an empty square, plus two steps from the starting row if both are empty
+    public static long pushTargets(ChessBoard board, int square, ChessGame.TeamColor teamColor) {
+        long empty = ~board.getOccupancy();
+        long pawn = 1L << square;
+        if (teamColor == ChessGame.TeamColor.WHITE) {
+            long single = (pawn << 8) & empty;
+            long secondRank = 0xFFL << 8;
+            long twice = ((single & (secondRank << 8)) << 8) & empty;
+            return single | twice;
         } else {
-            CalculatePawnMoves.addMoveOrPromotion(moves, position, newPosition, teamColor);
+            long single = (pawn >>> 8) & empty;
+            long seventhRank = 0xFFL << 48;
+            long twice = ((single & (seventhRank >>> 8)) >>> 8) & empty;
+            return single | twice;
         }
-        return moves;
     }
 
-    public static void addMoveOrPromotion(
-            HashSet<ChessMove> moves,  // takes existing move hashset and sees if it needs promotion, or moves.
-            ChessPosition position,
-            ChessPosition newPosition,
-            ChessGame.TeamColor teamColor)
-    {
+    // diagonal captures of enemy pieces
+    public static long attackTargets(ChessBoard board, int square, ChessGame.TeamColor teamColor) {
+        ChessGame.TeamColor enemy = teamColor == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        return Bitboards.pawnAttacks(teamColor, square) & board.getOccupancy(enemy);
+    }
 
-        if (CalculatePawnMoves.needsPromotion(teamColor, newPosition.getRow())) {
-            CalculatePawnMoves.addPromotionPieces(moves, position, newPosition);
+    // adds the move, or one move per promotion piece if the pawn reaches the last row
+    public static void addMoveOrPromotion(MoveList moves, int from, int to, ChessGame.TeamColor teamColor, int flags) {
+        if (CalculatePawnMoves.needsPromotion(teamColor, Bitboards.row(to))) {
+            for (ChessPiece.PieceType promotionPiece : PROMOTION_PIECES) {
+                moves.add(Move.encode(from, to, promotionPiece, flags));
+            }
         } else {
-            moves.add(new ChessMove(position, newPosition, null));
+            moves.add(Move.encode(from, to, null, flags));
         }
     }
 
@@ -129,13 +83,4 @@ public class CalculatePawnMoves implements PieceMoveCalculator {
             return teamColor == ChessGame.TeamColor.BLACK && row == 1;
         }
     }
-
-    public static void addPromotionPieces(HashSet<ChessMove> moves, ChessPosition position, ChessPosition newPosition) {
-        for (ChessPiece.PieceType promotionPiece : ChessPiece.PieceType.values()) {
-            if (promotionPiece != ChessPiece.PieceType.PAWN && promotionPiece != ChessPiece.PieceType.KING) {
-                moves.add(new ChessMove(position, newPosition, promotionPiece));
-            }
-        }
-    }
 }
-
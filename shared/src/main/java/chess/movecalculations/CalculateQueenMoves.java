@@ -8,7 +8,13 @@ import java.util.Collection;
 
 public class CalculateQueenMoves implements PieceMoveCalculator {
     public static Collection<ChessMove> getMoves(ChessBoard board, ChessPosition position) {
-        int[][] queenMoves = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {-1, -1}, {1, -1}, {-1, 1}};
-        return PieceMoveCalculator.slidingPieces(board, position, queenMoves);
+        MoveList moves = new MoveList();
+        generate(board, position.toSquare(), moves);
+        return moves.toChessMoves();
+    }
+
+    public static void generate(ChessBoard board, int square, MoveList moves) {
+        long targets = Bitboards.queenAttacks(square, board.getOccupancy()) & ~PieceMoveCalculator.friendlyPieces(board, square);
+        PieceMoveCalculator.addMoves(board, square, targets, moves);
     }
 }
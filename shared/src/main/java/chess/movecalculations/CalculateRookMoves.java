@@ -6,7 +6,13 @@ import java.util.Collection;
 
 public class CalculateRookMoves {
     public static Collection<ChessMove> getMoves(ChessBoard board, ChessPosition position) {
-        int[][] rookMoves = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
-        return PieceMoveCalculator.slidingPieces(board, position, rookMoves);
+        MoveList moves = new MoveList();
+        generate(board, position.toSquare(), moves);
+        return moves.toChessMoves();
+    }
+
+    public static void generate(ChessBoard board, int square, MoveList moves) {
+        long targets = Bitboards.rookAttacks(square, board.getOccupancy()) & ~PieceMoveCalculator.friendlyPieces(board, square);
+        PieceMoveCalculator.addMoves(board, square, targets, moves);
     }
 }
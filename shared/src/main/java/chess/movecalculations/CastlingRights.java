@@ -0,0 +1,85 @@
+package chess.movecalculations;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.util.Arrays;
+
+/**
+ * Castling rights packed into 4 bits, one per king and side. A right is lost for good
+ * once the king or that rook moves, or the rook is captured on its home square, so
+ * after every move the rights are masked with what the move's start and end squares
+ * allow. Having the right does not mean castling is legal right now; the squares
+ * between must be empty and the king must not pass through check.
+ */
+public final class CastlingRights {
+    public static final int NONE = 0;
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 1 << 1;
+    public static final int BLACK_KINGSIDE = 1 << 2;
+    public static final int BLACK_QUEENSIDE = 1 << 3;
+    public static final int ALL = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+
+    public static final int WHITE_KING_HOME = 4;
+    public static final int BLACK_KING_HOME = 60;
+
+    // the rights that survive a move starting or ending on each square
+    private static final int[] KEEP = new int[64];
+
+    static {
+        Arrays.fill(KEEP, ALL);
+        KEEP[WHITE_KING_HOME] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        KEEP[WHITE_KING_HOME + 3] &= ~WHITE_KINGSIDE;
+        KEEP[WHITE_KING_HOME - 4] &= ~WHITE_QUEENSIDE;
+        KEEP[BLACK_KING_HOME] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        KEEP[BLACK_KING_HOME + 3] &= ~BLACK_KINGSIDE;
+        KEEP[BLACK_KING_HOME - 4] &= ~BLACK_QUEENSIDE;
+    }
+
+    private CastlingRights() {
+    }
+
+    /**
+     * @return the rights left after a move from one square to another
+     */
+    public static int afterMove(int rights, int from, int to) {
+        return rights & KEEP[from] & KEEP[to];
+    }
+
+    public static int kingside(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+    }
+
+    public static int queenside(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+    }
+
+    public static int kingHome(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_KING_HOME : BLACK_KING_HOME;
+    }
+
+    /**
+     * Works out the rights of a board whose history is unknown, assuming any king and
+     * rook still on their home squares have never moved
+     *
+     * @return the rights the board's piece placement allows
+     */
+    public static int fromBoard(ChessBoard board) {
+        int rights = NONE;
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            int home = kingHome(color);
+            if ((board.getPieces(color, ChessPiece.PieceType.KING) & (1L << home)) == 0) {
+                continue;
+            }
+            long rooks = board.getPieces(color, ChessPiece.PieceType.ROOK);
+            if ((rooks & (1L << (home + 3))) != 0) {
+                rights |= kingside(color);
+            }
+            if ((rooks & (1L << (home - 4))) != 0) {
+                rights |= queenside(color);
+            }
+        }
+        return rights;
+    }
+}
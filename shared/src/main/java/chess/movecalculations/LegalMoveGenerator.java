@@ -0,0 +1,268 @@
+package chess.movecalculations;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Generates only legal moves, without playing each candidate on the board to see
+ * whether it leaves the king in check.
+ * <p>
+ * Before filtering it works out, once per call, which enemy pieces give check and
+ * which friendly pieces are pinned to the king. Then:
+ * <ul>
+ *     <li>the king may go to any square the enemy does not attack once the king is lifted off the board</li>
+ *     <li>in double check only the king may move</li>
+ *     <li>in single check other pieces must capture the checker or step between it and the king</li>
+ *     <li>a pinned piece must stay on the line through the king and its pinner</li>
+ * </ul>
+ * Castling and en passant depend on the game's history rather than the board, so they
+ * are added only when the caller passes in castling rights and an en-passant square.
+ * Castling is checked square by square; an en-passant capture removes two pieces from
+ * the king's lines at once, so it is checked by looking for attackers on the board as
+ * it would be after the capture.
+ * <p>
+ * If the team has no king on the board every pseudo-legal move is legal, which matches
+ * what ChessGame.isInCheck has always reported for a board without a king.
+ * <p>
+ * The check and pin state lives in fields so a generator can be reused without
+ * allocating; an instance must not be shared between threads.
+ */
+public class LegalMoveGenerator {
+    private int kingSquare;
+    // squares a non-king move may land on: everything, or only the checker and the squares blocking it
+    private long evasionMask;
+    private long pinned;
+    private int castlingRights;
+    private int enPassantSquare;
+
+    /**
+     * Appends every legal move for one team to the buffer, without castling or en passant
+     */
+    public void generate(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        generate(board, color, CastlingRights.NONE, -1, moves);
+    }
+
+    /**
+     * Appends every legal move for one team to the buffer
+     *
+     * @param castlingRights  the game's CastlingRights bitmask
+     * @param enPassantSquare the square a pawn can capture onto en passant, or -1
+     */
+    public void generate(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare,
+                         MoveList moves) {
+        long pieces = board.getOccupancy(color);
+        if (pieces == 0) {
+            return;
+        }
+        computeRestrictions(board, color);
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            generate(board, square, board.getPiece(square), moves);
+        }
+    }
+
+    /**
+     * Appends the legal moves of the piece on one square to the buffer, without castling
+     * or en passant
+     */
+    public void generate(ChessBoard board, int square, MoveList moves) {
+        generate(board, square, CastlingRights.NONE, -1, moves);
+    }
+
+    /**
+     * Appends the legal moves of the piece on one square to the buffer
+     *
+     * @param castlingRights  the game's CastlingRights bitmask
+     * @param enPassantSquare the square a pawn can capture onto en passant, or -1
+     */
+    public void generate(ChessBoard board, int square, int castlingRights, int enPassantSquare, MoveList moves) {
+        ChessPiece piece = board.getPiece(square);
+        if (piece == null) {
+            return;
+        }
+        computeRestrictions(board, piece.getTeamColor());
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        generate(board, square, piece, moves);
+    }
+
+    /**
+     * @return true if the team has at least one legal move, stopping at the first one found
+     */
+    public boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor color, MoveList scratch) {
+        return hasLegalMove(board, color, -1, scratch);
+    }
+
+    /**
+     * Same as hasLegalMove, counting an en-passant capture onto the given square.
+     * Castling never matters here: when it is legal, so is the king's step towards the rook.
+     */
+    public boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor color, int enPassantSquare, MoveList scratch) {
+        long pieces = board.getOccupancy(color);
+        if (pieces == 0) {
+            return false;
+        }
+        computeRestrictions(board, color);
+        this.castlingRights = CastlingRights.NONE;
+        this.enPassantSquare = enPassantSquare;
+        // the king is the only piece that can always move in double check, so try it first
+        if (kingSquare >= 0) {
+            pieces &= ~(1L << kingSquare);
+            scratch.clear();
+            generate(board, kingSquare, board.getPiece(kingSquare), scratch);
+            if (!scratch.isEmpty()) {
+                return true;
+            }
+        }
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            scratch.clear();
+            generate(board, square, board.getPiece(square), scratch);
+            if (!scratch.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void generate(ChessBoard board, int square, ChessPiece piece, MoveList moves) {
+        int start = moves.size();
+        piece.pieceMoves(board, square, moves);
+        if (kingSquare >= 0) {
+            keepLegalMoves(board, square, piece, moves, start);
+        }
+
+        if (square == kingSquare) {
+            if (castlingRights != CastlingRights.NONE) {
+                addCastling(board, piece.getTeamColor(), moves);
+            }
+        } else if (enPassantSquare >= 0 && piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            addEnPassant(board, square, piece.getTeamColor(), moves);
+        }
+    }
+
+    // keeps the legal moves in place at the front of what was appended from start on
+    private void keepLegalMoves(ChessBoard board, int square, ChessPiece piece, MoveList moves, int start) {
+        int kept = start;
+        if (square == kingSquare) {
+            ChessGame.TeamColor enemy = opponent(piece.getTeamColor());
+            long withoutKing = board.getOccupancy() & ~(1L << square);
+            for (int i = start; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (!Bitboards.isSquareAttacked(board, Move.to(move), enemy, withoutKing)) {
+                    moves.array()[kept++] = move;
+                }
+            }
+        } else {
+            long allowed = evasionMask;
+            if ((pinned & (1L << square)) != 0) {
+                allowed &= Bitboards.line(kingSquare, square);
+            }
+            for (int i = start; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if ((allowed & (1L << Move.to(move))) != 0) {
+                    moves.array()[kept++] = move;
+                }
+            }
+        }
+        moves.truncate(kept);
+    }
+
+    // the king moves two squares towards a rook that has not moved, over empty squares no enemy attacks
+    private void addCastling(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        int home = CastlingRights.kingHome(color);
+        // evasionMask is only narrowed while in check, and the king may not castle out of check
+        if (kingSquare != home || evasionMask != -1L) {
+            return;
+        }
+        ChessGame.TeamColor enemy = opponent(color);
+        long rooks = board.getPieces(color, ChessPiece.PieceType.ROOK);
+        long occupied = board.getOccupancy();
+        if ((castlingRights & CastlingRights.kingside(color)) != 0
+                && (rooks & (1L << (home + 3))) != 0
+                && (occupied & (Bitboards.between(home, home + 3))) == 0
+                && !Bitboards.isSquareAttacked(board, home + 1, enemy)
+                && !Bitboards.isSquareAttacked(board, home + 2, enemy)) {
+            moves.add(Move.encode(home, home + 2, null, Move.CASTLE));
+        }
+        if ((castlingRights & CastlingRights.queenside(color)) != 0
+                && (rooks & (1L << (home - 4))) != 0
+                && (occupied & (Bitboards.between(home, home - 4))) == 0
+                && !Bitboards.isSquareAttacked(board, home - 1, enemy)
+                && !Bitboards.isSquareAttacked(board, home - 2, enemy)) {
+            moves.add(Move.encode(home, home - 2, null, Move.CASTLE));
+        }
+    }
+
+    private void addEnPassant(ChessBoard board, int square, ChessGame.TeamColor color, MoveList moves) {
+        // the target is behind a pawn that just moved two squares: row 6 for white to capture onto, row 3 for black
+        int targetRow = color == ChessGame.TeamColor.WHITE ? 6 : 3;
+        if (Bitboards.row(enPassantSquare) != targetRow
+                || (Bitboards.pawnAttacks(color, square) & (1L << enPassantSquare)) == 0) {
+            return;
+        }
+        int capturedSquare = color == ChessGame.TeamColor.WHITE ? enPassantSquare - 8 : enPassantSquare + 8;
+        if (kingSquare < 0 || !isAttackedAfterEnPassant(board, color, square, capturedSquare)) {
+            moves.add(Move.encode(square, enPassantSquare, null, Move.CAPTURE | Move.EN_PASSANT));
+        }
+    }
+
+    // whether the king would be attacked once the capturing pawn and the captured pawn have both left their squares
+    private boolean isAttackedAfterEnPassant(ChessBoard board, ChessGame.TeamColor color, int from, int capturedSquare) {
+        ChessGame.TeamColor enemy = opponent(color);
+        long occupied = (board.getOccupancy() & ~(1L << from) & ~(1L << capturedSquare)) | (1L << enPassantSquare);
+        long enemyPawns = board.getPieces(enemy, ChessPiece.PieceType.PAWN) & ~(1L << capturedSquare);
+        long queens = board.getPieces(enemy, ChessPiece.PieceType.QUEEN);
+        return (Bitboards.knightAttacks(kingSquare) & board.getPieces(enemy, ChessPiece.PieceType.KNIGHT)) != 0
+                || (Bitboards.pawnAttacks(color, kingSquare) & enemyPawns) != 0
+                || (Bitboards.rookAttacks(kingSquare, occupied)
+                        & (board.getPieces(enemy, ChessPiece.PieceType.ROOK) | queens)) != 0
+                || (Bitboards.bishopAttacks(kingSquare, occupied)
+                        & (board.getPieces(enemy, ChessPiece.PieceType.BISHOP) | queens)) != 0;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    // works out what the king's situation allows the other pieces to do
+    private void computeRestrictions(ChessBoard board, ChessGame.TeamColor color) {
+        kingSquare = board.getKingSquare(color);
+        evasionMask = -1L;
+        pinned = 0L;
+        if (kingSquare < 0) {
+            return;
+        }
+
+        ChessGame.TeamColor enemy = opponent(color);
+        long checkers = Bitboards.attackersTo(board, kingSquare, enemy);
+        if (Long.bitCount(checkers) > 1) {
+            evasionMask = 0L;
+        } else if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            evasionMask = checkers | Bitboards.between(kingSquare, checker);
+        }
+
+        // enemy sliders that would attack the king if our own pieces were not in the way
+        long enemyPieces = board.getOccupancy(enemy);
+        long queens = board.getPieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Bitboards.rookAttacks(kingSquare, enemyPieces)
+                & (board.getPieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (Bitboards.bishopAttacks(kingSquare, enemyPieces)
+                & (board.getPieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        long occupied = board.getOccupancy();
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.between(kingSquare, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & board.getOccupancy(color);
+            }
+        }
+    }
+}
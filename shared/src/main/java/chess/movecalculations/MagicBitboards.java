@@ -0,0 +1,147 @@
+package chess.movecalculations;
+
+/**
+ * Magic-bitboard attack tables for rooks and bishops (queens use both).
+ * <p>
+ * For each square the relevant blocker squares (the rays without the board edge)
+ * are masked out of the occupancy, multiplied by a magic number and shifted down,
+ * which gives a collision-free index into a precomputed attack table. The magics
+ * below were found with a fixed-seed search; the tables are filled once at class
+ * load, and {@link #initializationNanos()} and {@link #tableBytes()} report what
+ * that cost.
+ */
+public final class MagicBitboards {
+    private static final long[] ROOK_MAGICS = {
+            0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+            0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+            0x0400800040008021L, 0x0400400020005000L, 0x8240801000200080L, 0x8611001004200900L,
+            0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+            0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+            0x0001818014000800L, 0xA002010100080400L, 0x0080240001020870L, 0x0001020004048845L,
+            0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+            0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+            0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+            0x4540040080800800L, 0x0002001004040020L, 0x0281195814001002L, 0x1240800040800100L,
+            0x0880042000524004L, 0x02C080410206002CL, 0x0801200241050010L, 0x8400080010008080L,
+            0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+            0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+            0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+            0x8044110480002441L, 0x2008110084402202L, 0x90806005090010C1L, 0x000420310A004A42L,
+            0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0x0045010808008680L, 0x2002080204004898L, 0x0210009A10400006L, 0x0824050200810200L,
+            0x0006061105004090L, 0x00010108C0000000L, 0x0814040282104004L, 0x0012012201106800L,
+            0x10823014100C1040L, 0x0080C2088802808CL, 0x0281108410404000L, 0x0101212041826200L,
+            0x0020141028221058L, 0x2201020202200202L, 0x000082A801482000L, 0x0000008401411044L,
+            0x0007103014300404L, 0x0002091110010100L, 0x42140012040C0808L, 0x0800808802004020L,
+            0x90C4004210140000L, 0x0800200900A01000L, 0x00D0400201108810L, 0x80820183814412A0L,
+            0x00A01008202202B4L, 0x01C2021A09500402L, 0x0084440208042400L, 0x800400400C090100L,
+            0xBA10040010802100L, 0xD182009006005000L, 0x5011021001009004L, 0x0020420200510400L,
+            0x0292104000468800L, 0x00043009091C0500L, 0x0280441000020025L, 0x0042820080080080L,
+            0x0440101010010040L, 0x1000900100808080L, 0x0108108120089800L, 0x0044010200012682L,
+            0xC002500420900400L, 0x0040482210710800L, 0x0002060024000200L, 0x0281020A44000800L,
+            0xA0021200A4000200L, 0x0001301000840840L, 0x2868500108444220L, 0x0004111041000200L,
+            0x8044020842080200L, 0x0000220104210200L, 0x0000021201044000L, 0x0000280884040028L,
+            0x4012114010858003L, 0x0000081004082B88L, 0x3892700508208002L, 0x00220A041B060400L,
+            0x0812020284014881L, 0x010434A282103100L, 0x0490400824020800L, 0x4A20002C00208800L,
+            0x000000A011020200L, 0x4002940A02482202L, 0x5100100202140406L, 0x02102000840540C1L
+    };
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    private static final long INITIALIZATION_NANOS;
+    private static final long TABLE_BYTES;
+
+    static {
+        long start = System.nanoTime();
+        ROOK_TABLE = buildTable(Bitboards.ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = buildTable(Bitboards.BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+        INITIALIZATION_NANOS = System.nanoTime() - start;
+
+        long longs = ROOK_TABLE.length + BISHOP_TABLE.length + 4L * 64;
+        long ints = 4L * 64;
+        TABLE_BYTES = longs * Long.BYTES + ints * Integer.BYTES;
+    }
+
+    private MagicBitboards() {
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        long index = ((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square];
+        return ROOK_TABLE[ROOK_OFFSETS[square] + (int) index];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        long index = ((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square];
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + (int) index];
+    }
+
+    /**
+     * @return how long building the rook and bishop tables took at class load, in nanoseconds
+     */
+    public static long initializationNanos() {
+        return INITIALIZATION_NANOS;
+    }
+
+    /**
+     * @return approximate heap footprint of the attack tables, masks and magics, in bytes
+     */
+    public static long tableBytes() {
+        return TABLE_BYTES;
+    }
+
+    private static long[] buildTable(int[][] directions, long[] masks, long[] magics, int[] shifts, int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantBlockers(square, directions);
+            int bits = Long.bitCount(masks[square]);
+            shifts[square] = 64 - bits;
+            offsets[square] = size;
+            size += 1 << bits;
+        }
+
+        long[] table = new long[size];
+        for (int square = 0; square < 64; square++) {
+            long mask = masks[square];
+            // walk every subset of the mask (carry-rippler) and store its true attack set
+            long subset = 0L;
+            do {
+                int index = offsets[square] + (int) ((subset * magics[square]) >>> shifts[square]);
+                long attacks = Bitboards.slidingAttacks(square, subset, directions);
+                if (table[index] != 0 && table[index] != attacks) {
+                    throw new IllegalStateException("Magic number collision on square " + square);
+                }
+                table[index] = attacks;
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+        }
+        return table;
+    }
+
+    // the squares along each ray whose occupancy can change the attack set, i.e. without the last square
+    private static long relevantBlockers(int square, int[][] directions) {
+        long mask = 0L;
+        int row = Bitboards.row(square);
+        int column = Bitboards.column(square);
+        for (int[] direction : directions) {
+            int newRow = row + direction[0];
+            int newColumn = column + direction[1];
+            while (Bitboards.isOnBoard(newRow + direction[0], newColumn + direction[1])) {
+                mask |= Bitboards.bit((newRow - 1) * 8 + newColumn - 1);
+                newRow += direction[0];
+                newColumn += direction[1];
+            }
+        }
+        return mask;
+    }
+}
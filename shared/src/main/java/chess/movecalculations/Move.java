@@ -0,0 +1,88 @@
+package chess.movecalculations;
+
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+/**
+ * Packs a move into a single int so move generation can fill primitive buffers.
+ * <p>
+ * Bits 0-5 hold the start square, bits 6-11 the end square (both as in
+ * ChessPosition.toSquare), bits 12-14 the promotion piece (0 for none, otherwise
+ * PieceType ordinal + 1) and the bits from 15 up hold the flags below.
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1;
+    public static final int DOUBLE_PUSH = 1 << 1;
+    public static final int EN_PASSANT = 1 << 2;
+    public static final int CASTLE = 1 << 3;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int FLAGS_SHIFT = 15;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() {
+    }
+
+    public static int encode(int from, int to) {
+        return from | (to << TO_SHIFT);
+    }
+
+    public static int encode(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int promotionBits = promotion == null ? 0 : promotion.ordinal() + 1;
+        return from | (to << TO_SHIFT) | (promotionBits << PROMOTION_SHIFT) | (flags << FLAGS_SHIFT);
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * @return the promotion piece, or null if the move does not promote
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotionBits = (move >>> PROMOTION_SHIFT) & 7;
+        return promotionBits == 0 ? null : TYPES[promotionBits - 1];
+    }
+
+    public static int flags(int move) {
+        return move >>> FLAGS_SHIFT;
+    }
+
+    public static boolean hasFlag(int move, int flag) {
+        return (flags(move) & flag) != 0;
+    }
+
+    /**
+     * @return the move without its flags, which is what identifies it to a player
+     */
+    public static int withoutFlags(int move) {
+        return move & ((1 << FLAGS_SHIFT) - 1);
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.fromSquare(from(move)), ChessPosition.fromSquare(to(move)), promotion(move));
+    }
+
+    /**
+     * Encodes a ChessMove without flags; compare it against generated moves with withoutFlags
+     */
+    public static int fromChessMove(ChessMove move) {
+        return encode(move.getStartPosition().toSquare(), move.getEndPosition().toSquare(),
+                move.getPromotionPiece(), 0);
+    }
+
+    public static String toString(int move) {
+        ChessPiece.PieceType promotion = promotion(move);
+        return toChessMove(move).toString().trim() + (promotion == null ? "" : " =" + promotion);
+    }
+}
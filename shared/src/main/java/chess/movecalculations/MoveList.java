@@ -0,0 +1,98 @@
+package chess.movecalculations;
+
+import chess.ChessMove;
+
+import java.util.Collection;
+import java.util.HashSet;
+
+/**
+ * A reusable buffer of moves encoded with {@link Move}. Move generation appends to
+ * it, so callers that keep one around can generate moves without allocating.
+ */
+public class MoveList {
+    // no legal chess position has more than 218 moves
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(new int[DEFAULT_CAPACITY]);
+    }
+
+    /**
+     * Wraps a caller-supplied array; generation fails with an index error if it overflows
+     */
+    public MoveList(int[] buffer) {
+        this.moves = buffer;
+        this.size = 0;
+    }
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drops every move from index on, so a caller can discard what it appended
+     */
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+
+    /**
+     * @return the backing array; only the first size() entries are meaningful
+     */
+    public int[] array() {
+        return moves;
+    }
+
+    /**
+     * @return true if a move with the same squares and promotion is in the list, ignoring flags
+     */
+    public boolean contains(int move) {
+        int wanted = Move.withoutFlags(move);
+        for (int i = 0; i < size; i++) {
+            if (Move.withoutFlags(moves[i]) == wanted) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the matching generated move (with flags), or Move.NONE if it is not in the list
+     */
+    public int find(int move) {
+        int wanted = Move.withoutFlags(move);
+        for (int i = 0; i < size; i++) {
+            if (Move.withoutFlags(moves[i]) == wanted) {
+                return moves[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    public Collection<ChessMove> toChessMoves() {
+        HashSet<ChessMove> result = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            result.add(Move.toChessMove(moves[i]));
+        }
+        return result;
+    }
+}
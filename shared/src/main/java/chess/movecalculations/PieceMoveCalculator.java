@@ -4,7 +4,6 @@ import chess.ChessMove;
 import chess.ChessPiece;
 import chess.ChessPosition;
 
-import java.util.Arrays;
 import java.util.HashSet;
 
 public interface PieceMoveCalculator {
@@ -13,75 +12,47 @@ public interface PieceMoveCalculator {
     }
 
     static boolean isOnBoard(ChessPosition position) {
-        int currentRow = position.getRow();
-        int currentColumn = position.getColumn();
-        return currentRow <= 8 && currentRow >= 1 && currentColumn <= 8 && currentColumn >= 1;
+        return Bitboards.isOnBoard(position.getRow(), position.getColumn());
     }
 
     // for pieces that can move that one space (bishop, queen, rook)
     static HashSet<ChessMove> slidingPieces(ChessBoard board, ChessPosition position, int[][] moveDirections) {
-        HashSet<ChessMove> moves = new HashSet<>();
-        int currentRow = position.getRow();
-        int currentColumn = position.getColumn();
-
-        for (int[] move : moveDirections) {
-            int newRow = currentRow;
-            int newColumn = currentColumn;
-
-            while (true) {
-                newRow += move[0];
-                newColumn += move[1];
-
-                ChessPosition newPosition = new ChessPosition(newRow, newColumn);
-
-                if(!PieceMoveCalculator.isOnBoard(newPosition)){
-                    break;
-                }
-
-                ChessPiece chessPieceAtNewPosition = board.getPiece(newPosition);
-
-                if (chessPieceAtNewPosition != null){
-                    if (chessPieceAtNewPosition.getTeamColor() != board.getPiece(position).getTeamColor()){
-                        moves.add(new ChessMove(position, newPosition, null));
-                    }
-                    break;
-                }
-                moves.add(new ChessMove(position, newPosition, null));
-            }
-        }
-        return moves;
+        int square = position.toSquare();
+        long attacks = Bitboards.slidingAttacks(square, board.getOccupancy(), moveDirections);
+        return toMoves(position, attacks & ~friendlyPieces(board, square));
     }
 
     // these are for knight and king pieces, because they can only move a single space at a time
     static HashSet<ChessMove> singleSpacePieces(ChessBoard board, ChessPosition position, int[][] moveDirections) {
-        HashSet<ChessMove> moves = new HashSet<>();
-        int currentRow = position.getRow();
-        int currentColumn = position.getColumn();
-
-        for (int[] move : moveDirections) {
-            int newRow = currentRow;
-            int newColumn = currentColumn;
-
-            for (int i = 0; i < 1; i++){
-                newRow += move[0];
-                newColumn += move[1];
-
-                ChessPosition newPosition = new ChessPosition(newRow, newColumn);
+        int square = position.toSquare();
+        long attacks = Bitboards.stepAttacks(square, moveDirections);
+        return toMoves(position, attacks & ~friendlyPieces(board, square));
+    }
 
-                if(!PieceMoveCalculator.isOnBoard(newPosition)){
-                    break;
-                }
+    // squares the piece on the given square cannot land on because its own team is there
+    static long friendlyPieces(ChessBoard board, int square) {
+        ChessPiece piece = board.getPiece(square);
+        return piece == null ? 0L : board.getOccupancy(piece.getTeamColor());
+    }
 
-                ChessPiece chessPieceAtNewPostition = board.getPiece(newPosition);
+    // appends a move from the square to every target, flagging the ones that land on a piece
+    static void addMoves(ChessBoard board, int from, long targets, MoveList moves) {
+        long occupied = board.getOccupancy();
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int flags = (occupied & (1L << target)) != 0 ? Move.CAPTURE : 0;
+            moves.add(Move.encode(from, target, null, flags));
+        }
+    }
 
-                if (chessPieceAtNewPostition != null) {
-                    if (chessPieceAtNewPostition.getTeamColor() != board.getPiece(position).getTeamColor()) {
-                        moves.add(new ChessMove(position, newPosition, null));
-                    }
-                    break;
-                }
-                moves.add(new ChessMove(position, newPosition, null));
-            }
+    // turns a bitboard of target squares into moves from the given position
+    static HashSet<ChessMove> toMoves(ChessPosition position, long targets) {
+        HashSet<ChessMove> moves = new HashSet<>();
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(new ChessMove(position, ChessPosition.fromSquare(target), null));
         }
         return moves;
     }
@@ -0,0 +1,225 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.MoveHistory;
+import chess.movecalculations.MoveList;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Portable Game Notation export and import for a game's MoveHistory. Export writes the
+ * Seven Tag Roster (with "?" for anything not given), SetUp and FEN tags for games that
+ * did not start from the standard position, and SAN movetext wrapped at 80 columns.
+ * Import reads the first game of a PGN text, skipping comments, variations and numeric
+ * annotation glyphs, and replays its moves through the legal move generator.
+ */
+public final class Pgn {
+    private static final List<String> SEVEN_TAG_ROSTER = List.of("Event", "Site", "Date", "Round", "White", "Black", "Result");
+    private static final int LINE_WIDTH = 80;
+
+    private Pgn() {
+    }
+
+    /**
+     * Writes a game's moves as PGN
+     *
+     * @param tags tag pairs to include, e.g. White and Black; a Result tag overrides the
+     *             result worked out from the final position
+     */
+    public static String write(ChessGame game, Map<String, String> tags) {
+        MoveHistory history = game.getMoveHistory();
+        ChessGame replay = history.startPosition();
+        StringBuilder movetext = new StringBuilder(history.size() * 6);
+        int lineStart = 0;
+        for (int i = 0; i < history.size(); i++) {
+            MoveList legal = San.legalMoves(replay);
+            int move = San.legalMove(legal, history.get(i));
+            StringBuilder token = new StringBuilder(12);
+            if (replay.getTeamTurn() == ChessGame.TeamColor.WHITE) {
+                token.append(replay.getFullmoveNumber()).append(". ");
+            } else if (i == 0) {
+                token.append(replay.getFullmoveNumber()).append("... ");
+            }
+            token.append(San.toSan(replay, move, legal, true));
+            lineStart = appendWrapped(movetext, lineStart, token);
+            replay.doMove(move);
+        }
+
+        String result = tags.getOrDefault("Result", result(replay));
+        appendWrapped(movetext, lineStart, new StringBuilder(result));
+
+        StringBuilder pgn = new StringBuilder(256 + movetext.length());
+        for (String name : SEVEN_TAG_ROSTER) {
+            String value = name.equals("Result") ? result
+                    : tags.getOrDefault(name, name.equals("Date") ? "????.??.??" : "?");
+            appendTag(pgn, name, value);
+        }
+        if (history.getStartFen() != null) {
+            appendTag(pgn, "SetUp", "1");
+            appendTag(pgn, "FEN", history.getStartFen());
+        }
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            if (!SEVEN_TAG_ROSTER.contains(tag.getKey()) && !tag.getKey().equals("SetUp") && !tag.getKey().equals("FEN")) {
+                appendTag(pgn, tag.getKey(), tag.getValue());
+            }
+        }
+        return pgn.append('\n').append(movetext).append('\n').toString();
+    }
+
+    /**
+     * @return "1-0" or "0-1" after checkmate, "1/2-1/2" after stalemate, otherwise "*"
+     */
+    public static String result(ChessGame game) {
+        if (game.isInCheckmate(game.getTeamTurn())) {
+            return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? "0-1" : "1-0";
+        }
+        return game.isInStalemate(game.getTeamTurn()) ? "1/2-1/2" : "*";
+    }
+
+    /**
+     * Reads the first game of a PGN text
+     *
+     * @throws IllegalArgumentException if the text is malformed or a move is not legal
+     */
+    public static PgnGame read(String pgn) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        int i = 0;
+        int length = pgn.length();
+        // tag pairs
+        while (true) {
+            i = skipSpace(pgn, i);
+            if (i < length && pgn.charAt(i) == '%') {
+                i = lineEnd(pgn, i);
+                continue;
+            }
+            if (i >= length || pgn.charAt(i) != '[') {
+                break;
+            }
+            int nameStart = ++i;
+            while (i < length && !Character.isWhitespace(pgn.charAt(i)) && pgn.charAt(i) != '"') {
+                i++;
+            }
+            String name = pgn.substring(nameStart, i);
+            i = skipSpace(pgn, i);
+            if (i >= length || pgn.charAt(i) != '"') {
+                throw new IllegalArgumentException("Tag " + name + " has no quoted value");
+            }
+            StringBuilder value = new StringBuilder();
+            for (i++; i < length && pgn.charAt(i) != '"'; i++) {
+                if (pgn.charAt(i) == '\\' && i + 1 < length) {
+                    i++;
+                }
+                value.append(pgn.charAt(i));
+            }
+            i = skipSpace(pgn, i + 1);
+            if (i >= length || pgn.charAt(i) != ']') {
+                throw new IllegalArgumentException("Tag " + name + " is not closed");
+            }
+            i++;
+            tags.put(name, value.toString());
+        }
+
+        ChessGame game = tags.containsKey("FEN") ? ChessGame.fromFen(tags.get("FEN")) : new ChessGame();
+        // movetext, up to the result or the end of the text
+        while (i < length) {
+            char c = pgn.charAt(i);
+            if (Character.isWhitespace(c) || c == '.') {
+                i++;
+            } else if (c == '{') {
+                int close = pgn.indexOf('}', i);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Comment is not closed");
+                }
+                i = close + 1;
+            } else if (c == ';' || c == '%') {
+                i = lineEnd(pgn, i);
+            } else if (c == '(') {
+                i = skipVariation(pgn, i);
+            } else if (c == '$') {
+                i = tokenEnd(pgn, i + 1);
+            } else {
+                int digits = i;
+                while (digits < length && Character.isDigit(pgn.charAt(digits))) {
+                    digits++;
+                }
+                if (digits > i && digits < length && pgn.charAt(digits) == '.') {
+                    // a move number; its dots are skipped above
+                    i = digits;
+                    continue;
+                }
+                int end = tokenEnd(pgn, i);
+                String token = pgn.substring(i, end);
+                i = end;
+                if (token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*")) {
+                    tags.putIfAbsent("Result", token);
+                    break;
+                }
+                game.doMove(San.fromSan(game, token));
+            }
+        }
+        return new PgnGame(tags, game);
+    }
+
+    private static int appendWrapped(StringBuilder movetext, int lineStart, CharSequence token) {
+        if (movetext.length() > lineStart) {
+            if (movetext.length() - lineStart + 1 + token.length() > LINE_WIDTH) {
+                movetext.append('\n');
+                lineStart = movetext.length();
+            } else {
+                movetext.append(' ');
+            }
+        }
+        movetext.append(token);
+        return lineStart;
+    }
+
+    private static void appendTag(StringBuilder pgn, String name, String value) {
+        pgn.append('[').append(name).append(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                pgn.append('\\');
+            }
+            pgn.append(c);
+        }
+        pgn.append("\"]\n");
+    }
+
+    private static int skipSpace(String pgn, int i) {
+        while (i < pgn.length() && Character.isWhitespace(pgn.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int lineEnd(String pgn, int i) {
+        int end = pgn.indexOf('\n', i);
+        return end < 0 ? pgn.length() : end + 1;
+    }
+
+    // a move, annotation glyph or result ends at whitespace or at the start of a comment or variation
+    private static int tokenEnd(String pgn, int i) {
+        while (i < pgn.length() && !Character.isWhitespace(pgn.charAt(i)) && "{}();.".indexOf(pgn.charAt(i)) < 0) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipVariation(String pgn, int i) {
+        int depth = 0;
+        for (; i < pgn.length(); i++) {
+            char c = pgn.charAt(i);
+            if (c == '{') {
+                int close = pgn.indexOf('}', i);
+                i = close < 0 ? pgn.length() : close;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("Variation is not closed");
+    }
+}
@@ -0,0 +1,12 @@
+package chess.pgn;
+
+import chess.ChessGame;
+
+import java.util.Map;
+
+/**
+ * A game read from PGN: its tag pairs in file order, and the game after its moves
+ * with the moves in its MoveHistory
+ */
+public record PgnGame(Map<String, String> tags, ChessGame game) {
+}
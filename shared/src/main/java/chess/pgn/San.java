@@ -0,0 +1,164 @@
+package chess.pgn;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.movecalculations.Bitboards;
+import chess.movecalculations.Move;
+import chess.movecalculations.MoveList;
+
+/**
+ * Standard Algebraic Notation for moves, e.g. "Nbd7", "exd6", "e8=Q+" or "O-O".
+ * A move is named only as precisely as the other legal moves of the position require,
+ * so both directions work from the legal moves the move generator gives for the team
+ * to move.
+ */
+public final class San {
+
+    private San() {
+    }
+
+    /**
+     * Names a legal move of the team to move
+     *
+     * @param move a Move int, with or without its flags
+     * @throws IllegalArgumentException if the move is not legal in the game's position
+     */
+    public static String toSan(ChessGame game, int move) {
+        MoveList legal = legalMoves(game);
+        return toSan(game, legalMove(legal, move), legal, true);
+    }
+
+    /**
+     * Finds the legal move a SAN string names. Check and annotation marks ("+", "#",
+     * "!", "?") are ignored, and castling may be written with zeros.
+     *
+     * @return the move as a Move int with its flags, ready for ChessGame.doMove
+     * @throws IllegalArgumentException if no legal move has that name
+     */
+    public static int fromSan(ChessGame game, CharSequence san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        String name = san.subSequence(0, end).toString().replace('0', 'O');
+        MoveList legal = legalMoves(game);
+        for (int i = 0; i < legal.size(); i++) {
+            String candidate = toSan(game, legal.get(i), legal, false);
+            // promotions are sometimes written without the '='
+            if (candidate.equals(name) || (candidate.indexOf('=') >= 0 && candidate.replace("=", "").equals(name))) {
+                return legal.get(i);
+            }
+        }
+        throw new IllegalArgumentException("No legal move " + san + " for " + game.getTeamTurn());
+    }
+
+    static MoveList legalMoves(ChessGame game) {
+        MoveList legal = new MoveList();
+        game.validMoves(game.getTeamTurn(), legal);
+        return legal;
+    }
+
+    // the legal move with the same squares and promotion, which carries the flags
+    static int legalMove(MoveList legal, int move) {
+        int plain = Move.withoutFlags(move);
+        for (int i = 0; i < legal.size(); i++) {
+            if (Move.withoutFlags(legal.get(i)) == plain) {
+                return legal.get(i);
+            }
+        }
+        throw new IllegalArgumentException("Move " + Move.toString(move) + " is not legal");
+    }
+
+    static String toSan(ChessGame game, int move, MoveList legal, boolean withCheck) {
+        ChessBoard board = game.getBoard();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece.PieceType type = board.getPiece(from).getPieceType();
+        StringBuilder san = new StringBuilder(8);
+
+        if (Move.hasFlag(move, Move.CASTLE)) {
+            san.append(to > from ? "O-O" : "O-O-O");
+        } else if (type == ChessPiece.PieceType.PAWN) {
+            if (Move.hasFlag(move, Move.CAPTURE)) {
+                san.append(file(from)).append('x');
+            }
+            appendSquare(san, to);
+            ChessPiece.PieceType promotion = Move.promotion(move);
+            if (promotion != null) {
+                san.append('=').append(letter(promotion));
+            }
+        } else {
+            san.append(letter(type));
+            appendDisambiguation(san, board, move, type, legal);
+            if (Move.hasFlag(move, Move.CAPTURE)) {
+                san.append('x');
+            }
+            appendSquare(san, to);
+        }
+
+        if (withCheck) {
+            ChessGame.TeamColor opponent = game.getTeamTurn() == ChessGame.TeamColor.WHITE
+                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            game.doMove(move);
+            if (game.isInCheck(opponent)) {
+                san.append(game.isInCheckmate(opponent) ? '#' : '+');
+            }
+            game.undoMove();
+        }
+        return san.toString();
+    }
+
+    // adds the file, rank or both when another piece of the same type can reach the same square
+    private static void appendDisambiguation(StringBuilder san, ChessBoard board, int move,
+                                             ChessPiece.PieceType type, MoveList legal) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < legal.size(); i++) {
+            int other = legal.get(i);
+            int otherFrom = Move.from(other);
+            if (Move.to(other) != to || otherFrom == from || board.getPiece(otherFrom).getPieceType() != type) {
+                continue;
+            }
+            ambiguous = true;
+            sameFile |= Bitboards.column(otherFrom) == Bitboards.column(from);
+            sameRank |= Bitboards.row(otherFrom) == Bitboards.row(from);
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            san.append(file(from));
+        } else if (!sameRank) {
+            san.append(rank(from));
+        } else {
+            san.append(file(from)).append(rank(from));
+        }
+    }
+
+    private static void appendSquare(StringBuilder san, int square) {
+        san.append(file(square)).append(rank(square));
+    }
+
+    private static char file(int square) {
+        return (char) ('a' + (square & 7));
+    }
+
+    private static char rank(int square) {
+        return (char) ('1' + (square >> 3));
+    }
+
+    private static char letter(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case ROOK -> 'R';
+            case PAWN -> 'P';
+        };
+    }
+}
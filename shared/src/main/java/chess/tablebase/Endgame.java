@@ -0,0 +1,55 @@
+package chess.tablebase;
+
+import chess.ChessPiece;
+
+/**
+ * The endings the tablebases cover: two kings and one more piece. Tables are built
+ * with the extra piece on white's side; positions where black has it are mirrored
+ * top to bottom and the colors swapped before probing.
+ * <p>
+ * A table has one entry per (team to move, strong king, weak king, piece) placement,
+ * squares numbered as ChessPosition.toSquare, whether or not the placement is legal.
+ */
+public enum Endgame {
+    KQK(ChessPiece.PieceType.QUEEN),
+    KRK(ChessPiece.PieceType.ROOK),
+    KPK(ChessPiece.PieceType.PAWN);
+
+    public static final int POSITIONS = 2 * 64 * 64 * 64;
+
+    private final ChessPiece.PieceType piece;
+
+    Endgame(ChessPiece.PieceType piece) {
+        this.piece = piece;
+    }
+
+    /**
+     * @return the piece the strong side has besides its king
+     */
+    public ChessPiece.PieceType piece() {
+        return piece;
+    }
+
+    /**
+     * @return the endgame with this extra piece, or null if there is no table for it
+     */
+    public static Endgame forPiece(ChessPiece.PieceType piece) {
+        for (Endgame endgame : values()) {
+            if (endgame.piece == piece) {
+                return endgame;
+            }
+        }
+        return null;
+    }
+
+    public String fileName() {
+        return name() + ".tb";
+    }
+
+    /**
+     * @return the table entry for a placement, squares as seen with the strong side playing white
+     */
+    public static int index(boolean strongToMove, int strongKing, int weakKing, int piece) {
+        return (((strongToMove ? 0 : 1) * 64 + strongKing) * 64 + weakKing) * 64 + piece;
+    }
+}
@@ -0,0 +1,77 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One endgame table: whether the strong side wins each placement of an Endgame with
+ * perfect play, at two bits per placement (128 KB per table). Tables are written by
+ * TablebaseGenerator and memory-mapped when opened, so probing a placement is one read
+ * of one byte.
+ * <p>
+ * File layout: a {@value #HEADER_BYTES}-byte header of magic number, format version,
+ * Endgame ordinal and placement count (big-endian ints), then the placements four to a
+ * byte, placement i in bits 2 * (i % 4) of byte i / 4.
+ */
+public class Tablebase {
+    public static final int ILLEGAL = 0;
+    public static final int DRAW = 1;
+    public static final int WIN = 2;
+
+    static final int MAGIC = 0x43544231; // "CTB1"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    private final Endgame endgame;
+    private final ByteBuffer data;
+
+    Tablebase(Endgame endgame, ByteBuffer data) {
+        this.endgame = endgame;
+        this.data = data;
+    }
+
+    /**
+     * Maps a table written by TablebaseGenerator
+     *
+     * @throws IOException if the file cannot be read or is not a table
+     */
+    public static Tablebase open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size != HEADER_BYTES + Endgame.POSITIONS / 4) {
+                throw new IOException("Not a tablebase, wrong size " + size + ": " + path);
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+                throw new IOException("Not a tablebase, or an unsupported version: " + path);
+            }
+            int ordinal = data.getInt(8);
+            if (ordinal < 0 || ordinal >= Endgame.values().length || data.getInt(12) != Endgame.POSITIONS) {
+                throw new IOException("Corrupt tablebase header: " + path);
+            }
+            return new Tablebase(Endgame.values()[ordinal], data);
+        }
+    }
+
+    public Endgame getEndgame() {
+        return endgame;
+    }
+
+    /**
+     * @param index a placement, see Endgame.index
+     * @return WIN if the strong side wins, DRAW if it does not, or ILLEGAL for a placement that cannot occur
+     */
+    public int value(int index) {
+        return (data.get(HEADER_BYTES + (index >>> 2)) >>> ((index & 3) * 2)) & 3;
+    }
+
+    /**
+     * Probes a placement, squares as seen with the strong side playing white
+     */
+    public int value(boolean strongToMove, int strongKing, int weakKing, int piece) {
+        return value(Endgame.index(strongToMove, strongKing, weakKing, piece));
+    }
+}
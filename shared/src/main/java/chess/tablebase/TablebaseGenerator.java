@@ -0,0 +1,278 @@
+package chess.tablebase;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.movecalculations.Bitboards;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Builds the endgame tables offline by retrograde analysis. Run it once and point the
+ * server at the output directory:
+ * <pre>
+ * java -cp shared.jar chess.tablebase.TablebaseGenerator tablebases/
+ * </pre>
+ * It starts from the positions whose result is known without looking ahead (the weak
+ * side is checkmated, or a pawn promotes into a won KQK or KRK position) and works
+ * backwards through un-moves. A strong-side position is won as soon as one of its
+ * successors is; a weak-side position keeps a count of its legal moves and is won
+ * once every one of them has been shown to lose. Captures by the weak king leave the
+ * table for a bare-king draw, so a position with one never counts down. Whatever is
+ * left when the queue empties is a draw. Each position is visited once, so a table
+ * takes well under a second.
+ */
+public class TablebaseGenerator {
+    private static final byte UNKNOWN = 0;
+    private static final byte WON = 1;
+    private static final byte ILLEGAL = 2;
+    // weak-side move count for positions with an escape, which never count down to 0
+    private static final int NEVER = -1;
+
+    private static final int WEAK_TO_MOVE = 64 * 64 * 64;
+
+    private final Endgame endgame;
+    private final Map<Endgame, Tablebase> promotionTables;
+    private final byte[] state = new byte[Endgame.POSITIONS];
+    // legal weak-king moves not yet shown to lose, indexed like the weak-to-move half of state
+    private final int[] movesLeft = new int[WEAK_TO_MOVE];
+    private final int[] queue = new int[Endgame.POSITIONS];
+    private int queueTail;
+
+    private TablebaseGenerator(Endgame endgame, Map<Endgame, Tablebase> promotionTables) {
+        this.endgame = endgame;
+        this.promotionTables = promotionTables;
+    }
+
+    /**
+     * Generates one table in memory
+     *
+     * @param promotionTables finished tables for the endings a pawn can promote into; KPK needs KQK and KRK
+     */
+    public static Tablebase generate(Endgame endgame, Map<Endgame, Tablebase> promotionTables) {
+        TablebaseGenerator generator = new TablebaseGenerator(endgame, promotionTables);
+        generator.seed();
+        generator.propagate();
+        return new Tablebase(endgame, generator.pack());
+    }
+
+    /**
+     * Generates every table in dependency order
+     */
+    public static Map<Endgame, Tablebase> generateAll() {
+        Map<Endgame, Tablebase> tables = new EnumMap<>(Endgame.class);
+        for (Endgame endgame : Endgame.values()) {
+            tables.put(endgame, generate(endgame, tables));
+        }
+        return tables;
+    }
+
+    /**
+     * Writes a table in the format Tablebase.open maps
+     */
+    public static void write(Tablebase table, Path path) throws IOException {
+        byte[] bytes = new byte[Tablebase.HEADER_BYTES + Endgame.POSITIONS / 4];
+        for (int index = 0; index < Endgame.POSITIONS; index++) {
+            bytes[Tablebase.HEADER_BYTES + (index >>> 2)] |= (byte) (table.value(index) << ((index & 3) * 2));
+        }
+        ByteBuffer.wrap(bytes).putInt(Tablebase.MAGIC).putInt(Tablebase.VERSION)
+                .putInt(table.getEndgame().ordinal()).putInt(Endgame.POSITIONS);
+        Files.write(path, bytes);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: TablebaseGenerator <output directory>");
+            System.exit(2);
+        }
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        for (Map.Entry<Endgame, Tablebase> table : generateAll().entrySet()) {
+            Path path = directory.resolve(table.getKey().fileName());
+            write(table.getValue(), path);
+            System.out.println("Wrote " + path);
+        }
+        System.out.printf("Generated in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // marks illegal placements, counts weak-king moves and queues the positions decided without look-ahead
+    private void seed() {
+        for (int strongKing = 0; strongKing < 64; strongKing++) {
+            for (int weakKing = 0; weakKing < 64; weakKing++) {
+                for (int piece = 0; piece < 64; piece++) {
+                    int strongIndex = Endgame.index(true, strongKing, weakKing, piece);
+                    int weakIndex = Endgame.index(false, strongKing, weakKing, piece);
+                    if (!placementLegal(strongKing, weakKing, piece)) {
+                        state[strongIndex] = ILLEGAL;
+                        state[weakIndex] = ILLEGAL;
+                        continue;
+                    }
+                    long occupied = Bitboards.bit(strongKing) | Bitboards.bit(weakKing);
+                    boolean weakInCheck = (attacks(piece, occupied) & Bitboards.bit(weakKing)) != 0;
+                    if (weakInCheck) {
+                        // the weak king cannot be in check with the strong side to move
+                        state[strongIndex] = ILLEGAL;
+                    } else if (winsByPromotion(strongKing, weakKing, piece)) {
+                        markWon(strongIndex);
+                    }
+                    seedWeakToMove(weakIndex, strongKing, weakKing, piece, weakInCheck);
+                }
+            }
+        }
+    }
+
+    private void seedWeakToMove(int index, int strongKing, int weakKing, int piece, boolean inCheck) {
+        int moves = 0;
+        boolean escape = false;
+        long strongKingZone = Bitboards.kingAttacks(strongKing);
+        for (long targets = Bitboards.kingAttacks(weakKing) & ~Bitboards.bit(strongKing); targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            if (to == piece) {
+                // taking an undefended piece leaves two bare kings
+                escape |= (strongKingZone & Bitboards.bit(piece)) == 0;
+            } else if (weakKingMoveLegal(strongKing, to, piece)) {
+                moves++;
+            }
+        }
+        if (escape) {
+            movesLeft[index - WEAK_TO_MOVE] = NEVER;
+        } else if (moves == 0) {
+            movesLeft[index - WEAK_TO_MOVE] = NEVER;
+            if (inCheck) {
+                markWon(index);
+            }
+        } else {
+            movesLeft[index - WEAK_TO_MOVE] = moves;
+        }
+    }
+
+    // a pawn on the seventh that promotes into a won position wins here
+    private boolean winsByPromotion(int strongKing, int weakKing, int piece) {
+        if (endgame != Endgame.KPK || Bitboards.row(piece) != 7) {
+            return false;
+        }
+        int to = piece + 8;
+        if (to == strongKing || to == weakKing) {
+            return false;
+        }
+        for (Endgame promoted : new Endgame[]{Endgame.KQK, Endgame.KRK}) {
+            Tablebase table = promotionTables.get(promoted);
+            if (table == null) {
+                throw new IllegalStateException(promoted + " must be generated before KPK");
+            }
+            if (table.value(false, strongKing, weakKing, to) == Tablebase.WIN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void propagate() {
+        for (int head = 0; head < queueTail; head++) {
+            int index = queue[head];
+            int piece = index & 63;
+            int weakKing = (index >>> 6) & 63;
+            int strongKing = (index >>> 12) & 63;
+            if (index >= WEAK_TO_MOVE) {
+                wonForStrongPredecessors(strongKing, weakKing, piece);
+            } else {
+                wonForWeakPredecessors(strongKing, weakKing, piece);
+            }
+        }
+    }
+
+    // the weak side to move is lost, so every strong move into this position wins
+    private void wonForStrongPredecessors(int strongKing, int weakKing, int piece) {
+        long occupied = Bitboards.bit(strongKing) | Bitboards.bit(weakKing) | Bitboards.bit(piece);
+        for (long from = Bitboards.kingAttacks(strongKing) & ~occupied; from != 0; from &= from - 1) {
+            markWonIfOpen(Endgame.index(true, Long.numberOfTrailingZeros(from), weakKing, piece));
+        }
+        if (endgame.piece() == ChessPiece.PieceType.PAWN) {
+            int from = piece - 8;
+            if ((occupied & Bitboards.bit(from)) == 0) {
+                markWonIfOpen(Endgame.index(true, strongKing, weakKing, from));
+                // a double push from the second rank
+                if (Bitboards.row(piece) == 4 && (occupied & Bitboards.bit(from - 8)) == 0) {
+                    markWonIfOpen(Endgame.index(true, strongKing, weakKing, from - 8));
+                }
+            }
+        } else {
+            // sliding moves are reversible, so the squares the piece attacks are where it could have come from
+            long kings = Bitboards.bit(strongKing) | Bitboards.bit(weakKing);
+            for (long from = attacks(piece, kings) & ~kings; from != 0; from &= from - 1) {
+                markWonIfOpen(Endgame.index(true, strongKing, weakKing, Long.numberOfTrailingZeros(from)));
+            }
+        }
+    }
+
+    // the strong side to move wins, so one more weak-king move into this position is known to lose
+    private void wonForWeakPredecessors(int strongKing, int weakKing, int piece) {
+        long blocked = Bitboards.bit(strongKing) | Bitboards.bit(piece) | Bitboards.kingAttacks(strongKing);
+        for (long from = Bitboards.kingAttacks(weakKing) & ~blocked; from != 0; from &= from - 1) {
+            int index = Endgame.index(false, strongKing, Long.numberOfTrailingZeros(from), piece);
+            if (state[index] == UNKNOWN && movesLeft[index - WEAK_TO_MOVE] > 0
+                    && --movesLeft[index - WEAK_TO_MOVE] == 0) {
+                markWon(index);
+            }
+        }
+    }
+
+    private void markWonIfOpen(int index) {
+        if (state[index] == UNKNOWN) {
+            markWon(index);
+        }
+    }
+
+    private void markWon(int index) {
+        state[index] = WON;
+        queue[queueTail++] = index;
+    }
+
+    private boolean placementLegal(int strongKing, int weakKing, int piece) {
+        if (strongKing == weakKing || piece == strongKing || piece == weakKing) {
+            return false;
+        }
+        if ((Bitboards.kingAttacks(strongKing) & Bitboards.bit(weakKing)) != 0) {
+            return false;
+        }
+        int row = Bitboards.row(piece);
+        return endgame.piece() != ChessPiece.PieceType.PAWN || (row != 1 && row != 8);
+    }
+
+    // whether the weak king may step onto an empty square
+    private boolean weakKingMoveLegal(int strongKing, int to, int piece) {
+        if ((Bitboards.kingAttacks(strongKing) & Bitboards.bit(to)) != 0) {
+            return false;
+        }
+        // the weak king is not a blocker on its own line of retreat
+        return (attacks(piece, Bitboards.bit(strongKing)) & Bitboards.bit(to)) == 0;
+    }
+
+    private long attacks(int piece, long occupied) {
+        return switch (endgame.piece()) {
+            case QUEEN -> Bitboards.queenAttacks(piece, occupied);
+            case ROOK -> Bitboards.rookAttacks(piece, occupied);
+            case PAWN -> Bitboards.pawnAttacks(ChessGame.TeamColor.WHITE, piece);
+            default -> throw new IllegalStateException("No table for " + endgame.piece());
+        };
+    }
+
+    private ByteBuffer pack() {
+        ByteBuffer data = ByteBuffer.allocate(Tablebase.HEADER_BYTES + Endgame.POSITIONS / 4);
+        for (int index = 0; index < Endgame.POSITIONS; index++) {
+            int value = switch (state[index]) {
+                case WON -> Tablebase.WIN;
+                case ILLEGAL -> Tablebase.ILLEGAL;
+                default -> Tablebase.DRAW;
+            };
+            int offset = Tablebase.HEADER_BYTES + (index >>> 2);
+            data.put(offset, (byte) (data.get(offset) | (value << ((index & 3) * 2))));
+        }
+        return data;
+    }
+}
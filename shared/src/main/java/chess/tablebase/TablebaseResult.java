@@ -0,0 +1,10 @@
+package chess.tablebase;
+
+/**
+ * The result of a position with perfect play, for the team to move
+ */
+public enum TablebaseResult {
+    WIN,
+    DRAW,
+    LOSS
+}
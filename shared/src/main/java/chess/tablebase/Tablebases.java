@@ -0,0 +1,127 @@
+package chess.tablebase;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.movecalculations.CastlingRights;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Perfect-play results for positions with at most three pieces. Two bare kings, and a
+ * king with a lone bishop or knight against a king, are draws without any table; KQK,
+ * KRK and KPK are looked up in the tables this set was opened with.
+ * <p>
+ * The shared set maps the tables found in the directory named by the
+ * {@value #PATH_PROPERTY} system property (see TablebaseGenerator for making them);
+ * without it only the tableless draws are known.
+ */
+public class Tablebases {
+    public static final String PATH_PROPERTY = "chess.tablebasePath";
+
+    private static final class SharedHolder {
+        private static final Tablebases SHARED = loadShared();
+    }
+
+    private final Map<Endgame, Tablebase> tables;
+
+    public Tablebases(Map<Endgame, Tablebase> tables) {
+        this.tables = new EnumMap<>(Endgame.class);
+        this.tables.putAll(tables);
+    }
+
+    /**
+     * Maps every table present in a directory; missing tables are skipped
+     *
+     * @throws IOException if a table is present but cannot be mapped
+     */
+    public static Tablebases open(Path directory) throws IOException {
+        Map<Endgame, Tablebase> tables = new EnumMap<>(Endgame.class);
+        for (Endgame endgame : Endgame.values()) {
+            Path path = directory.resolve(endgame.fileName());
+            if (Files.exists(path)) {
+                tables.put(endgame, Tablebase.open(path));
+            }
+        }
+        return new Tablebases(tables);
+    }
+
+    /**
+     * @return the tables every ChessGame in this JVM consults
+     */
+    public static Tablebases shared() {
+        return SharedHolder.SHARED;
+    }
+
+    private static Tablebases loadShared() {
+        String path = System.getProperty(PATH_PROPERTY);
+        if (path == null || path.isEmpty()) {
+            return new Tablebases(Map.of());
+        }
+        try {
+            return open(Path.of(path));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot map tablebases in " + path, e);
+        }
+    }
+
+    public boolean hasTable(Endgame endgame) {
+        return tables.containsKey(endgame);
+    }
+
+    /**
+     * Looks up the result of the game's position with perfect play
+     *
+     * @return the result for the team to move, or null if the position is not covered
+     * (more than three pieces, castling still possible, or its table is not loaded)
+     */
+    public TablebaseResult probe(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long occupied = board.getOccupancy();
+        int pieces = Long.bitCount(occupied);
+        if (pieces > 3 || game.getCastlingRights() != CastlingRights.NONE) {
+            return null;
+        }
+        int extra = -1;
+        ChessPiece extraPiece = null;
+        for (long squares = occupied; squares != 0; squares &= squares - 1) {
+            int square = Long.numberOfTrailingZeros(squares);
+            ChessPiece piece = board.getPiece(square);
+            if (piece.getPieceType() != ChessPiece.PieceType.KING) {
+                extra = square;
+                extraPiece = piece;
+            }
+        }
+        if (extraPiece == null) {
+            return pieces == 2 ? TablebaseResult.DRAW : null;
+        }
+        if (extraPiece.getPieceType() == ChessPiece.PieceType.BISHOP
+                || extraPiece.getPieceType() == ChessPiece.PieceType.KNIGHT) {
+            return TablebaseResult.DRAW;
+        }
+        Tablebase table = tables.get(Endgame.forPiece(extraPiece.getPieceType()));
+        if (table == null) {
+            return null;
+        }
+        ChessGame.TeamColor strong = extraPiece.getTeamColor();
+        ChessGame.TeamColor weak = strong == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        int strongKing = board.getKingSquare(strong);
+        int weakKing = board.getKingSquare(weak);
+        if (strongKing < 0 || weakKing < 0) {
+            return null;
+        }
+        // tables are built for white as the strong side; flip the board for black
+        int flip = strong == ChessGame.TeamColor.WHITE ? 0 : 56;
+        boolean strongToMove = game.getTeamTurn() == strong;
+        int value = table.value(strongToMove, strongKing ^ flip, weakKing ^ flip, extra ^ flip);
+        if (value == Tablebase.WIN) {
+            return strongToMove ? TablebaseResult.WIN : TablebaseResult.LOSS;
+        }
+        return value == Tablebase.DRAW ? TablebaseResult.DRAW : null;
+    }
+}
@@ -5,13 +5,25 @@ import model.game.GameData;
 
 public class LoadGameMessage extends ServerMessage {
     private GameData game;
+    // centipawns, positive when white is ahead; null if the message carries no game
+    private Integer evaluation;
 
     public LoadGameMessage(GameData gameData) {
         super(ServerMessageType.LOAD_GAME);
         this.game = gameData;
+        ChessGame chessGame = gameData == null ? null : gameData.game();
+        this.evaluation = chessGame == null ? null : chessGame.getEvaluation();
     }
 
     public GameData getGame() {
         return game;
     }
+
+    /**
+     * @return the static evaluation of the game's position in centipawns, positive when
+     * white is ahead (see ChessGame.getEvaluation), or null if there is no game
+     */
+    public Integer getEvaluation() {
+        return evaluation;
+    }
 }
@@ -0,0 +1,89 @@
+package chess;
+
+import chess.movecalculations.MoveList;
+import com.google.gson.Gson;
+import model.game.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import websocket.messages.LoadGameMessage;
+
+import java.util.Random;
+
+public class EvaluationTests {
+
+    @Test
+    @DisplayName("Starting Position Is Level")
+    public void startIsLevel() {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(0, game.getEvaluation());
+        Assertions.assertEquals(PieceSquareTables.MAX_PHASE, game.getBoard().getPhase());
+    }
+
+    @Test
+    @DisplayName("Incremental Score Matches A Rebuilt Board")
+    public void incrementalMatchesRebuilt() {
+        Gson gson = new Gson();
+        Random random = new Random(15);
+        MoveList moves = new MoveList();
+        for (int gameNumber = 0; gameNumber < 20; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 120; ply++) {
+                moves.clear();
+                game.validMoves(game.getTeamTurn(), moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.doMove(moves.get(random.nextInt(moves.size())));
+                // Gson fills the bitboards directly, so the copy computes its score from scratch
+                ChessBoard rebuilt = gson.fromJson(gson.toJson(game.getBoard()), ChessBoard.class);
+                Assertions.assertEquals(rebuilt.getEvaluation(), game.getEvaluation());
+                Assertions.assertEquals(rebuilt.getPhase(), game.getBoard().getPhase());
+            }
+            while (game.getUndoDepth() > 0) {
+                game.undoMove();
+            }
+            Assertions.assertEquals(0, game.getEvaluation());
+        }
+    }
+
+    @Test
+    @DisplayName("Mirrored Positions Have Opposite Scores")
+    public void mirrorSymmetry() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(4, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        board.addPiece(new ChessPosition(8, 3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        ChessBoard mirrored = new ChessBoard();
+        mirrored.addPiece(new ChessPosition(8, 7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        mirrored.addPiece(new ChessPosition(5, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        mirrored.addPiece(new ChessPosition(1, 3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+
+        Assertions.assertTrue(board.getEvaluation() > 0, "A knight up should favour white");
+        Assertions.assertEquals(-board.getEvaluation(), mirrored.getEvaluation());
+    }
+
+    @Test
+    @DisplayName("Central Knight Beats A Knight On The Rim")
+    public void pieceSquareValues() {
+        ChessBoard center = new ChessBoard();
+        center.addPiece(new ChessPosition(4, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        ChessBoard rim = new ChessBoard();
+        rim.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+
+        Assertions.assertTrue(center.getEvaluation() > rim.getEvaluation());
+    }
+
+    @Test
+    @DisplayName("Load Game Message Carries The Score")
+    public void loadGameMessage() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        LoadGameMessage message = new LoadGameMessage(new GameData(1, "white", "black", "game", game));
+
+        Gson gson = new Gson();
+        LoadGameMessage received = gson.fromJson(gson.toJson(message), LoadGameMessage.class);
+        Assertions.assertEquals(game.getEvaluation(), received.getEvaluation());
+        Assertions.assertEquals(game.getEvaluation(), received.getGame().game().getEvaluation());
+    }
+}
@@ -0,0 +1,125 @@
+package chess;
+
+import chess.movecalculations.CastlingRights;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import java.util.List;
+
+public class FenTests {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Reads The Starting Position")
+    public void startingPosition() {
+        ChessGame game = ChessGame.fromFen(ChessGame.START_FEN);
+
+        Assertions.assertEquals(new ChessGame(), game);
+        Assertions.assertEquals(new ChessGame().getZobristKey(), game.getZobristKey());
+        Assertions.assertEquals(new ChessGame().getEvaluation(), game.getEvaluation());
+        Assertions.assertEquals(ChessGame.START_FEN, new ChessGame().toFen());
+    }
+
+    @Test
+    @DisplayName("Writes Back What It Reads")
+    public void roundTrip() {
+        List<String> records = List.of(KIWIPETE,
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                "rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 3");
+        for (String fen : records) {
+            Assertions.assertEquals(fen, ChessGame.fromFen(fen).toFen());
+        }
+        Assertions.assertEquals("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8",
+                ChessBoard.fromFen("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1").toFen());
+    }
+
+    @Test
+    @DisplayName("Matches The Board Drawn As Text")
+    public void matchesTextBoard() {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                |r| | | |k| | |r|
+                |p| |p|p|q|p|b| |
+                |b|n| | |p|n|p| |
+                | | | |P|N| | | |
+                | |p| | |P| | | |
+                | | |N| | |Q| |p|
+                |P|P|P|B|B|P|P|P|
+                |R| | | |K| | |R|
+                """));
+
+        ChessGame fromFen = ChessGame.fromFen(KIWIPETE);
+        Assertions.assertEquals(game, fromFen);
+        Assertions.assertEquals(game.getZobristKey(), fromFen.getZobristKey());
+        Assertions.assertEquals(97862, fromFen.perft(3));
+    }
+
+    @Test
+    @DisplayName("Keeps The Move Counters")
+    public void counters() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(7, 5, 5, 5));
+        game.makeMove(move(1, 7, 3, 6));
+        Assertions.assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2", game.toFen());
+
+        game.undoMove();
+        game.undoMove();
+        game.undoMove();
+        Assertions.assertEquals(ChessGame.START_FEN, game.toFen());
+
+        ChessGame epd = ChessGame.fromFen("8/8/8/8/8/8/8/K6k w - -");
+        Assertions.assertEquals(0, epd.getHalfmoveClock());
+        Assertions.assertEquals(1, epd.getFullmoveNumber());
+    }
+
+    @Test
+    @DisplayName("Normalizes Rights That Cannot Be Used")
+    public void normalizesRights() throws InvalidMoveException {
+        // no black pawn can take on e3, so the square is dropped like doMove drops it
+        ChessGame afterE4 = new ChessGame();
+        afterE4.makeMove(move(2, 5, 4, 5));
+        ChessGame fromFen = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+        Assertions.assertEquals(-1, fromFen.getEnPassantSquare());
+        Assertions.assertEquals(afterE4.getZobristKey(), fromFen.getZobristKey());
+        Assertions.assertEquals(afterE4.toFen(), fromFen.toFen());
+
+        ChessGame capturable = ChessGame.fromFen("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 3");
+        Assertions.assertEquals(new ChessPosition(3, 5).toSquare(), capturable.getEnPassantSquare());
+
+        // the white rooks are gone, so only black can still castle
+        ChessGame noRooks = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/4K3 w KQkq - 0 1");
+        Assertions.assertEquals(CastlingRights.BLACK_KINGSIDE | CastlingRights.BLACK_QUEENSIDE, noRooks.getCastlingRights());
+    }
+
+    @Test
+    @DisplayName("Rejects Malformed Records")
+    public void rejectsMalformed() {
+        List<String> records = List.of("",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR/8 w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/ppppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KX - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - x 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 0",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 ");
+        for (String fen : records) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+    }
+
+    private static ChessMove move(int fromRow, int fromColumn, int toRow, int toColumn) {
+        return new ChessMove(new ChessPosition(fromRow, fromColumn), new ChessPosition(toRow, toColumn), null);
+    }
+}
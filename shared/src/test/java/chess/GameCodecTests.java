@@ -0,0 +1,116 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class GameCodecTests {
+
+    @Test
+    @DisplayName("Round Trips Positions With Every Kind Of State")
+    public void roundTrip() {
+        List<String> records = List.of(ChessGame.START_FEN,
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                "rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 3",
+                "rnbqkbnr/pppp1ppp/8/3Pp3/8/8/PPP1PPPP/RNBQKBNR w KQkq e6 0 3",
+                "8/8/8/8/8/8/8/K6k b - - 99 321",
+                "8/8/8/8/8/8/8/KP5k w - - 0 1");
+        for (String fen : records) {
+            ChessGame game = ChessGame.fromFen(fen);
+            byte[] bytes = GameCodec.encode(game);
+            ChessGame decoded = GameCodec.decode(bytes);
+
+            Assertions.assertTrue(bytes.length <= GameCodec.MAX_BYTES, fen + " took " + bytes.length + " bytes");
+            Assertions.assertEquals(fen, decoded.toFen());
+            Assertions.assertEquals(game, decoded);
+            Assertions.assertEquals(game.getZobristKey(), decoded.getZobristKey());
+        }
+    }
+
+    @Test
+    @DisplayName("Keeps Resignation")
+    public void resigned() {
+        ChessGame game = new ChessGame();
+        game.setResigned(true);
+        Assertions.assertEquals(ChessGame.GameStatus.RESIGNED, GameCodec.decode(GameCodec.encode(game)).getGameStatus());
+        Assertions.assertFalse(GameCodec.decode(GameCodec.encode(new ChessGame())).isResigned());
+    }
+
+    @Test
+    @DisplayName("Is An Order Of Magnitude Smaller Than JSON")
+    public void smallerThanJson() {
+        ChessGame game = new ChessGame();
+        byte[] json = new Gson().toJson(game).getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = GameCodec.encode(game);
+
+        Assertions.assertEquals(GameCodec.MAX_BYTES, bytes.length);
+        Assertions.assertTrue(bytes.length * 10 <= json.length, bytes.length + " bytes against " + json.length + " of JSON");
+        Assertions.assertFalse(GameCodec.isEncoded(json));
+        Assertions.assertTrue(GameCodec.isEncoded(bytes));
+    }
+
+    @Test
+    @DisplayName("Refuses A History Too Long To Store")
+    public void historyLimit() throws InvalidMoveException {
+        // the knights go out and back, so the game can run as long as needed
+        ChessMove[] shuffle = {move(1, 7, 3, 6), move(8, 7, 6, 6), move(3, 6, 1, 7), move(6, 6, 8, 7)};
+        ChessGame game = new ChessGame();
+        for (int i = 0; i < GameCodec.MAX_MOVES; i++) {
+            game.makeMove(shuffle[i % shuffle.length]);
+        }
+        ChessGame decoded = GameCodec.decode(GameCodec.encode(game));
+        Assertions.assertEquals(GameCodec.MAX_MOVES, decoded.getMoveHistory().size());
+        Assertions.assertEquals(game.getMoveHistory().get(GameCodec.MAX_MOVES - 1),
+                decoded.getMoveHistory().get(GameCodec.MAX_MOVES - 1));
+
+        game.makeMove(shuffle[GameCodec.MAX_MOVES % shuffle.length]);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.encode(game));
+    }
+
+    @Test
+    @DisplayName("Rejects Bytes That Are Not A Game")
+    public void rejectsCorrupt() {
+        byte[] bytes = GameCodec.encode(new ChessGame());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(new byte[0]));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> GameCodec.decode("{\"board\":{}}".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> GameCodec.decode(Arrays.copyOf(bytes, bytes.length - 1)));
+
+        byte[] unknownPiece = bytes.clone();
+        unknownPiece[9] = (byte) 0xF0;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(unknownPiece));
+    }
+
+    @Test
+    @DisplayName("Reads Boards Stored As The Old Piece Grid")
+    public void readsLegacyGrid() {
+        String empty = "[null,null,null,null,null,null,null,null]";
+        String json = "{\"board\":["
+                + "[null,null,null,null,{\"teamColor\":\"WHITE\",\"pieceType\":\"KING\"},null,null,null],"
+                + "[null,null,null,null,{\"teamColor\":\"WHITE\",\"pieceType\":\"PAWN\"},null,null,null],"
+                + String.join(",", empty, empty, empty, empty, empty) + ","
+                + "[{\"teamColor\":\"BLACK\",\"pieceType\":\"ROOK\"},null,null,null,"
+                + "{\"teamColor\":\"BLACK\",\"pieceType\":\"KING\"},null,null,null]]}";
+        Gson gson = new Gson();
+        ChessBoard board = gson.fromJson(json, ChessBoard.class);
+
+        Assertions.assertEquals(ChessGame.fromFen("r3k3/8/8/8/8/8/4P3/4K3 w - - 0 1").getBoard(), board);
+        Assertions.assertEquals(board, gson.fromJson(gson.toJson(board), ChessBoard.class));
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("{\"board\":[[]]}", ChessBoard.class));
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("{\"board\":["
+                + String.join(",", Collections.nCopies(8, "[1,2,3,4,5,6,7,8]")) + "]}", ChessBoard.class));
+    }
+
+    private static ChessMove move(int fromRow, int fromColumn, int toRow, int toColumn) {
+        return new ChessMove(new ChessPosition(fromRow, fromColumn), new ChessPosition(toRow, toColumn), null);
+    }
+}
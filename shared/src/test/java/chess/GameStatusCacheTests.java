@@ -0,0 +1,72 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+public class GameStatusCacheTests {
+
+    @Test
+    @DisplayName("Status Follows The Game")
+    public void statusFollowsGame() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getGameStatus());
+
+        // fool's mate
+        play(game, 2, 6, 3, 6);
+        play(game, 7, 5, 5, 5);
+        play(game, 2, 7, 4, 7);
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getGameStatus());
+        play(game, 8, 4, 4, 8);
+
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.getGameStatus());
+        Assertions.assertTrue(game.isGameOver());
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+
+        game.undoMove();
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getGameStatus());
+        Assertions.assertFalse(game.isGameOver());
+    }
+
+    @Test
+    @DisplayName("Check And Stalemate")
+    public void checkAndStalemate() {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                |k| | | | | | | |
+                | | | | | | | | |
+                | |Q| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |K| | | | | |
+                """));
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(ChessGame.GameStatus.STALEMATE, game.getGameStatus());
+        Assertions.assertTrue(game.isInStalemate(ChessGame.TeamColor.BLACK));
+
+        // changing the board directly changes its key, so the cached status is not reused
+        game.getBoard().addPiece(new ChessPosition(6, 2), null);
+        game.getBoard().addPiece(new ChessPosition(6, 3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        Assertions.assertEquals(ChessGame.GameStatus.CHECK, game.getGameStatus());
+        game.getBoard().addPiece(new ChessPosition(6, 3), null);
+        game.getBoard().addPiece(new ChessPosition(5, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getGameStatus());
+    }
+
+    @Test
+    @DisplayName("Resigned Game")
+    public void resignedGame() {
+        ChessGame game = new ChessGame();
+        game.setResigned(true);
+        Assertions.assertEquals(ChessGame.GameStatus.RESIGNED, game.getGameStatus());
+        Assertions.assertTrue(game.isGameOver());
+    }
+
+    private static void play(ChessGame game, int startRow, int startColumn, int endRow, int endColumn)
+            throws InvalidMoveException {
+        game.makeMove(new ChessMove(new ChessPosition(startRow, startColumn), new ChessPosition(endRow, endColumn), null));
+    }
+}
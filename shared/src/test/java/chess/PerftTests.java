@@ -0,0 +1,136 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import java.util.Map;
+
+/**
+ * Checks ChessGame.perft against the standard published counts
+ * (https://www.chessprogramming.org/Perft_Results) and reports nodes per second,
+ * so any change to the move generator can be benchmarked and checked for regressions.
+ * When a count is wrong the per-move subtree counts (divide) are printed.
+ */
+public class PerftTests {
+
+    @Test
+    @DisplayName("Perft Initial Position")
+    public void initialPosition() {
+        ChessGame game = new ChessGame();
+        assertPerft("initial", game, 20, 400, 8902, 197281);
+    }
+
+    @Test
+    @DisplayName("Perft Kiwipete")
+    public void kiwipete() {
+        ChessGame game = loadGame(ChessGame.TeamColor.WHITE, """
+                |r| | | |k| | |r|
+                |p| |p|p|q|p|b| |
+                |b|n| | |p|n|p| |
+                | | | |P|N| | | |
+                | |p| | |P| | | |
+                | | |N| | |Q| |p|
+                |P|P|P|B|B|P|P|P|
+                |R| | | |K| | |R|
+                """);
+        assertPerft("kiwipete", game, 48, 2039, 97862, 4085603);
+    }
+
+    @Test
+    @DisplayName("Perft Position 3")
+    public void position3() {
+        ChessGame game = loadGame(ChessGame.TeamColor.WHITE, """
+                | | | | | | | | |
+                | | |p| | | | | |
+                | | | |p| | | | |
+                |K|P| | | | | |r|
+                | |R| | | |p| |k|
+                | | | | | | | | |
+                | | | | |P| |P| |
+                | | | | | | | | |
+                """);
+        assertPerft("position 3", game, 14, 191, 2812, 43238);
+    }
+
+    @Test
+    @DisplayName("Perft Position 4")
+    public void position4() {
+        ChessGame game = loadGame(ChessGame.TeamColor.WHITE, """
+                |r| | | |k| | |r|
+                |P|p|p|p| |p|p|p|
+                | |b| | | |n|b|N|
+                |n|P| | | | | | |
+                |B|B|P| |P| | | |
+                |q| | | | |N| | |
+                |P|p| |P| | |P|P|
+                |R| | |Q| |R|K| |
+                """);
+        assertPerft("position 4", game, 6, 264, 9467, 422333);
+    }
+
+    @Test
+    @DisplayName("Perft Position 5")
+    public void position5() {
+        ChessGame game = loadGame(ChessGame.TeamColor.WHITE, """
+                |r|n|b|q| |k| |r|
+                |p|p| |P|b|p|p|p|
+                | | |p| | | | | |
+                | | | | | | | | |
+                | | |B| | | | | |
+                | | | | | | | | |
+                |P|P|P| |N|n|P|P|
+                |R|N|B|Q|K| | |R|
+                """);
+        assertPerft("position 5", game, 44, 1486, 62379);
+    }
+
+    @Test
+    @DisplayName("Perft Position 6")
+    public void position6() {
+        ChessGame game = loadGame(ChessGame.TeamColor.WHITE, """
+                |r| | | | |r|k| |
+                | |p|p| |q|p|p|p|
+                |p| |n|p| |n| | |
+                | | |b| |p| |B| |
+                | | |B| |P| |b| |
+                |P| |N|P| |N| | |
+                | |P|P| |Q|P|P|P|
+                |R| | | | |R|K| |
+                """);
+        assertPerft("position 6", game, 46, 2079, 89890);
+    }
+
+    private static ChessGame loadGame(ChessGame.TeamColor teamTurn, String boardText) {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard(boardText));
+        game.setTeamTurn(teamTurn);
+        return game;
+    }
+
+    // expected[i] is the count at depth i + 1
+    private static void assertPerft(String name, ChessGame game, long... expected) {
+        for (int depth = 1; depth <= expected.length; depth++) {
+            long start = System.nanoTime();
+            long nodes = game.perft(depth);
+            long elapsed = Math.max(System.nanoTime() - start, 1);
+
+            System.out.printf("perft %s depth %d: %d nodes in %.1f ms (%.0f nodes/sec)%n",
+                    name, depth, nodes, elapsed / 1e6, nodes * 1e9 / elapsed);
+            if (nodes != expected[depth - 1]) {
+                printDivide(game, depth);
+            }
+            Assertions.assertEquals(expected[depth - 1], nodes, "Wrong perft count for " + name + " at depth " + depth);
+        }
+    }
+
+    private static void printDivide(ChessGame game, int depth) {
+        System.out.println("divide at depth " + depth + ":");
+        for (Map.Entry<ChessMove, Long> entry : game.perftDivide(depth).entrySet()) {
+            ChessMove move = entry.getKey();
+            System.out.printf("  %s -> %s%s: %d%n", move.getStartPosition(), move.getEndPosition(),
+                    move.getPromotionPiece() == null ? "" : " =" + move.getPromotionPiece(), entry.getValue());
+        }
+    }
+}
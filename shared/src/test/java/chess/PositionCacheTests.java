@@ -0,0 +1,132 @@
+package chess;
+
+import chess.movecalculations.Move;
+import chess.movecalculations.MoveList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PositionCacheTests {
+
+    @Test
+    @DisplayName("Stores And Finds A Position")
+    public void storeAndProbe() {
+        PositionCache cache = new PositionCache(1);
+        ChessGame game = new ChessGame();
+        MoveList moves = new MoveList();
+        game.validMoves(game.getTeamTurn(), moves);
+
+        Assertions.assertNull(cache.probe(game.getZobristKey(), new MoveList()));
+        Assertions.assertTrue(cache.store(game.getZobristKey(), ChessGame.GameStatus.ONGOING, moves));
+
+        MoveList cached = new MoveList();
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, cache.probe(game.getZobristKey(), cached));
+        Assertions.assertEquals(moves.toChessMoves(), cached.toChessMoves());
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(1, cache.getMisses());
+        Assertions.assertEquals(0, cache.getOverwrites());
+    }
+
+    @Test
+    @DisplayName("Rejects Another Position In The Same Slot")
+    public void rejectsOtherKey() {
+        PositionCache cache = new PositionCache(1);
+        MoveList moves = new MoveList();
+        moves.add(Move.encode(12, 28));
+        long key = 0x1234_5678_9ABC_DEF0L;
+        // same low bits, so the same slot
+        long other = key ^ (1L << 62);
+        cache.store(key, ChessGame.GameStatus.CHECK, moves);
+
+        MoveList probed = new MoveList();
+        Assertions.assertNull(cache.probe(other, probed));
+        Assertions.assertTrue(probed.isEmpty(), "A miss must leave the buffer as it was");
+
+        cache.store(other, ChessGame.GameStatus.ONGOING, moves);
+        Assertions.assertEquals(1, cache.getOverwrites());
+        Assertions.assertNull(cache.probe(key, probed));
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, cache.probe(other, probed));
+    }
+
+    @Test
+    @DisplayName("Size Is A Power Of Two")
+    public void sizing() {
+        PositionCache cache = new PositionCache(3);
+        Assertions.assertEquals(Integer.highestOneBit(cache.capacity()), cache.capacity());
+        Assertions.assertTrue(cache.sizeBytes() <= 3L * 1024 * 1024);
+
+        PositionCache disabled = new PositionCache(0);
+        Assertions.assertEquals(0, disabled.capacity());
+        Assertions.assertFalse(disabled.store(1L, ChessGame.GameStatus.ONGOING, new MoveList()));
+        Assertions.assertNull(disabled.probe(1L, new MoveList()));
+    }
+
+    @Test
+    @DisplayName("Games Share Cached Positions")
+    public void gamesShareCache() throws InvalidMoveException {
+        ChessMove e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        ChessGame first = new ChessGame();
+        first.makeMove(e4);
+        first.getGameStatus();
+
+        long hits = PositionCache.shared().getHits();
+        ChessGame second = new ChessGame();
+        second.makeMove(e4);
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, second.getGameStatus());
+        Assertions.assertTrue(PositionCache.shared().getHits() >= hits + 2);
+        Assertions.assertEquals(first.validMoves(new ChessPosition(7, 5)), second.validMoves(new ChessPosition(7, 5)));
+    }
+
+    @Test
+    @DisplayName("Concurrent Writers Never Produce A Wrong Hit")
+    public void concurrentWriters() throws InterruptedException {
+        PositionCache cache = new PositionCache(1);
+        // every key lands in slot 0; key k always stores k % 60 + 1 moves from square k % 64
+        long[] keys = new long[16];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) (i + 1) << 40) * cache.capacity();
+        }
+        AtomicBoolean wrongHit = new AtomicBoolean(false);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            threads.add(new Thread(() -> {
+                MoveList moves = new MoveList();
+                for (int round = 0; round < 50_000; round++) {
+                    long key = keys[(round + offset) % keys.length];
+                    int count = (int) (key % 60) + 1;
+                    int from = (int) (key % 64);
+                    if ((round & 1) == 0) {
+                        moves.clear();
+                        for (int i = 0; i < count; i++) {
+                            moves.add(Move.encode(from, i));
+                        }
+                        cache.store(key, ChessGame.GameStatus.ONGOING, moves);
+                    } else {
+                        moves.clear();
+                        if (cache.probe(key, moves) != null) {
+                            boolean consistent = moves.size() == count;
+                            for (int i = 0; consistent && i < count; i++) {
+                                consistent = moves.get(i) == Move.encode(from, i);
+                            }
+                            if (!consistent) {
+                                wrongHit.set(true);
+                            }
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertFalse(wrongHit.get(), "A torn or foreign entry was returned as a hit");
+    }
+}
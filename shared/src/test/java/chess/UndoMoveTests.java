@@ -0,0 +1,79 @@
+package chess;
+
+import chess.movecalculations.Move;
+import chess.movecalculations.MoveList;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class UndoMoveTests {
+
+    @Test
+    @DisplayName("Undo Restores Every Position")
+    public void undoRestoresEveryPosition() {
+        Gson gson = new Gson();
+        Random random = new Random(9);
+        MoveList moves = new MoveList();
+        for (int gameNumber = 0; gameNumber < 30; gameNumber++) {
+            ChessGame game = new ChessGame();
+            String[] snapshots = new String[200];
+            long[] keys = new long[200];
+            int plies = 0;
+            while (plies < snapshots.length) {
+                moves.clear();
+                game.validMoves(game.getTeamTurn(), moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                snapshots[plies] = gson.toJson(game);
+                keys[plies] = game.getZobristKey();
+                game.doMove(moves.get(random.nextInt(moves.size())));
+                plies++;
+            }
+
+            Assertions.assertEquals(plies, game.getUndoDepth());
+            while (plies > 0) {
+                plies--;
+                game.undoMove();
+                Assertions.assertEquals(snapshots[plies], gson.toJson(game), "Undo did not restore ply " + plies);
+                Assertions.assertEquals(keys[plies], game.getZobristKey());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Undo After makeMove")
+    public void undoAfterMakeMove() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessMove pawnPush = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        game.makeMove(pawnPush);
+
+        Assertions.assertEquals(Move.fromChessMove(pawnPush), Move.withoutFlags(game.undoMove()));
+        Assertions.assertEquals(new ChessGame(), game);
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("Undo With Nothing To Undo")
+    public void undoEmptyStack() {
+        ChessGame game = new ChessGame();
+        Assertions.assertThrows(IllegalStateException.class, game::undoMove);
+    }
+
+    @Test
+    @DisplayName("Repetition Count")
+    public void repetitionCount() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(0, game.getRepetitionCount());
+        for (int cycle = 1; cycle <= 2; cycle++) {
+            game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+            game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+            game.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+            game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+            Assertions.assertEquals(cycle, game.getRepetitionCount());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package chess;
+
+import chess.movecalculations.Move;
+import chess.movecalculations.MoveList;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Checks that the incrementally updated Zobrist key always matches a key computed
+ * from scratch, and that it identifies positions rather than move orders.
+ */
+public class ZobristTests {
+
+    @Test
+    @DisplayName("Incremental Key Matches Recomputed Key")
+    public void incrementalKeyMatchesRecomputed() throws InvalidMoveException {
+        Random random = new Random(240);
+        MoveList moves = new MoveList();
+        for (int gameNumber = 0; gameNumber < 50; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 80; ply++) {
+                moves.clear();
+                game.validMoves(game.getTeamTurn(), moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(Move.toChessMove(moves.get(random.nextInt(moves.size()))));
+                Assertions.assertEquals(Zobrist.placement(game.getBoard()), game.getBoard().getZobristKey(),
+                        "Incremental key drifted from the board after ply " + ply);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Transpositions Share A Key")
+    public void transpositionsShareKey() throws InvalidMoveException {
+        ChessGame knightsFirst = new ChessGame();
+        play(knightsFirst, 1, 7, 3, 6);
+        play(knightsFirst, 8, 7, 6, 6);
+        play(knightsFirst, 1, 2, 3, 3);
+
+        ChessGame otherOrder = new ChessGame();
+        play(otherOrder, 1, 2, 3, 3);
+        play(otherOrder, 8, 7, 6, 6);
+        play(otherOrder, 1, 7, 3, 6);
+
+        Assertions.assertEquals(knightsFirst.getZobristKey(), otherOrder.getZobristKey());
+        Assertions.assertEquals(knightsFirst, otherOrder);
+        Assertions.assertEquals(knightsFirst.hashCode(), otherOrder.hashCode());
+    }
+
+    @Test
+    @DisplayName("Side To Move Changes Key")
+    public void sideToMoveChangesKey() {
+        ChessGame white = new ChessGame();
+        ChessGame black = new ChessGame();
+        black.setTeamTurn(ChessGame.TeamColor.BLACK);
+
+        Assertions.assertEquals(white.getBoard().getZobristKey(), black.getBoard().getZobristKey());
+        Assertions.assertNotEquals(white.getZobristKey(), black.getZobristKey());
+    }
+
+    @Test
+    @DisplayName("Key Survives Gson Round Trip")
+    public void keySurvivesSerialization() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, 2, 5, 4, 5);
+        play(game, 7, 3, 5, 3);
+
+        Gson gson = new Gson();
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+
+        Assertions.assertEquals(game.getZobristKey(), copy.getZobristKey());
+        Assertions.assertEquals(game.hashCode(), copy.hashCode());
+        play(copy, 1, 7, 3, 6);
+        Assertions.assertEquals(Zobrist.placement(copy.getBoard()), copy.getBoard().getZobristKey());
+    }
+
+    private static void play(ChessGame game, int startRow, int startColumn, int endRow, int endColumn)
+            throws InvalidMoveException {
+        game.makeMove(new ChessMove(new ChessPosition(startRow, startColumn), new ChessPosition(endRow, endColumn), null));
+    }
+}
@@ -0,0 +1,174 @@
+package chess.book;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+public class PolyglotBookTests {
+    private static final ChessMove E4 = move(2, 5, 4, 5);
+    private static final ChessMove D4 = move(2, 4, 4, 4);
+    private static final ChessMove E5 = move(7, 5, 5, 5);
+    private static final ChessMove C5 = move(7, 3, 5, 3);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Finds Moves Heaviest First")
+    public void lookup() throws Exception {
+        BookBuilder builder = new BookBuilder();
+        builder.addLine(List.of(E4, E5));
+        builder.addLine(List.of(E4, C5));
+        builder.addLine(List.of(E4, C5));
+        builder.addLine(List.of(D4));
+        PolyglotBook book = PolyglotBook.open(write(builder));
+
+        Assertions.assertEquals(builder.size(), book.size());
+        ChessGame game = new ChessGame();
+        List<BookMove> first = game.getBookMoves(book);
+        Assertions.assertEquals(List.of(E4, D4), first.stream().map(BookMove::move).toList());
+        Assertions.assertEquals(3, first.get(0).weight());
+
+        game.makeMove(E4);
+        Assertions.assertEquals(List.of(C5, E5), game.getBookMoves(book).stream().map(BookMove::move).toList());
+
+        game.makeMove(C5);
+        Assertions.assertTrue(game.getBookMoves(book).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Reads Castling As The King Taking Its Rook")
+    public void castling() throws Exception {
+        List<ChessMove> line = List.of(E4, E5, move(1, 7, 3, 6), move(8, 2, 6, 3), move(1, 6, 4, 3),
+                move(8, 6, 5, 3));
+        ChessMove castle = move(1, 5, 1, 7);
+        BookBuilder builder = new BookBuilder();
+        builder.addLine(line);
+        ChessGame game = new ChessGame();
+        for (ChessMove move : line) {
+            game.makeMove(move);
+        }
+        builder.add(game, castle, 5);
+        PolyglotBook book = PolyglotBook.open(write(builder));
+
+        // stored the Polyglot way, e1h1
+        Assertions.assertEquals(move(1, 5, 1, 8), book.entries(PolyglotBook.polyglotKey(game)).get(0).move());
+        Assertions.assertEquals(List.of(new BookMove(castle, 5, 0)), game.getBookMoves(book));
+    }
+
+    @Test
+    @DisplayName("Searches Keys As Unsigned Numbers")
+    public void unsignedKeys() throws IOException {
+        // the highest key sorts last, even though it is negative as a long
+        long[] keys = {1L, 0x7FFF_FFFF_FFFF_FFFFL, 0x8000_0000_0000_0000L, -1L};
+        Path path = directory.resolve("keys.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path))) {
+            for (int i = 0; i < keys.length; i++) {
+                out.writeLong(keys[i]);
+                out.writeShort(PolyglotBook.encodeMove(12, 28, null));
+                out.writeShort(i + 1);
+                out.writeInt(0);
+            }
+        }
+        PolyglotBook book = PolyglotBook.open(path);
+
+        for (int i = 0; i < keys.length; i++) {
+            List<BookMove> entries = book.entries(keys[i]);
+            Assertions.assertEquals(1, entries.size());
+            Assertions.assertEquals(i + 1, entries.get(0).weight());
+        }
+        Assertions.assertTrue(book.entries(2L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Picks Moves By Weight")
+    public void pick() throws Exception {
+        BookBuilder builder = new BookBuilder();
+        ChessGame start = new ChessGame();
+        builder.add(start, E4, 9);
+        builder.add(start, D4, 1);
+        PolyglotBook book = PolyglotBook.open(write(builder));
+
+        Random random = new Random(16);
+        int e4 = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (E4.equals(book.pick(start, random))) {
+                e4++;
+            }
+        }
+        Assertions.assertTrue(e4 > 850 && e4 < 950, "e4 picked " + e4 + " times in 1000");
+    }
+
+    @Test
+    @DisplayName("Rejects A File That Is Not A Book")
+    public void rejectsPartialEntries() throws IOException {
+        Path path = directory.resolve("broken.bin");
+        Files.write(path, new byte[PolyglotBook.ENTRY_BYTES + 1]);
+        Assertions.assertThrows(IOException.class, () -> PolyglotBook.open(path));
+    }
+
+    @Test
+    @DisplayName("Computes The Published Polyglot Keys")
+    public void polyglotKeys() throws InvalidMoveException {
+        // the reference keys from the Polyglot book format description, with en passant
+        // counted only after f7f5, where a pawn can take
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(0x463B96181691FC9CL, PolyglotBook.polyglotKey(game));
+        String[] line = {"e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "e8f7"};
+        long[] keys = {0x823C9B50FD114196L, 0x0756B94461C50FB0L, 0x662FAFB965DB29D4L, 0x22A48B5A8E47FF78L,
+                0x652A607CA3F242C1L, 0x00FDD303C946BDD9L};
+        for (int i = 0; i < line.length; i++) {
+            game.makeMove(move(line[i]));
+            Assertions.assertEquals(keys[i], PolyglotBook.polyglotKey(game), "after " + line[i]);
+        }
+
+        game = new ChessGame();
+        for (String move : new String[]{"a2a4", "b7b5", "h2h4", "b5b4", "c2c4"}) {
+            game.makeMove(move(move));
+        }
+        Assertions.assertEquals(0x3C8123EA7B067637L, PolyglotBook.polyglotKey(game));
+        game.makeMove(move("b4c3"));
+        game.makeMove(move("a1a3"));
+        Assertions.assertEquals(0x5C3F9B829B279560L, PolyglotBook.polyglotKey(game));
+    }
+
+    @Test
+    @DisplayName("Reads A Book Written By Another Tool")
+    public void foreignBook() throws IOException {
+        // what another tool writes for 1.e4: the Polyglot key of the starting position
+        Path path = directory.resolve("foreign.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path))) {
+            out.writeLong(0x463B96181691FC9CL);
+            out.writeShort(PolyglotBook.encodeMove(12, 28, null));
+            out.writeShort(1);
+            out.writeInt(0);
+        }
+        PolyglotBook book = PolyglotBook.open(path);
+        Assertions.assertEquals(1, book.size());
+        Assertions.assertEquals(List.of(E4), new ChessGame().getBookMoves(book).stream().map(BookMove::move).toList());
+    }
+
+    private Path write(BookBuilder builder) throws IOException {
+        Path path = directory.resolve("book.bin");
+        builder.write(path);
+        return path;
+    }
+
+    // a move in coordinate notation, e.g. e2e4
+    private static ChessMove move(String move) {
+        return move(move.charAt(1) - '0', move.charAt(0) - 'a' + 1, move.charAt(3) - '0', move.charAt(2) - 'a' + 1);
+    }
+
+    private static ChessMove move(int fromRow, int fromColumn, int toRow, int toColumn) {
+        return new ChessMove(new ChessPosition(fromRow, fromColumn), new ChessPosition(toRow, toColumn), null);
+    }
+}
@@ -0,0 +1,170 @@
+package chess.engine;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MateSolverTests {
+    // Morphy's mate in two, solved by 1.Ra6
+    private static final String MORPHY = """
+            |k|b|K| | | | | |
+            |p|p| | | | | | |
+            | |P| | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            |R| | | | | | | |
+            """;
+
+    // two rooks walk the king up the board: 1.Ra6+ 2.Rb7+ 3.Ra8#
+    private static final String LADDER = """
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | |k| |
+            | |R| | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            |R| | | | | | |K|
+            """;
+
+    @Test
+    @DisplayName("Finds Mate In One")
+    public void mateInOne() {
+        ChessGame game = loadGame(ChessGame.TeamColor.WHITE, """
+                | | | | | | |k| |
+                | | | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | |P|P|P|
+                |R| | | | | |K| |
+                """);
+        try (MateSolver solver = new MateSolver(2, 3)) {
+            MateResult result = solver.solve(game);
+
+            Assertions.assertEquals(1, result.mateIn());
+            Assertions.assertEquals(List.of(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null)),
+                    result.keyMoves());
+            Assertions.assertTrue(result.isUnique());
+        }
+    }
+
+    @Test
+    @DisplayName("Finds The Key Of A Mate In Two")
+    public void mateInTwo() {
+        ChessGame game = loadGame(ChessGame.TeamColor.WHITE, MORPHY);
+        try (MateSolver solver = new MateSolver(4, 3)) {
+            MateResult result = solver.solve(game);
+
+            Assertions.assertEquals(2, result.mateIn());
+            Assertions.assertEquals(List.of(new ChessMove(new ChessPosition(1, 1), new ChessPosition(6, 1), null)),
+                    result.keyMoves());
+            Assertions.assertTrue(result.nodes() > 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Stalemate Is Not Mate")
+    public void stalemateIsNotMate() {
+        // Qc7 would stalemate; Qh8, Qg8, Qb7 and Qa7 mate
+        ChessGame game = loadGame(ChessGame.TeamColor.WHITE, """
+                |k| | | | | | | |
+                | | | | | | | |Q|
+                | |K| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """);
+        try (MateSolver solver = new MateSolver(2, 1)) {
+            MateResult result = solver.solve(game);
+
+            Assertions.assertEquals(1, result.mateIn());
+            Assertions.assertFalse(result.keyMoves().contains(
+                    new ChessMove(new ChessPosition(7, 8), new ChessPosition(7, 3), null)));
+            Assertions.assertEquals(4, result.keyMoves().size());
+            for (ChessMove key : result.keyMoves()) {
+                ChessGame after = new ChessGame(game);
+                Assertions.assertDoesNotThrow(() -> after.makeMove(key));
+                Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, after.getGameStatus(), "Not mate: " + key);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Reports No Mate Beyond The Limit")
+    public void noMateWithinLimit() {
+        ChessGame game = loadGame(ChessGame.TeamColor.WHITE, LADDER);
+        try (MateSolver solver = new MateSolver(2, 2)) {
+            MateResult result = solver.solve(game);
+
+            Assertions.assertFalse(result.hasMate());
+            Assertions.assertTrue(result.keyMoves().isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Parallelism Does Not Change The Answer")
+    public void parallelismAgrees() {
+        ChessGame game = loadGame(ChessGame.TeamColor.WHITE, LADDER);
+        MateResult serial;
+        try (MateSolver solver = new MateSolver(1, 4)) {
+            serial = solver.solve(game);
+        }
+        try (MateSolver solver = new MateSolver(4, 4)) {
+            MateResult parallel = solver.solve(game);
+
+            Assertions.assertEquals(3, serial.mateIn());
+            Assertions.assertEquals(serial.mateIn(), parallel.mateIn());
+            Assertions.assertEquals(serial.keyMoves(), parallel.keyMoves());
+        }
+    }
+
+    @Test
+    @DisplayName("Solves A Batch And Leaves The Games Alone")
+    public void solvesBatch() {
+        ChessGame morphy = loadGame(ChessGame.TeamColor.WHITE, MORPHY);
+        ChessGame start = new ChessGame();
+        ChessGame untouched = new ChessGame(morphy);
+        try (MateSolver solver = new MateSolver(4, 2)) {
+            List<MateResult> results = solver.solveAll(List.of(morphy, start));
+
+            Assertions.assertEquals(2, results.get(0).mateIn());
+            Assertions.assertFalse(results.get(1).hasMate());
+        }
+        Assertions.assertEquals(untouched, morphy);
+        Assertions.assertEquals(0, morphy.getUndoDepth());
+    }
+
+    @Test
+    @DisplayName("A Refuted Line Stops Searching")
+    public void abandonedSearchStops() {
+        // no mate here, so the whole tree is searched unless the search is told to stop
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        LongAdder full = new LongAdder();
+        Assertions.assertFalse(new MateSolver.SerialSearch(game, 2, () -> false, full).attackerMates(2, 0));
+        Assertions.assertTrue(full.sum() > 2 * MateSolver.NODES_BETWEEN_ABORT_CHECKS, full.sum() + " nodes");
+
+        LongAdder abandoned = new LongAdder();
+        new MateSolver.SerialSearch(game, 2, () -> true, abandoned).attackerMates(2, 0);
+        // the first check stops it; each ply still open counts the node it was about to try
+        Assertions.assertTrue(abandoned.sum() <= MateSolver.NODES_BETWEEN_ABORT_CHECKS + 4, abandoned.sum() + " nodes");
+        Assertions.assertEquals(0, game.getUndoDepth());
+    }
+
+    private static ChessGame loadGame(ChessGame.TeamColor teamTurn, String boardText) {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard(boardText));
+        game.setTeamTurn(teamTurn);
+        return game;
+    }
+}
@@ -0,0 +1,126 @@
+package chess.engine;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+public class SearchEngineTests {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Finds Mate In One")
+    public void findsMateInOne() {
+        // back rank mate with the rook
+        ChessGame game = loadGame(ChessGame.TeamColor.WHITE, """
+                | | | | | | |k| |
+                | | | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | |P|P|P|
+                |R| | | | | |K| |
+                """);
+        SearchResult result = new SearchEngine().search(game, 2000);
+
+        Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null), result.bestMove());
+        Assertions.assertTrue(result.isMate());
+    }
+
+    @Test
+    @DisplayName("Takes A Hanging Queen")
+    public void takesHangingQueen() {
+        ChessGame game = loadGame(ChessGame.TeamColor.BLACK, """
+                | | | | |k| | | |
+                | | | |p| | | | |
+                | | | | | | | | |
+                | |b| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |Q|P|P|P|
+                | | | | | | |K| |
+                """);
+        SearchResult result = new SearchEngine().search(game, 2000, 4);
+
+        Assertions.assertEquals(new ChessMove(new ChessPosition(5, 2), new ChessPosition(2, 5), null), result.bestMove());
+        // a bishop and pawn against three pawns once the queen is gone
+        Assertions.assertTrue(result.score() > 0, "Winning the queen should leave black ahead: " + result);
+    }
+
+    @Test
+    @DisplayName("Respects The Deadline")
+    public void respectsDeadline() {
+        // the clock reads 0 when the search starts and is past the deadline from then on
+        long[] reads = {0};
+        SearchEngine engine = new SearchEngine(() -> reads[0]++ == 0 ? 0 : Long.MAX_VALUE / 2);
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        SearchResult result = engine.search(game, 100);
+
+        // depth 1 alone takes thousands of nodes here, so the first clock check abandons it
+        Assertions.assertEquals(SearchEngine.NODES_BETWEEN_CLOCK_CHECKS, result.nodes());
+        Assertions.assertEquals(0, result.depth());
+        Assertions.assertNotNull(result.bestMove(), "a stopped search still falls back to a legal move");
+        Assertions.assertEquals(0, game.getUndoDepth());
+    }
+
+    @Test
+    @DisplayName("Stops When Asked")
+    public void stopsWhenAsked() {
+        // the clock never reaches the deadline; stop() is called at the second clock check
+        long[] reads = {0};
+        SearchEngine[] engine = new SearchEngine[1];
+        engine[0] = new SearchEngine(() -> {
+            if (++reads[0] == 3) {
+                engine[0].stop();
+            }
+            return 0;
+        });
+        SearchResult result = engine[0].search(ChessGame.fromFen(KIWIPETE), 100);
+
+        // seen at the next check
+        Assertions.assertEquals(3L * SearchEngine.NODES_BETWEEN_CLOCK_CHECKS, result.nodes());
+        Assertions.assertNotNull(result.bestMove());
+    }
+
+    @Test
+    @DisplayName("Leaves The Game As It Found It")
+    public void restoresGame() {
+        ChessGame game = new ChessGame();
+        ChessGame copy = new ChessGame();
+        long key = game.getZobristKey();
+
+        new SearchEngine().search(game, 50, 4);
+
+        Assertions.assertEquals(copy, game);
+        Assertions.assertEquals(key, game.getZobristKey());
+        Assertions.assertEquals(0, game.getUndoDepth());
+    }
+
+    @Test
+    @DisplayName("No Move When Mated")
+    public void noMoveWhenMated() {
+        ChessGame game = loadGame(ChessGame.TeamColor.BLACK, """
+                |R| | | | | |k| |
+                | | | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | |P|P|P|
+                | | | | | | |K| |
+                """);
+        SearchResult result = new SearchEngine().search(game, 100);
+
+        Assertions.assertNull(result.bestMove());
+        Assertions.assertEquals(0, result.depth());
+    }
+
+    private static ChessGame loadGame(ChessGame.TeamColor teamTurn, String boardText) {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard(boardText));
+        game.setTeamTurn(teamTurn);
+        return game;
+    }
+}
@@ -0,0 +1,155 @@
+package chess.pgn;
+
+import chess.*;
+import chess.movecalculations.Move;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class PgnTests {
+    private static final String FOOLS_MATE = """
+            [Event "?"]
+            [Site "?"]
+            [Date "????.??.??"]
+            [Round "?"]
+            [White "?"]
+            [Black "?"]
+            [Result "0-1"]
+
+            1. f3 e5 2. g4 Qh4# 0-1
+            """;
+
+    @Test
+    @DisplayName("Names Moves Only As Precisely As Needed")
+    public void disambiguation() {
+        ChessGame rooks = ChessGame.fromFen("4k3/8/8/8/8/8/4K3/R6R w - - 0 1");
+        Assertions.assertEquals("Rad1", San.toSan(rooks, move("a1", "d1")));
+        Assertions.assertEquals("Rhf1", San.toSan(rooks, move("h1", "f1")));
+        Assertions.assertEquals("Ra8+", San.toSan(rooks, move("a1", "a8")));
+
+        ChessGame sameFile = ChessGame.fromFen("4k3/8/8/R7/8/8/8/R3K3 w - - 0 1");
+        Assertions.assertEquals("R1a3", San.toSan(sameFile, move("a1", "a3")));
+        Assertions.assertEquals("R5a3", San.toSan(sameFile, move("a5", "a3")));
+
+        ChessGame queens = ChessGame.fromFen("4k3/8/8/8/8/Q7/8/Q1Q1K3 w - - 0 1");
+        Assertions.assertEquals("Qa1b2", San.toSan(queens, move("a1", "b2")));
+        Assertions.assertEquals("Q3b2", San.toSan(queens, move("a3", "b2")));
+        Assertions.assertEquals("Qcb2", San.toSan(queens, move("c1", "b2")));
+        Assertions.assertEquals(Move.withoutFlags(move("a1", "b2")), Move.withoutFlags(San.fromSan(queens, "Qa1b2")));
+    }
+
+    @Test
+    @DisplayName("Names Pawn Moves, Castling And Checks")
+    public void specialMoves() {
+        ChessGame promotion = ChessGame.fromFen("8/P7/8/8/8/8/8/k3K3 w - - 0 1");
+        int queen = Move.encode(square("a7"), square("a8"), ChessPiece.PieceType.QUEEN, 0);
+        Assertions.assertEquals("a8=Q+", San.toSan(promotion, queen));
+        Assertions.assertEquals(Move.withoutFlags(queen), Move.withoutFlags(San.fromSan(promotion, "a8Q")));
+
+        ChessGame enPassant = ChessGame.fromFen("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 3");
+        Assertions.assertEquals("dxe3", San.toSan(enPassant, move("d4", "e3")));
+
+        ChessGame kiwipete = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Assertions.assertEquals("O-O", San.toSan(kiwipete, move("e1", "g1")));
+        Assertions.assertEquals("O-O-O", San.toSan(kiwipete, move("e1", "c1")));
+        Assertions.assertEquals(Move.withoutFlags(move("e1", "g1")), Move.withoutFlags(San.fromSan(kiwipete, "0-0")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.fromSan(kiwipete, "Ra8"));
+    }
+
+    @Test
+    @DisplayName("Writes The Moves Played")
+    public void write() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(chessMove("f2", "f3"));
+        game.makeMove(chessMove("e7", "e5"));
+        game.makeMove(chessMove("g2", "g4"));
+        game.makeMove(chessMove("d8", "h4"));
+
+        Assertions.assertEquals(FOOLS_MATE, Pgn.write(game, Map.of()));
+        Assertions.assertEquals(4, game.getMoveHistory().size());
+        Assertions.assertNull(game.getMoveHistory().getStartFen());
+    }
+
+    @Test
+    @DisplayName("Reads Past Comments, Variations And Glyphs")
+    public void read() {
+        PgnGame read = Pgn.read("""
+                [Event "Casual"]
+                [White "Fool"]
+                [Black "Sage"]
+
+                1.f3 {weakens the king} e5 $2 (1... d5 2. g4) 2. g4?? Qh4# ; mate
+                0-1
+                """);
+
+        Assertions.assertEquals("Fool", read.tags().get("White"));
+        Assertions.assertEquals("0-1", read.tags().get("Result"));
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, read.game().getGameStatus());
+        Assertions.assertEquals(FOOLS_MATE.replace("\"?\"]\n[Site", "\"Casual\"]\n[Site")
+                        .replace("[White \"?\"]", "[White \"Fool\"]").replace("[Black \"?\"]", "[Black \"Sage\"]"),
+                Pgn.write(read.game(), read.tags()));
+    }
+
+    @Test
+    @DisplayName("Round Trips A Game From A Set-Up Position")
+    public void setUpPosition() throws InvalidMoveException {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq - 3 17";
+        ChessGame game = ChessGame.fromFen(fen);
+        game.makeMove(chessMove("e8", "c8"));
+        game.makeMove(chessMove("e1", "g1"));
+        game.makeMove(chessMove("b4", "c3"));
+
+        String pgn = Pgn.write(game, Map.of("White", "A \"quoted\" name"));
+        Assertions.assertTrue(pgn.contains("[FEN \"" + fen + "\"]"), pgn);
+        Assertions.assertTrue(pgn.contains("[White \"A \\\"quoted\\\" name\"]"), pgn);
+        Assertions.assertTrue(pgn.contains("17... O-O-O 18. O-O bxc3"), pgn);
+
+        PgnGame read = Pgn.read(pgn);
+        Assertions.assertEquals("A \"quoted\" name", read.tags().get("White"));
+        Assertions.assertEquals(game.toFen(), read.game().toFen());
+        Assertions.assertEquals(fen, read.game().getMoveHistory().getStartFen());
+        Assertions.assertEquals(game.toFen(), game.getMoveHistory().replay(3).toFen());
+    }
+
+    @Test
+    @DisplayName("Keeps The History Through Undo, Copies And Storage")
+    public void history() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(chessMove("e2", "e4"));
+        game.makeMove(chessMove("e7", "e5"));
+        game.makeMove(chessMove("g1", "f3"));
+        game.undoMove();
+        Assertions.assertEquals(2, game.getMoveHistory().size());
+
+        ChessGame copy = new ChessGame(game);
+        copy.makeMove(chessMove("g1", "f3"));
+        Assertions.assertEquals(2, game.getMoveHistory().size());
+        Assertions.assertEquals(3, copy.getMoveHistory().size());
+
+        ChessGame decoded = GameCodec.decode(GameCodec.encode(copy));
+        ChessGame fromJson = new Gson().fromJson(new Gson().toJson(copy), ChessGame.class);
+        Assertions.assertEquals(Pgn.write(copy, Map.of()), Pgn.write(decoded, Map.of()));
+        Assertions.assertEquals(Pgn.write(copy, Map.of()), Pgn.write(fromJson, Map.of()));
+
+        ChessGame setUp = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K2R w - - 0 1");
+        setUp.makeMove(chessMove("a1", "d1"));
+        ChessGame decodedSetUp = GameCodec.decode(GameCodec.encode(setUp));
+        Assertions.assertEquals("4k3/8/8/8/8/8/8/R3K2R w - - 0 1", decodedSetUp.getMoveHistory().getStartFen());
+        Assertions.assertEquals(setUp.toFen(), decodedSetUp.getMoveHistory().replay(1).toFen());
+    }
+
+    private static int move(String from, String to) {
+        return Move.encode(square(from), square(to));
+    }
+
+    private static ChessMove chessMove(String from, String to) {
+        return Move.toChessMove(move(from, to));
+    }
+
+    private static int square(String name) {
+        return (name.charAt(1) - '1') * 8 + (name.charAt(0) - 'a');
+    }
+}
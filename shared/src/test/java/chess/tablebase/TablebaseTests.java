@@ -0,0 +1,233 @@
+package chess.tablebase;
+
+import chess.*;
+import chess.movecalculations.Move;
+import chess.movecalculations.MoveList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import passoff.chess.TestUtilities;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+
+public class TablebaseTests {
+    private static Map<Endgame, Tablebase> generated;
+    private static Tablebases tablebases;
+
+    @BeforeAll
+    public static void generate() {
+        long start = System.nanoTime();
+        generated = TablebaseGenerator.generateAll();
+        tablebases = new Tablebases(generated);
+        System.out.printf("generated tablebases in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Test
+    @DisplayName("Queen And Rook Always Win With The Move")
+    public void majorPiecesWin() {
+        for (Endgame endgame : new Endgame[]{Endgame.KQK, Endgame.KRK}) {
+            Tablebase table = generated.get(endgame);
+            int legal = 0;
+            for (int index = 0; index < Endgame.POSITIONS / 2; index++) {
+                int value = table.value(index);
+                if (value != Tablebase.ILLEGAL) {
+                    legal++;
+                    Assertions.assertEquals(Tablebase.WIN, value, endgame + " placement " + index);
+                }
+            }
+            Assertions.assertTrue(legal > 100_000, endgame + " has too few legal placements: " + legal);
+        }
+    }
+
+    @Test
+    @DisplayName("Known Pawn Endings")
+    public void pawnEndings() {
+        // the pawn queens under the king's protection
+        Assertions.assertEquals(TablebaseResult.WIN, probe(ChessGame.TeamColor.WHITE, """
+                | | | | | | | | |
+                | | | | |P|K| | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |k| | | | | | | |
+                """));
+        // a rook pawn with the defending king in the corner
+        Assertions.assertEquals(TablebaseResult.DRAW, probe(ChessGame.TeamColor.WHITE, """
+                |k| | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |P| | | | | | | |
+                | | |K| | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """));
+        // the king in front of its pawn on the sixth wins whoever is to move
+        String kingOnSixth = """
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                | | | | |P| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """;
+        Assertions.assertEquals(TablebaseResult.WIN, probe(ChessGame.TeamColor.WHITE, kingOnSixth));
+        Assertions.assertEquals(TablebaseResult.LOSS, probe(ChessGame.TeamColor.BLACK, kingOnSixth));
+        // the black king takes the undefended pawn
+        Assertions.assertEquals(TablebaseResult.DRAW, probe(ChessGame.TeamColor.BLACK, """
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | |k| | | | |
+                | | | | |P| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | |K|
+                """));
+    }
+
+    @Test
+    @DisplayName("Black Strong Side Is Mirrored")
+    public void blackStrongSide() {
+        Assertions.assertEquals(TablebaseResult.WIN, probe(ChessGame.TeamColor.BLACK, """
+                | | | | | | | |K|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |k|p| | |
+                | | | | | | | | |
+                """));
+        Assertions.assertEquals(TablebaseResult.DRAW, probe(ChessGame.TeamColor.BLACK, """
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | |k|
+                | | | | | | | |p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | |K|
+                """));
+    }
+
+    @Test
+    @DisplayName("Results Agree With One Move Of Look-Ahead")
+    public void consistentWithMoves() {
+        // a won position has a move into a lost one; a lost position has only moves into won ones
+        Random random = new Random(17);
+        ChessPiece.PieceType[] types = {ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.PAWN};
+        int checked = 0;
+        while (checked < 3000) {
+            ChessGame game = randomGame(random, types[random.nextInt(types.length)]);
+            TablebaseResult result = game == null ? null : tablebases.probe(game);
+            if (result == null) {
+                continue;
+            }
+            checked++;
+            MoveList moves = new MoveList();
+            game.validMoves(game.getTeamTurn(), moves);
+            boolean anyWinning = false;
+            boolean allLosing = true;
+            for (int i = 0; i < moves.size(); i++) {
+                ChessGame after = new ChessGame(game);
+                after.doMove(moves.get(i));
+                TablebaseResult reply = afterResult(after);
+                anyWinning |= reply == TablebaseResult.LOSS;
+                allLosing &= reply == TablebaseResult.WIN;
+            }
+            boolean mated = moves.isEmpty() && game.isInCheck(game.getTeamTurn());
+            String message = result + " for " + game.getTeamTurn() + " to move\n" + game.getBoard();
+            switch (result) {
+                case WIN -> Assertions.assertTrue(anyWinning, message);
+                case LOSS -> Assertions.assertTrue(mated || (allLosing && !moves.isEmpty()), message);
+                case DRAW -> Assertions.assertFalse(anyWinning || mated || (allLosing && !moves.isEmpty()), message);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Mapped Tables Match The Generated Ones")
+    public void writeAndMap(@TempDir Path directory) throws IOException {
+        for (Map.Entry<Endgame, Tablebase> entry : generated.entrySet()) {
+            TablebaseGenerator.write(entry.getValue(), directory.resolve(entry.getKey().fileName()));
+        }
+        Tablebases mapped = Tablebases.open(directory);
+        for (Endgame endgame : Endgame.values()) {
+            Assertions.assertTrue(mapped.hasTable(endgame));
+            Tablebase table = Tablebase.open(directory.resolve(endgame.fileName()));
+            Assertions.assertEquals(endgame, table.getEndgame());
+            for (int index = 0; index < Endgame.POSITIONS; index += 7) {
+                Assertions.assertEquals(generated.get(endgame).value(index), table.value(index));
+            }
+        }
+        Files.write(directory.resolve("broken.tb"), new byte[100]);
+        Assertions.assertThrows(IOException.class, () -> Tablebase.open(directory.resolve("broken.tb")));
+    }
+
+    @Test
+    @DisplayName("Bare Kings Are A Draw Without Tables")
+    public void insufficientMaterial() {
+        ChessGame game = loadGame(ChessGame.TeamColor.WHITE, """
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |N| | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """);
+        Assertions.assertEquals(TablebaseResult.DRAW, game.getTablebaseResult());
+        Assertions.assertTrue(game.isGameOver());
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getGameStatus());
+        Assertions.assertNull(new ChessGame().getTablebaseResult());
+        Assertions.assertFalse(new ChessGame().isGameOver());
+    }
+
+    // the result after a move, including a capture down to bare kings or a promotion out of KPK
+    private static TablebaseResult afterResult(ChessGame game) {
+        TablebaseResult result = tablebases.probe(game);
+        Assertions.assertNotNull(result, "No result after a move\n" + game.getBoard());
+        return result;
+    }
+
+    private static ChessGame randomGame(Random random, ChessPiece.PieceType type) {
+        ChessGame.TeamColor strong = random.nextBoolean() ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        ChessGame.TeamColor weak = strong == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        int[] squares = {random.nextInt(64), random.nextInt(64), random.nextInt(64)};
+        if (squares[0] == squares[1] || squares[0] == squares[2] || squares[1] == squares[2]) {
+            return null;
+        }
+        ChessBoard board = new ChessBoard();
+        board.addPiece(squares[0], new ChessPiece(strong, ChessPiece.PieceType.KING));
+        board.addPiece(squares[1], new ChessPiece(weak, ChessPiece.PieceType.KING));
+        board.addPiece(squares[2], new ChessPiece(strong, type));
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(random.nextBoolean() ? strong : weak);
+        return game;
+    }
+
+    private static TablebaseResult probe(ChessGame.TeamColor teamTurn, String boardText) {
+        return tablebases.probe(loadGame(teamTurn, boardText));
+    }
+
+    private static ChessGame loadGame(ChessGame.TeamColor teamTurn, String boardText) {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard(boardText));
+        game.setTeamTurn(teamTurn);
+        return game;
+    }
+}